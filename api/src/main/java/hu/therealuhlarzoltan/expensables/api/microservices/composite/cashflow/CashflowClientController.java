@@ -1,17 +1,34 @@
 package hu.therealuhlarzoltan.expensables.api.microservices.composite.cashflow;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface CashflowClientController {
-    @GetMapping(value = "/api/incomes/account/{accountId}", produces = "application/json")
-    Flux<IncomeRecordInfo> getAccountIncomes(@PathVariable String accountId);
+import java.time.ZonedDateTime;
 
-    @GetMapping(value = "/api/expenses/account/{accountId}", produces = "application/json")
-    Flux<ExpenseRecordInfo> getAccountExpenses(@PathVariable String accountId);
+public interface CashflowClientController {
+    @GetMapping(value = "/api/incomes/account/{accountId}", produces = {"application/json", "application/x-ndjson"})
+    Flux<IncomeRecordInfo> getAccountIncomes(
+            @PathVariable String accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(1000) Integer limit
+    );
+
+    @GetMapping(value = "/api/expenses/account/{accountId}", produces = {"application/json", "application/x-ndjson"})
+    Flux<ExpenseRecordInfo> getAccountExpenses(
+            @PathVariable String accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(1000) Integer limit
+    );
 
     @GetMapping(value = "/api/incomes/{incomeId}", produces = "application/json")
     Mono<IncomeRecordInfo> getIncome(@PathVariable String incomeId);
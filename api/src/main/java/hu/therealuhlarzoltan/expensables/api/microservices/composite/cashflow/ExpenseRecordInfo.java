@@ -23,4 +23,5 @@ public class ExpenseRecordInfo {
     private String currency;
     private ZonedDateTime expenseDate;
     private Integer version;
+    private String cursor;
 }
@@ -22,4 +22,5 @@ public class IncomeRecordInfo {
     private String currency;
     private ZonedDateTime incomeDate;
     private Integer version;
+    private String cursor;
 }
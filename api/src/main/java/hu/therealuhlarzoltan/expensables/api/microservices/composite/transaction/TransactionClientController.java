@@ -9,9 +9,9 @@ import java.util.UUID;
 
 public interface TransactionClientController {
 
-    @GetMapping(value = "/api/transactions/account/in", produces = "application/json")
+    @GetMapping(value = "/api/transactions/account/in", produces = {"application/json", "application/x-ndjson"})
     Flux<TransactionInfo> getIncomingTransactions(@RequestParam UUID accountId);
-    @GetMapping(value = "/api/transactions/account/out", produces = "application/json")
+    @GetMapping(value = "/api/transactions/account/out", produces = {"application/json", "application/x-ndjson"})
     Flux<TransactionInfo> getOutgoingTransactions(@RequestParam UUID accountId);
     @GetMapping(value = "/api/transactions/{transactionId}", produces = "application/json")
     Mono<TransactionInfo> getTransactionInfo(@PathVariable String transactionId);
@@ -15,7 +15,7 @@ public interface AccountController {
             @ApiResponse(responseCode = "404", description = "Owner not found if filtering by owner ID"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    @GetMapping(value = "/api/accounts", produces = "application/json")
+    @GetMapping(value = "/api/accounts", produces = {"application/json", "application/x-ndjson"})
     Flux<Account> getAccounts(@Parameter(description = "Optional owner ID to filter accounts by", required = false)
                               @RequestParam(required = false) Long ownerId);
 
@@ -60,7 +60,9 @@ public interface AccountController {
     Mono<Account> deposit(@Parameter(description = "UUID of the account to deposit to", required = true)
                           @PathVariable UUID accountId,
                           @Parameter(description = "Amount to deposit", required = true)
-                          @RequestParam BigDecimal amount);
+                          @RequestParam BigDecimal amount,
+                          @Parameter(description = "Correlation id of the saga step, a repeated request with the same id is only applied once")
+                          @RequestParam(required = false) String correlationId);
 
     @Operation(summary = "Withdraw from an account", description = "Withdraw a specified amount from an account", responses = {
             @ApiResponse(responseCode = "200", description = "Amount withdrawn successfully"),
@@ -70,5 +72,7 @@ public interface AccountController {
     Mono<Account> withdraw(@Parameter(description = "UUID of the account to withdraw from", required = true)
                            @PathVariable UUID accountId,
                            @Parameter(description = "Amount to withdraw", required = true)
-                           @RequestParam BigDecimal amount);
+                           @RequestParam BigDecimal amount,
+                           @Parameter(description = "Correlation id of the saga step, a repeated request with the same id is only applied once")
+                           @RequestParam(required = false) String correlationId);
 }
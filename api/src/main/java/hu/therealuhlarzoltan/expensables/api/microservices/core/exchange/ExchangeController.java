@@ -1,11 +1,19 @@
 package hu.therealuhlarzoltan.expensables.api.microservices.core.exchange;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ExchangeController {
     @PostMapping(value ="/api/exchange", produces = "application/json", consumes = "application/json")
     Mono<ExchangeResponse> exchangeCurrency(@Valid @RequestBody ExchangeRequest exchangeRequest);
+
+    // Responses are in the order of the requests
+    @PostMapping(value = "/api/exchange/batch", produces = {"application/json", "application/x-ndjson"}, consumes = "application/json")
+    Flux<ExchangeResponse> exchangeCurrencies(@RequestBody @Size(max = 1000, message = "At most 1000 exchanges can be made at once") List<@Valid ExchangeRequest> exchangeRequests);
 }
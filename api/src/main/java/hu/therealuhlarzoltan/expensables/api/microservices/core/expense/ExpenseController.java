@@ -5,10 +5,15 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 public interface ExpenseController {
 
     @Operation(summary = "Get all expenses", description = "Retrieve all expense records")
@@ -18,7 +23,7 @@ public interface ExpenseController {
     })
     @GetMapping(
             value = "/api/expenses",
-            produces = "application/json"
+            produces = {"application/json", "application/x-ndjson"}
     )
     Flux<ExpenseRecord> getAllExpenses();
 
@@ -37,7 +42,7 @@ public interface ExpenseController {
             @PathVariable String recordId
     );
 
-    @Operation(summary = "Get expenses by account ID", description = "Retrieve all expenses for a specific account by its ID")
+    @Operation(summary = "Get expenses by account ID", description = "Retrieve the expenses of a specific account by its ID, newest first, optionally a page at a time")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful retrieval of the expenses"),
             @ApiResponse(responseCode = "404", description = "Account not found"),
@@ -45,11 +50,40 @@ public interface ExpenseController {
     })
     @GetMapping(
             value = "/api/expenses/{accountId}",
-            produces = "application/json"
+            produces = {"application/json", "application/x-ndjson"}
     )
     Flux<ExpenseRecord> getExpensesByAccount(
             @Parameter(description = "ID of the account for which to retrieve expenses")
-            @PathVariable String accountId
+            @PathVariable String accountId,
+            @Parameter(description = "Only expenses at or after this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @Parameter(description = "Only expenses before this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @Parameter(description = "Cursor of the last expense of the previous page, expenses are returned newest first")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of expenses to return")
+            @RequestParam(required = false) @Min(1) @Max(1000) Integer limit
+    );
+
+    @Operation(summary = "Get monthly expense totals of an account", description = "Sum the expenses of a specific account per month, category, subcategory and currency, newest month first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful aggregation of the expenses"),
+            @ApiResponse(responseCode = "400", description = "Invalid zone"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(
+            value = "/api/expenses/{accountId}/monthly",
+            produces = {"application/json", "application/x-ndjson"}
+    )
+    Flux<ExpenseMonthlySummary> getMonthlyExpenses(
+            @Parameter(description = "ID of the account for which to aggregate expenses")
+            @PathVariable String accountId,
+            @Parameter(description = "Only expenses at or after this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @Parameter(description = "Only expenses before this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @Parameter(description = "Zone in which the months begin and end")
+            @RequestParam(defaultValue = "UTC") String zone
     );
 
     @Operation(summary = "Create a new expense", description = "Create a new expense record")
@@ -0,0 +1,23 @@
+package hu.therealuhlarzoltan.expensables.api.microservices.core.expense;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExpenseMonthlySummary {
+    private String accountId;
+    // In yyyy-MM format
+    private String month;
+    private String expenseCategory;
+    private String expenseSubCategory;
+    private String currency;
+    private BigDecimal totalAmount;
+    private Long expenseCount;
+}
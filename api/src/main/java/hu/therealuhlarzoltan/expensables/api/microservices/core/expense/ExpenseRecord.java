@@ -26,4 +26,6 @@ public class ExpenseRecord {
     private String currency;
     private ZonedDateTime expenseDate;
     private Integer version;
+    // Only set on the records of an account listing, pass it back to continue after this record
+    private String cursor;
 }
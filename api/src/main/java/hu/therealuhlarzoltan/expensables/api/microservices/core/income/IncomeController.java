@@ -6,10 +6,15 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 public interface IncomeController {
     @Operation(summary = "Get all incomes", description = "Retrieve all income records")
     @ApiResponses(value = {
@@ -18,7 +23,7 @@ public interface IncomeController {
     })
     @GetMapping(
             value = "/api/incomes",
-            produces = "application/json"
+            produces = {"application/json", "application/x-ndjson"}
     )
     Flux<IncomeRecord> getAllIncomes();
 
@@ -37,7 +42,7 @@ public interface IncomeController {
             @PathVariable String recordId
     );
 
-    @Operation(summary = "Get incomes by account ID", description = "Retrieve all incomes for a specific account by its ID")
+    @Operation(summary = "Get incomes by account ID", description = "Retrieve the incomes of a specific account by its ID, newest first, optionally a page at a time")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successful retrieval of the incomes"),
             @ApiResponse(responseCode = "404", description = "Account not found"),
@@ -45,11 +50,19 @@ public interface IncomeController {
     })
     @GetMapping(
             value = "/api/incomes/{accountId}",
-            produces = "application/json"
+            produces = {"application/json", "application/x-ndjson"}
     )
     Flux<IncomeRecord> getIncomesByAccount(
             @Parameter(description = "ID of the account for which to retrieve incomes")
-            @PathVariable String accountId
+            @PathVariable String accountId,
+            @Parameter(description = "Only incomes at or after this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @Parameter(description = "Only incomes before this time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @Parameter(description = "Cursor of the last income of the previous page, incomes are returned newest first")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of incomes to return")
+            @RequestParam(required = false) @Min(1) @Max(1000) Integer limit
     );
 
     @Operation(summary = "Create a new income", description = "Create a new income record")
@@ -23,4 +23,6 @@ public class IncomeRecord {
     private String currency;
     private ZonedDateTime incomeDate;
     private Integer version;
+    // Set when listing the incomes of an account, the next page starts after this income
+    private String cursor;
 }
@@ -8,11 +8,11 @@ import java.util.Optional;
 import java.util.UUID;
 
 public interface TransactionController {
-    @GetMapping(value = "/api/transactions", produces = "application/json")
+    @GetMapping(value = "/api/transactions", produces = {"application/json", "application/x-ndjson"})
     Flux<TransactionRecord> getTransactions(@RequestParam Optional<UUID> accountId, @RequestParam Optional<String> destination);
     @GetMapping(value = "/api/transactions/{recordId}", produces = "application/json")
     Mono<TransactionRecord> getTransaction(@PathVariable String recordId);
-    @GetMapping(value = "/api/transactions/user/{userId}", produces = "application/json")
+    @GetMapping(value = "/api/transactions/user/{userId}", produces = {"application/json", "application/x-ndjson"})
     Flux<TransactionRecord> getTransactionsByUser(@PathVariable Long userId);
     @PostMapping(value = "/api/transactions", produces = "application/json", consumes = "application/json")
     Mono<TransactionRecord> createTransaction(@RequestBody TransactionRecord transactionRecord);
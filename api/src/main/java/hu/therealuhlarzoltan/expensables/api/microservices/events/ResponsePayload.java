@@ -1,14 +1,50 @@
 package hu.therealuhlarzoltan.expensables.api.microservices.events;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseRecord;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.income.IncomeRecord;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.transaction.TransactionRecord;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 
-@RequiredArgsConstructor
 @Getter
 @NoArgsConstructor(force = true)
 public class ResponsePayload {
     private final String message;
     private final HttpStatus status;
+
+    // Encoded as part of the response event itself, so the receiver gets it back typed without a second parse
+    @JsonTypeInfo(
+            use = JsonTypeInfo.Id.NAME,
+            include = JsonTypeInfo.As.EXTERNAL_PROPERTY,
+            property = "bodyType"
+    )
+    @JsonSubTypes({
+            @JsonSubTypes.Type(value = Account.class, name = "Account"),
+            @JsonSubTypes.Type(value = ExpenseRecord.class, name = "ExpenseRecord"),
+            @JsonSubTypes.Type(value = IncomeRecord.class, name = "IncomeRecord"),
+            @JsonSubTypes.Type(value = TransactionRecord.class, name = "TransactionRecord")
+    })
+    private final Object body;
+
+    public ResponsePayload(String message, HttpStatus status) {
+        this(message, status, null);
+    }
+
+    public ResponsePayload(HttpStatus status, Object body) {
+        this(null, status, body);
+    }
+
+    public ResponsePayload(String message, HttpStatus status, Object body) {
+        this.message = message;
+        this.status = status;
+        this.body = body;
+    }
+
+    public <T> T getBody(Class<T> type) {
+        return type.isInstance(body) ? type.cast(body) : null;
+    }
 }
@@ -0,0 +1,35 @@
+package hu.therealuhlarzoltan.expensables.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.CrudEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * The conversion the account service does on every CRUD event, turning the untyped event data into an {@link Account}.
+ */
+@State(Scope.Benchmark)
+public class AccountConsumerBenchmark {
+    private ObjectMapper mapper;
+    private Object eventData;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = BenchmarkFixtures.objectMapper();
+        Account account = BenchmarkFixtures.account();
+        byte[] wire = mapper.writeValueAsBytes(new CrudEvent<>(CrudEvent.Type.UPDATE, account.getAccountId(), account));
+        // Read back like the consumer does, so the data is the same map the binder hands over
+        eventData = mapper.readValue(wire, Event.class).getData();
+    }
+
+    @Benchmark
+    public Account convertEventData() {
+        return mapper.convertValue(eventData, Account.class);
+    }
+}
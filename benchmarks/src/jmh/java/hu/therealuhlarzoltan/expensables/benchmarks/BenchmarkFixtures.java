@@ -0,0 +1,76 @@
+package hu.therealuhlarzoltan.expensables.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseRecord;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.transaction.TransactionRecord;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * The same mapper Spring Boot builds for the services, including the use-big-decimal-for-floats setting of their configuration.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToEnable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+    }
+
+    static Account account() {
+        return Account.builder()
+                .accountId("3f1c2a9e-8d4b-4e6f-9a7c-1b2d3e4f5a6b")
+                .ownerId(42L)
+                .accountName("Everyday spending")
+                .accountType("Debit")
+                .accountCategory("Checking")
+                .currency("HUF")
+                .bankName("OTP Bank")
+                .balance(new BigDecimal("1254300.75"))
+                .version(17)
+                .build();
+    }
+
+    static ExpenseRecord expenseRecord() {
+        return ExpenseRecord.builder()
+                .recordId("6651b2f0c4e9a71d2f3a8b10")
+                .userId(42L)
+                .accountId("3f1c2a9e-8d4b-4e6f-9a7c-1b2d3e4f5a6b")
+                .expenseName("Weekly groceries")
+                .expenseCategory("Foods & Drinks")
+                .expenseSubCategory("Groceries")
+                .amount(new BigDecimal("23450.00"))
+                .currency("HUF")
+                .expenseDate(timestamp())
+                .version(3)
+                .build();
+    }
+
+    static TransactionRecord transactionRecord() {
+        return TransactionRecord.builder()
+                .recordId("6651b2f0c4e9a71d2f3a8b11")
+                .version(1)
+                .userId(42L)
+                .fromAccountId("3f1c2a9e-8d4b-4e6f-9a7c-1b2d3e4f5a6b")
+                .toAccountId("9e8d7c6b-5a4f-4e3d-8c2b-1a0f9e8d7c6b")
+                .amount(new BigDecimal("150000.00"))
+                .fromCurrency("HUF")
+                .toCurrency("EUR")
+                .transactionDate(timestamp())
+                .build();
+    }
+
+    static ZonedDateTime timestamp() {
+        return ZonedDateTime.of(2024, 8, 14, 18, 30, 12, 250_000_000, ZoneId.of("Europe/Budapest"));
+    }
+}
@@ -0,0 +1,84 @@
+package hu.therealuhlarzoltan.expensables.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.AccountEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.CrudEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Jackson round trips of the events the clients publish, in the JSON encoding and in the opt-in Smile encoding.
+ * Reads go through the polymorphic {@link Event} type, the same way the consumers receive them.
+ */
+@State(Scope.Benchmark)
+public class EventSerializationBenchmark {
+    private ObjectMapper jsonMapper;
+    private ObjectMapper smileMapper;
+    private CrudEvent<String, Account> crudEvent;
+    private AccountEvent<String, BigDecimal> accountEvent;
+    private byte[] crudEventJson;
+    private byte[] accountEventJson;
+    private byte[] crudEventSmile;
+    private byte[] accountEventSmile;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonMapper = BenchmarkFixtures.objectMapper();
+        smileMapper = jsonMapper.copyWith(new SmileFactory());
+        Account account = BenchmarkFixtures.account();
+        crudEvent = new CrudEvent<>(CrudEvent.Type.CREATE, account.getAccountId(), account);
+        accountEvent = new AccountEvent<>(AccountEvent.Type.WITHDRAW, account.getAccountId(), new BigDecimal("23450.00"));
+        crudEventJson = jsonMapper.writeValueAsBytes(crudEvent);
+        accountEventJson = jsonMapper.writeValueAsBytes(accountEvent);
+        crudEventSmile = smileMapper.writeValueAsBytes(crudEvent);
+        accountEventSmile = smileMapper.writeValueAsBytes(accountEvent);
+    }
+
+    @Benchmark
+    public byte[] writeCrudEventJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(crudEvent);
+    }
+
+    @Benchmark
+    public Event<?, ?> readCrudEventJson() throws IOException {
+        return jsonMapper.readValue(crudEventJson, Event.class);
+    }
+
+    @Benchmark
+    public byte[] writeAccountEventJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(accountEvent);
+    }
+
+    @Benchmark
+    public Event<?, ?> readAccountEventJson() throws IOException {
+        return jsonMapper.readValue(accountEventJson, Event.class);
+    }
+
+    @Benchmark
+    public byte[] writeCrudEventSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(crudEvent);
+    }
+
+    @Benchmark
+    public Event<?, ?> readCrudEventSmile() throws IOException {
+        return smileMapper.readValue(crudEventSmile, Event.class);
+    }
+
+    @Benchmark
+    public byte[] writeAccountEventSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(accountEvent);
+    }
+
+    @Benchmark
+    public Event<?, ?> readAccountEventSmile() throws IOException {
+        return smileMapper.readValue(accountEventSmile, Event.class);
+    }
+}
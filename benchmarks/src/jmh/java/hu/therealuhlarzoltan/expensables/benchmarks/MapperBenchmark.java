@@ -0,0 +1,95 @@
+package hu.therealuhlarzoltan.expensables.benchmarks;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseRecord;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.transaction.TransactionRecord;
+import hu.therealuhlarzoltan.expensables.microservices.account.components.mappers.AccountCategoryMapperImpl;
+import hu.therealuhlarzoltan.expensables.microservices.account.components.mappers.AccountMapper;
+import hu.therealuhlarzoltan.expensables.microservices.account.components.mappers.AccountMapperImpl;
+import hu.therealuhlarzoltan.expensables.microservices.account.components.mappers.AccountTypeMapperImpl;
+import hu.therealuhlarzoltan.expensables.microservices.account.models.AccountEntity;
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.mappers.ExpenseCategoryMapperImpl;
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.mappers.ExpenseRecordMapper;
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.mappers.ExpenseRecordMapperImpl;
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.mappers.ExpenseSubCategoryMapperImpl;
+import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseRecordEntity;
+import hu.therealuhlarzoltan.expensables.microservices.transaction.components.TransactionMapper;
+import hu.therealuhlarzoltan.expensables.microservices.transaction.components.TransactionMapperImpl;
+import hu.therealuhlarzoltan.expensables.microservices.transaction.models.TransactionEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * The MapStruct mappers between the API records and the stored entities, wired by Spring like in the services.
+ */
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    private AnnotationConfigApplicationContext context;
+    private AccountMapper accountMapper;
+    private ExpenseRecordMapper expenseRecordMapper;
+    private TransactionMapper transactionMapper;
+    private Account account;
+    private AccountEntity accountEntity;
+    private ExpenseRecord expenseRecord;
+    private ExpenseRecordEntity expenseRecordEntity;
+    private TransactionRecord transactionRecord;
+    private TransactionEntity transactionEntity;
+
+    @Setup
+    public void setUp() {
+        // The generated mappers inject the mappers they use, so they are only complete inside a context
+        context = new AnnotationConfigApplicationContext(
+                AccountMapperImpl.class, AccountCategoryMapperImpl.class, AccountTypeMapperImpl.class,
+                ExpenseRecordMapperImpl.class, ExpenseCategoryMapperImpl.class, ExpenseSubCategoryMapperImpl.class,
+                TransactionMapperImpl.class
+        );
+        accountMapper = context.getBean(AccountMapper.class);
+        expenseRecordMapper = context.getBean(ExpenseRecordMapper.class);
+        transactionMapper = context.getBean(TransactionMapper.class);
+        account = BenchmarkFixtures.account();
+        accountEntity = accountMapper.accountToAccountEntity(account);
+        expenseRecord = BenchmarkFixtures.expenseRecord();
+        expenseRecordEntity = expenseRecordMapper.expenseRecordToEntity(expenseRecord);
+        transactionRecord = BenchmarkFixtures.transactionRecord();
+        transactionEntity = transactionMapper.apiToEntity(transactionRecord);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AccountEntity accountToEntity() {
+        return accountMapper.accountToAccountEntity(account);
+    }
+
+    @Benchmark
+    public Account entityToAccount() {
+        return accountMapper.accountEntityToAccount(accountEntity);
+    }
+
+    @Benchmark
+    public ExpenseRecordEntity expenseRecordToEntity() {
+        return expenseRecordMapper.expenseRecordToEntity(expenseRecord);
+    }
+
+    @Benchmark
+    public ExpenseRecord entityToExpenseRecord() {
+        return expenseRecordMapper.entityToExpenseRecord(expenseRecordEntity);
+    }
+
+    @Benchmark
+    public TransactionEntity transactionToEntity() {
+        return transactionMapper.apiToEntity(transactionRecord);
+    }
+
+    @Benchmark
+    public TransactionRecord entityToTransaction() {
+        return transactionMapper.entityToApi(transactionEntity);
+    }
+}
@@ -0,0 +1,46 @@
+package hu.therealuhlarzoltan.expensables.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.ResponsePayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+
+/**
+ * Full reply round trip, from the result of a core service to the record in the saga.
+ * The JSON string variant is how replies were encoded before the payload got a typed body.
+ */
+@State(Scope.Benchmark)
+public class ResponsePayloadBenchmark {
+    private static final String CORRELATION_ID = "0b7d4a52-6a8e-4c1f-9d3e-5f2a1b0c9d8e";
+    private ObjectMapper mapper;
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        mapper = BenchmarkFixtures.objectMapper();
+        account = BenchmarkFixtures.account();
+    }
+
+    @Benchmark
+    public Account typedBodyRoundTrip() throws IOException {
+        HttpResponseEvent reply = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, CORRELATION_ID, new ResponsePayload(HttpStatus.OK, account));
+        byte[] wire = mapper.writeValueAsBytes(reply);
+        return mapper.readValue(wire, HttpResponseEvent.class).getData().getBody(Account.class);
+    }
+
+    @Benchmark
+    public Account jsonStringBodyRoundTrip() throws IOException {
+        String body = mapper.writeValueAsString(account);
+        HttpResponseEvent reply = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, CORRELATION_ID, new ResponsePayload(body, HttpStatus.OK));
+        byte[] wire = mapper.writeValueAsBytes(reply);
+        String received = mapper.readValue(wire, HttpResponseEvent.class).getData().getMessage();
+        return mapper.readValue(received, Account.class);
+    }
+}
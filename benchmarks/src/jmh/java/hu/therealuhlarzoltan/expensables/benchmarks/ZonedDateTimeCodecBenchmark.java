@@ -0,0 +1,92 @@
+package hu.therealuhlarzoltan.expensables.benchmarks;
+
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.codecs.ZonedDateTimeCodec;
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.converters.DateToZonedDateTimeConverter;
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.converters.ZonedDateTimeToDateConverter;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+/**
+ * Encoding and decoding a timestamp field with the codec the expense, income and transaction services register for their Mongo clients.
+ * The codecs of the three services are identical, the one of the expense service stands in for all of them.
+ * The date variants store the same timestamp the way the expense and income services do by default, as a BSON date and a zone id.
+ */
+@State(Scope.Benchmark)
+public class ZonedDateTimeCodecBenchmark {
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+    private ZonedDateTimeCodec codec;
+    private ZonedDateTime timestamp;
+    private ZonedDateTimeToDateConverter toDateConverter;
+    private DateToZonedDateTimeConverter fromDateConverter;
+    private byte[] encodedDocument;
+    private byte[] encodedDateDocument;
+
+    @Setup
+    public void setUp() {
+        codec = new ZonedDateTimeCodec();
+        timestamp = BenchmarkFixtures.timestamp();
+        toDateConverter = new ZonedDateTimeToDateConverter();
+        fromDateConverter = new DateToZonedDateTimeConverter();
+        encodedDocument = encode();
+        encodedDateDocument = encodeAsDate();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writer.writeName("timestamp");
+            codec.encode(writer, timestamp, ENCODER_CONTEXT);
+            writer.writeEndDocument();
+        }
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public ZonedDateTime decode() {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(encodedDocument))) {
+            reader.readStartDocument();
+            reader.readName();
+            ZonedDateTime decoded = codec.decode(reader, DECODER_CONTEXT);
+            reader.readEndDocument();
+            return decoded;
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeAsDate() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writer.writeDateTime("timestamp", toDateConverter.convert(timestamp).getTime());
+            writer.writeString("timestampZone", timestamp.getZone().getId());
+            writer.writeEndDocument();
+        }
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public ZonedDateTime decodeAsDate() {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(encodedDateDocument))) {
+            reader.readStartDocument();
+            Date date = new Date(reader.readDateTime("timestamp"));
+            String zone = reader.readString("timestampZone");
+            reader.readEndDocument();
+            return fromDateConverter.convert(date).withZoneSameInstant(ZoneId.of(zone));
+        }
+    }
+}
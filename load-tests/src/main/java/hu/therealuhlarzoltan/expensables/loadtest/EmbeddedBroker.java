@@ -0,0 +1,38 @@
+package hu.therealuhlarzoltan.expensables.loadtest;
+
+import org.apache.qpid.server.SystemLauncher;
+import org.apache.qpid.server.model.SystemConfig;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory Qpid broker speaking AMQP 0-9-1, which is all the rabbit binder of the services needs.
+ */
+final class EmbeddedBroker implements AutoCloseable {
+    private final SystemLauncher launcher = new SystemLauncher();
+    private final int port;
+
+    EmbeddedBroker(int port, Path workDirectory) throws Exception {
+        this.port = port;
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(SystemConfig.TYPE, "Memory");
+        attributes.put(SystemConfig.INITIAL_CONFIGURATION_LOCATION, EmbeddedBroker.class.getResource("/qpid-config.json").toExternalForm());
+        attributes.put(SystemConfig.STARTUP_LOGGED_TO_SYSTEM_OUT, false);
+        attributes.put(SystemConfig.CONTEXT, Map.of(
+                "qpid.amqp_port", port,
+                "qpid.work_dir", workDirectory.toString()
+        ));
+        launcher.startup(attributes);
+    }
+
+    int port() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+}
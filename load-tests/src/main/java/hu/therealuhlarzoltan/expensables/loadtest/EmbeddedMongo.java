@@ -0,0 +1,35 @@
+package hu.therealuhlarzoltan.expensables.loadtest;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+/**
+ * A throwaway mongod process shared by all services, each of them keeps using its own database.
+ */
+final class EmbeddedMongo implements AutoCloseable {
+    private final TransitionWalker.ReachedState<RunningMongodProcess> process;
+
+    EmbeddedMongo() {
+        this.process = Mongod.instance().start(Version.Main.V6_0);
+    }
+
+    String host() {
+        return address().getHost();
+    }
+
+    int port() {
+        return address().getPort();
+    }
+
+    @Override
+    public void close() {
+        process.close();
+    }
+
+    private ServerAddress address() {
+        return process.current().getServerAddress();
+    }
+}
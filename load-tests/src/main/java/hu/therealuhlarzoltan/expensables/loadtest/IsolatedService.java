@@ -0,0 +1,88 @@
+package hu.therealuhlarzoltan.expensables.loadtest;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Spring Boot service started inside this JVM from its own class loader.
+ * The services all scan the whole hu.therealuhlarzoltan package and each ships an application.yml,
+ * so sharing a single classpath would mix their beans and configuration together.
+ */
+final class IsolatedService implements AutoCloseable {
+    private final String name;
+    private final URLClassLoader classLoader;
+    private final Object context;
+    private final Method closeMethod;
+    private final int port;
+
+    private IsolatedService(String name, URLClassLoader classLoader, Object context, Method closeMethod, int port) {
+        this.name = name;
+        this.classLoader = classLoader;
+        this.context = context;
+        this.closeMethod = closeMethod;
+        this.port = port;
+    }
+
+    /**
+     * Starts the service whose runtime classpath was handed over in the loadtest.classpath.&lt;name&gt; system property.
+     */
+    static IsolatedService start(String name, String mainClass, List<String> args) throws Exception {
+        URLClassLoader classLoader = new URLClassLoader(name, classpathOf(name), ClassLoader.getPlatformClassLoader());
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            Class<?> application = classLoader.loadClass(mainClass);
+            Class<?> springApplication = classLoader.loadClass("org.springframework.boot.SpringApplication");
+            Class<?> contextType = classLoader.loadClass("org.springframework.context.ConfigurableApplicationContext");
+            Class<?> propertyResolver = classLoader.loadClass("org.springframework.core.env.PropertyResolver");
+
+            Object context = springApplication.getMethod("run", Class.class, String[].class)
+                    .invoke(null, application, args.toArray(String[]::new));
+            Object environment = contextType.getMethod("getEnvironment").invoke(context);
+            String port = (String) propertyResolver.getMethod("getProperty", String.class).invoke(environment, "local.server.port");
+            return new IsolatedService(name, classLoader, context, contextType.getMethod("close"), Integer.parseInt(port));
+        } catch (InvocationTargetException e) {
+            classLoader.close();
+            throw new IllegalStateException("Couldn't start " + name, e.getCause());
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    URI baseUri() {
+        return URI.create("http://localhost:" + port);
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            closeMethod.invoke(context);
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    private static URL[] classpathOf(String name) throws MalformedURLException {
+        String classpath = System.getProperty("loadtest.classpath." + name);
+        if (classpath == null || classpath.isBlank()) {
+            throw new IllegalStateException("No classpath was given for " + name + ", start the load test through the Gradle run task");
+        }
+        List<URL> urls = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            urls.add(new File(entry).toURI().toURL());
+        }
+        return urls.toArray(URL[]::new);
+    }
+}
@@ -0,0 +1,49 @@
+package hu.therealuhlarzoltan.expensables.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Collects the latency of every successful call of one saga type, failures are only counted.
+ */
+final class LatencyRecorder {
+    private final String sagaType;
+    private long[] latencies = new long[4096];
+    private int count;
+    private int failures;
+
+    LatencyRecorder(String sagaType) {
+        this.sagaType = sagaType;
+    }
+
+    synchronized void record(long latencyNanos, boolean succeeded) {
+        if (!succeeded) {
+            failures++;
+            return;
+        }
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    synchronized String summary(Duration window) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        double throughput = count / (window.toNanos() / 1e9);
+        return String.format("%-12s %8d ok %6d failed %10.1f/s   p50 %8.2f ms   p99 %8.2f ms",
+                sagaType, count, failures, throughput, millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,129 @@
+package hu.therealuhlarzoltan.expensables.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a fixed number of requests in flight against the client services, each one going through a full saga.
+ * Every worker picks a transfer or an expense at random according to the configured share and sends the next one
+ * as soon as the previous answer arrived. Calls finishing during the warmup aren't recorded.
+ */
+final class LoadDriver {
+    static final String TRANSFER = "transfer";
+    static final String EXPENSE = "expense";
+    static final long OWNER_ID = 1L;
+    static final String CURRENCY = "HUF";
+
+    private final HttpClient http;
+    private final ObjectMapper mapper;
+    private final LoadTestSettings settings;
+    private final URI transactionClient;
+    private final URI cashflowClient;
+    private final List<String> accountIds;
+
+    LoadDriver(HttpClient http, ObjectMapper mapper, LoadTestSettings settings, URI transactionClient, URI cashflowClient, List<String> accountIds) {
+        this.http = http;
+        this.mapper = mapper;
+        this.settings = settings;
+        this.transactionClient = transactionClient;
+        this.cashflowClient = cashflowClient;
+        this.accountIds = List.copyOf(accountIds);
+    }
+
+    Map<String, LatencyRecorder> run() throws InterruptedException {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        recorders.put(TRANSFER, new LatencyRecorder(TRANSFER));
+        recorders.put(EXPENSE, new LatencyRecorder(EXPENSE));
+
+        long measureFrom = System.nanoTime() + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Runnable> tasks = new ArrayList<>();
+            for (int i = 0; i < settings.concurrency(); i++) {
+                tasks.add(() -> work(recorders, measureFrom, end));
+            }
+            tasks.forEach(workers::submit);
+        }
+        return recorders;
+    }
+
+    private void work(Map<String, LatencyRecorder> recorders, long measureFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            boolean transfer = random.nextDouble() < settings.transferShare();
+            HttpRequest request = transfer ? transferRequest(random) : expenseRequest(random);
+            long start = System.nanoTime();
+            boolean succeeded;
+            try {
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                succeeded = response.statusCode() / 100 == 2;
+            } catch (IOException e) {
+                succeeded = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long finished = System.nanoTime();
+            if (start >= measureFrom && finished <= end) {
+                recorders.get(transfer ? TRANSFER : EXPENSE).record(finished - start, succeeded);
+            }
+        }
+    }
+
+    private HttpRequest transferRequest(ThreadLocalRandom random) {
+        int from = random.nextInt(accountIds.size());
+        int to = (from + 1 + random.nextInt(accountIds.size() - 1)) % accountIds.size();
+        Map<String, Object> body = Map.of(
+                "userId", OWNER_ID,
+                "fromAccountId", accountIds.get(from),
+                "toAccountId", accountIds.get(to),
+                "amount", randomAmount(random)
+        );
+        return post(transactionClient.resolve("/api/transactions"), body);
+    }
+
+    private HttpRequest expenseRequest(ThreadLocalRandom random) {
+        Map<String, Object> body = Map.of(
+                "userId", OWNER_ID,
+                "accountId", accountIds.get(random.nextInt(accountIds.size())),
+                "expenseName", "Load test expense",
+                "expenseCategory", "Foods & Drinks",
+                "expenseSubCategory", "Groceries",
+                "amount", randomAmount(random),
+                "currency", CURRENCY,
+                "expenseDate", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now())
+        );
+        return post(cashflowClient.resolve("/api/expenses"), body);
+    }
+
+    private HttpRequest post(URI uri, Map<String, Object> body) {
+        try {
+            return HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BigDecimal randomAmount(ThreadLocalRandom random) {
+        return BigDecimal.valueOf(random.nextInt(100, 10_000));
+    }
+}
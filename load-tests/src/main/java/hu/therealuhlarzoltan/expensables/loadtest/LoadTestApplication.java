@@ -0,0 +1,131 @@
+package hu.therealuhlarzoltan.expensables.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * Boots the account, expense and transaction services together with the cashflow and transaction clients in this JVM,
+ * backed by an embedded mongod and an embedded AMQP broker and wired together with static service discovery,
+ * then drives a mix of transfers and expenses through the clients and prints throughput and latency per saga type.
+ */
+public final class LoadTestApplication {
+    private static final String SERVICES_PACKAGE = "hu.therealuhlarzoltan.expensables.microservices.";
+
+    private LoadTestApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Path workDirectory = Files.createTempDirectory("expensables-loadtest");
+        ObjectMapper mapper = new ObjectMapper();
+
+        try (EmbeddedMongo mongo = new EmbeddedMongo();
+             EmbeddedBroker broker = new EmbeddedBroker(freePort(), workDirectory.resolve("broker"))) {
+            List<String> infrastructure = infrastructureArgs(settings, mongo, broker);
+
+            try (IsolatedService accountService = IsolatedService.start("account-service", SERVICES_PACKAGE + "account.AccountServiceApplication", coreArgs(infrastructure));
+                 IsolatedService expenseService = IsolatedService.start("expense-service", SERVICES_PACKAGE + "expense.ExpenseServiceApplication", coreArgs(infrastructure));
+                 IsolatedService transactionService = IsolatedService.start("transaction-service", SERVICES_PACKAGE + "transaction.TransactionServiceApplication", coreArgs(infrastructure))) {
+                List<String> clientArgs = clientArgs(infrastructure, settings, workDirectory, accountService, expenseService, transactionService);
+
+                try (IsolatedService cashflowClient = IsolatedService.start("cashflow-client", SERVICES_PACKAGE + "cashflow.CashflowClientApplication", clientArgs);
+                     IsolatedService transactionClient = IsolatedService.start("transaction-client", SERVICES_PACKAGE + "transactionclient.TransactionClientApplication", clientArgs);
+                     HttpClient http = HttpClient.newBuilder()
+                             .executor(Executors.newVirtualThreadPerTaskExecutor())
+                             .connectTimeout(Duration.ofSeconds(5))
+                             .build()) {
+                    List<String> accountIds = createAccounts(http, mapper, accountService.baseUri(), settings.accounts());
+                    System.out.printf("Running %s of load after %s of warmup with %d concurrent requests, %.0f%% transfers%n",
+                            settings.duration(), settings.warmup(), settings.concurrency(), settings.transferShare() * 100);
+
+                    LoadDriver driver = new LoadDriver(http, mapper, settings, transactionClient.baseUri(), cashflowClient.baseUri(), accountIds);
+                    Map<String, LatencyRecorder> results = driver.run();
+                    results.values().forEach(recorder -> System.out.println(recorder.summary(settings.duration())));
+                }
+            }
+        }
+    }
+
+    private static List<String> infrastructureArgs(LoadTestSettings settings, EmbeddedMongo mongo, EmbeddedBroker broker) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--eureka.client.enabled=false",
+                "--spring.data.mongodb.host=" + mongo.host(),
+                "--spring.data.mongodb.port=" + mongo.port(),
+                "--spring.rabbitmq.host=localhost",
+                "--spring.rabbitmq.port=" + broker.port()
+        ));
+        if (settings.smile()) {
+            args.add("--spring.profiles.active=smile");
+        }
+        return args;
+    }
+
+    private static List<String> coreArgs(List<String> infrastructure) {
+        List<String> args = new ArrayList<>(infrastructure);
+        // Dead letter queues are declared through RabbitMQ specific queue arguments the embedded broker doesn't know
+        args.add("--spring.cloud.stream.rabbit.bindings.messageProcessor-in-0.consumer.autoBindDlq=false");
+        return args;
+    }
+
+    private static List<String> clientArgs(List<String> infrastructure, LoadTestSettings settings, Path workDirectory, IsolatedService... coreServices) {
+        List<String> args = new ArrayList<>(infrastructure);
+        for (IsolatedService service : coreServices) {
+            args.add("--spring.cloud.discovery.client.simple.instances." + service.name() + "[0].uri=" + service.baseUri());
+        }
+        args.add("--app.account-fast-path-enabled=" + settings.accountFastPath());
+        args.add("--app.saga-log-path=" + workDirectory.resolve("saga-log").resolve("${spring.application.name}.log"));
+        return args;
+    }
+
+    private static List<String> createAccounts(HttpClient http, ObjectMapper mapper, URI accountService, int count) throws IOException, InterruptedException {
+        List<String> accountIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String accountId = UUID.randomUUID().toString();
+            Map<String, Object> account = Map.of(
+                    "accountId", accountId,
+                    "ownerId", LoadDriver.OWNER_ID,
+                    "accountName", "Load test " + i,
+                    "accountType", "Debit",
+                    "accountCategory", "Checking",
+                    "currency", LoadDriver.CURRENCY,
+                    "bankName", "Load test bank",
+                    // Large enough that no withdrawal of the run gets rejected for insufficient funds
+                    "balance", new BigDecimal("1000000000000")
+            );
+            HttpRequest request = HttpRequest.newBuilder(accountService.resolve("/api/accounts"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(account)))
+                    .build();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Couldn't create account " + accountId + ": " + response.body());
+            }
+            accountIds.add(accountId);
+        }
+        return accountIds;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
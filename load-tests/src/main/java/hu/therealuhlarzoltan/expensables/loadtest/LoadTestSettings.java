@@ -0,0 +1,39 @@
+package hu.therealuhlarzoltan.expensables.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Knobs of a load test run, read from loadtest.* system properties.
+ */
+record LoadTestSettings(
+        Duration warmup,
+        Duration duration,
+        int concurrency,
+        double transferShare,
+        int accounts,
+        boolean accountFastPath,
+        boolean smile
+) {
+
+    static LoadTestSettings fromSystemProperties() {
+        LoadTestSettings settings = new LoadTestSettings(
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT60S")),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Double.parseDouble(System.getProperty("loadtest.transferShare", "0.5")),
+                Integer.getInteger("loadtest.accounts", 20),
+                Boolean.getBoolean("loadtest.accountFastPath"),
+                Boolean.getBoolean("loadtest.smile")
+        );
+        if (settings.concurrency() < 1) {
+            throw new IllegalArgumentException("The concurrency must be at least 1");
+        }
+        if (settings.transferShare() < 0 || settings.transferShare() > 1) {
+            throw new IllegalArgumentException("The transfer share must be between 0 and 1");
+        }
+        if (settings.accounts() < 2) {
+            throw new IllegalArgumentException("Transfers need at least 2 accounts");
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,188 @@
+package hu.therealuhlarzoltan.expensables.loadtest;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compares account range queries over timestamps stored as ISO strings against the same records stored as BSON dates.
+ * Both collections are seeded with identical records and queried directly, since expense-service only serves ranges
+ * over dates. Every result is read back into a ZonedDateTime, as the service's converters would.
+ */
+public final class TimestampQueryBenchmark {
+    private static final ZonedDateTime FIRST_TIMESTAMP = ZonedDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final long TIMESTAMP_SPAN_SECONDS = Duration.ofDays(730).toSeconds();
+    private static final ZoneId RECORD_ZONE = ZoneId.of("Europe/Budapest");
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final Bson NEWEST_FIRST = Sorts.descending("timestamp", "_id");
+
+    private record Settings(int records, int accounts, int queries, int warmupQueries, Duration window) {
+
+        static Settings fromSystemProperties() {
+            Settings settings = new Settings(
+                    Integer.getInteger("loadtest.records", 1_000_000),
+                    Integer.getInteger("loadtest.accounts", 100),
+                    Integer.getInteger("loadtest.queries", 2_000),
+                    Integer.getInteger("loadtest.warmupQueries", 200),
+                    Duration.parse(System.getProperty("loadtest.window", "P30D"))
+            );
+            if (settings.records() < 1 || settings.accounts() < 1) {
+                throw new IllegalArgumentException("At least one record and one account are needed");
+            }
+            return settings;
+        }
+    }
+
+    private record RangeQuery(String accountId, ZonedDateTime from, ZonedDateTime to) {
+
+        Bson stringFilter() {
+            return Filters.and(Filters.eq("accountId", accountId),
+                    Filters.gte("timestamp", from.format(DateTimeFormatter.ISO_ZONED_DATE_TIME)),
+                    Filters.lt("timestamp", to.format(DateTimeFormatter.ISO_ZONED_DATE_TIME)));
+        }
+
+        Bson dateFilter() {
+            return Filters.and(Filters.eq("accountId", accountId),
+                    Filters.gte("timestamp", Date.from(from.toInstant())),
+                    Filters.lt("timestamp", Date.from(to.toInstant())));
+        }
+    }
+
+    private TimestampQueryBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Settings settings = Settings.fromSystemProperties();
+        List<String> accountIds = new ArrayList<>(settings.accounts());
+        for (int i = 0; i < settings.accounts(); i++) {
+            accountIds.add(UUID.nameUUIDFromBytes(("account-" + i).getBytes(StandardCharsets.UTF_8)).toString());
+        }
+
+        try (EmbeddedMongo mongo = new EmbeddedMongo();
+             MongoClient client = MongoClients.create("mongodb://" + mongo.host() + ":" + mongo.port())) {
+            MongoCollection<Document> strings = client.getDatabase("expense_strings").getCollection("expense_records");
+            MongoCollection<Document> dates = client.getDatabase("expense_dates").getCollection("expense_records");
+            System.out.printf("Seeding %d records over %d accounts in both storages...%n", settings.records(), settings.accounts());
+            seed(strings, dates, settings, accountIds);
+
+            Random random = new Random(42);
+            for (int i = 0; i < settings.warmupQueries(); i++) {
+                RangeQuery query = rangeQuery(accountIds.get(random.nextInt(accountIds.size())), settings.window(), random);
+                int stringMatches = readStrings(strings, query);
+                int dateMatches = readDates(dates, query);
+                if (stringMatches != dateMatches) {
+                    throw new IllegalStateException("The storages disagree on " + query + ": " + stringMatches + " string vs " + dateMatches + " date matches");
+                }
+            }
+
+            List<RangeQuery> queries = new ArrayList<>(settings.queries());
+            for (int i = 0; i < settings.queries(); i++) {
+                queries.add(rangeQuery(accountIds.get(random.nextInt(accountIds.size())), settings.window(), random));
+            }
+            System.out.printf("Running %d range queries of %s per storage%n", settings.queries(), settings.window());
+            System.out.println(measure("string", queries, query -> readStrings(strings, query)));
+            System.out.println(measure("date", queries, query -> readDates(dates, query)));
+        }
+    }
+
+    private static void seed(MongoCollection<Document> strings, MongoCollection<Document> dates, Settings settings, List<String> accountIds) {
+        Random random = new Random(7);
+        List<Document> stringBatch = new ArrayList<>(INSERT_BATCH_SIZE);
+        List<Document> dateBatch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < settings.records(); i++) {
+            ObjectId id = new ObjectId();
+            String accountId = accountIds.get(random.nextInt(accountIds.size()));
+            ZonedDateTime timestamp = FIRST_TIMESTAMP.plusSeconds(random.nextLong(TIMESTAMP_SPAN_SECONDS));
+            // In UTC, the ISO strings only order correctly as long as they all share one offset
+            stringBatch.add(expense(id, accountId).append("timestamp", timestamp.format(DateTimeFormatter.ISO_ZONED_DATE_TIME)));
+            dateBatch.add(expense(id, accountId).append("timestamp", Date.from(timestamp.toInstant())).append("timestampZone", RECORD_ZONE.getId()));
+            if (stringBatch.size() == INSERT_BATCH_SIZE || i == settings.records() - 1) {
+                strings.insertMany(stringBatch, new InsertManyOptions().ordered(false));
+                dates.insertMany(dateBatch, new InsertManyOptions().ordered(false));
+                stringBatch.clear();
+                dateBatch.clear();
+            }
+        }
+        // Built once the records are in, which is faster than indexing every insert
+        for (MongoCollection<Document> collection : List.of(strings, dates)) {
+            collection.createIndex(Indexes.compoundIndex(Indexes.ascending("accountId"), Indexes.descending("timestamp"), Indexes.descending("_id")),
+                    new IndexOptions().name("account_timestamp_id"));
+            collection.createIndex(Indexes.compoundIndex(Indexes.ascending("userId"), Indexes.descending("timestamp")),
+                    new IndexOptions().name("user_timestamp"));
+        }
+    }
+
+    private static Document expense(ObjectId id, String accountId) {
+        return new Document("_id", id)
+                .append("version", 0)
+                .append("userId", LoadDriver.OWNER_ID)
+                .append("accountId", accountId)
+                .append("name", "Benchmark expense")
+                .append("category", "FOODS_AND_DRINKS")
+                .append("subCategory", "GROCERIES")
+                .append("amount", "1000")
+                .append("currency", LoadDriver.CURRENCY);
+    }
+
+    private static RangeQuery rangeQuery(String accountId, Duration window, Random random) {
+        ZonedDateTime from = FIRST_TIMESTAMP.plusSeconds(random.nextLong(TIMESTAMP_SPAN_SECONDS - window.toSeconds()));
+        return new RangeQuery(accountId, from, from.plus(window));
+    }
+
+    private static int readStrings(MongoCollection<Document> strings, RangeQuery query) {
+        int matches = 0;
+        for (Document record : strings.find(query.stringFilter()).sort(NEWEST_FIRST)) {
+            ZonedDateTime.parse(record.getString("timestamp"), DateTimeFormatter.ISO_ZONED_DATE_TIME);
+            matches++;
+        }
+        return matches;
+    }
+
+    private static int readDates(MongoCollection<Document> dates, RangeQuery query) {
+        int matches = 0;
+        for (Document record : dates.find(query.dateFilter()).sort(NEWEST_FIRST)) {
+            record.getDate("timestamp").toInstant().atZone(ZoneId.of(record.getString("timestampZone")));
+            matches++;
+        }
+        return matches;
+    }
+
+    private static String measure(String storage, List<RangeQuery> queries, ToIntFunction<RangeQuery> read) {
+        LatencyRecorder recorder = new LatencyRecorder(storage);
+        long started = System.nanoTime();
+        for (RangeQuery query : queries) {
+            long start = System.nanoTime();
+            boolean succeeded;
+            try {
+                read.applyAsInt(query);
+                succeeded = true;
+            } catch (MongoException e) {
+                succeeded = false;
+            }
+            recorder.record(System.nanoTime() - start, succeeded);
+        }
+        return recorder.summary(Duration.ofNanos(System.nanoTime() - started));
+    }
+}
@@ -54,9 +54,8 @@ public class ExpenseGatewayImpl implements ExpenseGateway {
     @Override
     public Flux<ExpenseRecord> getExpenses(String accountId) {
         URI url = UriComponentsBuilder
-                .fromUriString(EXPENSE_SERVICE_URL + "/api/expenses")
-                .queryParam("accountId", accountId)
-                .build().toUri();
+                .fromUriString(EXPENSE_SERVICE_URL + "/api/expenses/{accountId}")
+                .build(accountId);
         return getForManyReactive(url, ExpenseRecord.class);
     }
 
@@ -66,9 +65,8 @@ public class ExpenseGatewayImpl implements ExpenseGateway {
     @Override
     public Flux<ExpenseRecord> getExpensesWithFallback(String accountId) {
         URI url = UriComponentsBuilder
-                .fromUriString(EXPENSE_SERVICE_URL + "/api/expenses")
-                .queryParam("accountId", accountId)
-                .build().toUri();
+                .fromUriString(EXPENSE_SERVICE_URL + "/api/expenses/{accountId}")
+                .build(accountId);
         return getForManyReactive(url, ExpenseRecord.class);
     }
 
@@ -8,6 +8,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -47,7 +48,9 @@ public class WebClientRequests {
     }
 
     public static <T> Flux<T> getForManyReactive(URI url, Class<T> clazz) {
+        // NDJSON is decoded line by line as it arrives, JSON is still accepted from services without the streaming variant
         return webClient.get().uri(url)
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
                 .retrieve().bodyToFlux(clazz)
                 .log(LOG.getName(), FINE)
                 .onErrorMap(Throwable.class, ex -> handleWebClientException(ex));
@@ -1,16 +1,25 @@
 package hu.therealuhlarzoltan.expensables.microservices.accountclient.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.therealuhlarzoltan.expensables.util.JsonLinesSpanExporter;
+import hu.therealuhlarzoltan.expensables.util.SmileMessageConverter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 @Configuration
 public class ApplicationConfig {
     private static final Logger LOG = LoggerFactory.getLogger(ApplicationConfig.class);
@@ -40,4 +49,17 @@ public class ApplicationConfig {
     public WebClient webClient(WebClient.Builder builder) {
         return builder.filter(lbFunction).build();
     }
+
+    @Bean
+    public MessageConverter smileMessageConverter(ObjectMapper mapper) {
+        // Picked up by the stream binder next to the JSON converter, see the smile profile
+        return new SmileMessageConverter(mapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing-file")
+    public SpanExporter jsonLinesSpanExporter(@Value("${app.tracing-file}") String tracingFile, ObjectMapper mapper) throws IOException {
+        LOG.info("Exports finished spans to {}", tracingFile);
+        return new JsonLinesSpanExporter(Path.of(tracingFile), mapper);
+    }
 }
@@ -152,8 +152,7 @@ public class AccountIntegrationImpl implements AccountIntegration {
         .flatMap(response -> {
             if (response.getEventType() == SUCCESS) {
                 LOG.info("Successfully created account with id: {}", account.getAccountId());
-                String jsonString = response.getData().getMessage();
-                Account createdAccount = deserializeObjectFromJson(jsonString, Account.class);
+                Account createdAccount = response.getData().getBody(Account.class);
                 return Mono.just(createdAccount);
             } else if (response.getEventType() == ERROR) {
                 LOG.error("Error while creating account with id: {}, message: {}",account.getAccountId(),  response.getData().getMessage());
@@ -178,8 +177,7 @@ public class AccountIntegrationImpl implements AccountIntegration {
         .flatMap(response -> {
             if (response.getEventType() == SUCCESS) {
                 LOG.info("Successfully updated account with id: {}", account.getAccountId());
-                String jsonString = response.getData().getMessage();
-                Account createdAccount = deserializeObjectFromJson(jsonString, Account.class);
+                Account createdAccount = response.getData().getBody(Account.class);
                 return Mono.just(createdAccount);
             } else if (response.getEventType() == ERROR) {
                 LOG.error("Error while updating account with id: {}, message: {}",account.getAccountId(),  response.getData().getMessage());
@@ -207,6 +205,7 @@ public class AccountIntegrationImpl implements AccountIntegration {
         Message message = MessageBuilder.withPayload(event)
                 .setHeader("partitionKey", event.getKey())
                 .setHeader("correlationId", correlationId)
+                .setHeader("replyTo", responseListener.getReplyTo())
                 .build();
         streamBridge.send(bindingName, message);
     }
@@ -219,16 +218,6 @@ public class AccountIntegrationImpl implements AccountIntegration {
         streamBridge.send(bindingName, message);
     }
 
-    private <T> T deserializeObjectFromJson(String json, Class<T> clazz) {
-        T obj = null;
-        try {
-            obj = mapper.readValue(json, clazz);
-        } catch (IOException e) {
-            LOG.error("Couldn't deserialize object from json: {}", e.getMessage());
-        }
-        return obj;
-    }
-
     private Throwable createMessageResponseError(ResponsePayload data) {
         return new ServiceResponseException(data.getMessage(), data.getStatus());
     }
@@ -7,4 +7,5 @@ import java.time.Duration;
 
 public interface ResponseListenerService {
     Mono<HttpResponseEvent> waitForResponse(String correlationId, Duration timeout);
+    String getReplyTo();
 }
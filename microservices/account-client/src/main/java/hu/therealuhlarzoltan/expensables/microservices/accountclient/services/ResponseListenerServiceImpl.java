@@ -2,9 +2,10 @@ package hu.therealuhlarzoltan.expensables.microservices.accountclient.services;
 
 import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.ServiceResponseException;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.Message;
@@ -18,11 +19,15 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 @Service
-@RequiredArgsConstructor
-public class
-ResponseListenerServiceImpl implements ResponseListenerService {
+public class ResponseListenerServiceImpl implements ResponseListenerService {
     private static final Logger LOG = LoggerFactory.getLogger(ResponseListenerServiceImpl.class);
     private final Map<String, MonoSink<HttpResponseEvent>> responseSinks = new ConcurrentHashMap<>();
+    private final String replyTo;
+
+    @Autowired
+    public ResponseListenerServiceImpl(@Value("${app.reply-to}") String replyTo) {
+        this.replyTo = replyTo;
+    }
 
     @Bean
     public Consumer<Message<HttpResponseEvent>> httpResponseProcessor() {
@@ -46,4 +51,10 @@ ResponseListenerServiceImpl implements ResponseListenerService {
                 .timeout(timeout, Mono.error(new ServiceResponseException("Dependent service failed", HttpStatus.FAILED_DEPENDENCY)))
                 .doOnTerminate(() -> responseSinks.remove(correlationId));
     }
+
+    @Override
+    public String getReplyTo() {
+        // Routing key of this instance's own reply queue, the core services route their responses with it
+        return replyTo;
+    }
 }
@@ -8,6 +8,8 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.mapping.context.MappingContext;
@@ -17,6 +19,9 @@ import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexRes
 import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
 import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
 import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.bson.BsonType;
 
 
 @SpringBootApplication
@@ -51,4 +56,16 @@ public class AccountServiceApplication {
 		resolver.resolveIndexFor(AccountEntity.class).forEach(e -> indexOps.ensureIndex(e).block());
 	}
 
+	@EventListener(ContextRefreshedEvent.class)
+	public void migrateBalancesAfterStartup() {
+		// Balances used to be stored as strings, server side $inc only works on the decimal representation
+		Query legacyBalances = Query.query(Criteria.where("balance").type(BsonType.STRING.getValue()));
+		AggregationUpdate toDecimal = AggregationUpdate.update()
+				.set("balance").toValue(ConvertOperators.valueOf("balance").convertToDecimal());
+		var result = mongoTemplate.updateMulti(legacyBalances, toDecimal, AccountEntity.class).block();
+		if (result != null && result.getModifiedCount() > 0) {
+			LOG.info("Converted the balance of {} accounts to decimal", result.getModifiedCount());
+		}
+	}
+
 }
@@ -30,6 +30,7 @@ public interface AccountMapper {
             @Mapping(source = "bankName", target = "bank"),
             @Mapping(source = "balance", target = "balance"),
             @Mapping(source= "version", target = "version"),
+            @Mapping(target = "appliedEvents", ignore = true)
     })
     AccountEntity accountToAccountEntity(Account account);
 }
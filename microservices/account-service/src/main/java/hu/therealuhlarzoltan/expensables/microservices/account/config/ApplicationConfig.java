@@ -1,30 +1,42 @@
 package hu.therealuhlarzoltan.expensables.microservices.account.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.therealuhlarzoltan.expensables.util.JsonLinesSpanExporter;
+import hu.therealuhlarzoltan.expensables.util.SmileMessageConverter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 @Configuration
 public class ApplicationConfig {
     private static final Logger LOG = LoggerFactory.getLogger(ApplicationConfig.class);
 
     private final Integer threadPoolSize;
     private final Integer taskQueueSize;
+    private final Integer messageProcessorConcurrency;
 
     @Autowired
     public ApplicationConfig(
             @Value("${app.threadPoolSize:10}") Integer threadPoolSize,
-            @Value("${app.taskQueueSize:100}") Integer taskQueueSize
+            @Value("${app.taskQueueSize:100}") Integer taskQueueSize,
+            @Value("${app.messageProcessorConcurrency:8}") Integer messageProcessorConcurrency
     ) {
         this.threadPoolSize = threadPoolSize;
         this.taskQueueSize = taskQueueSize;
+        this.messageProcessorConcurrency = messageProcessorConcurrency;
     }
 
     @Bean
@@ -32,4 +44,23 @@ public class ApplicationConfig {
         LOG.info("Creates a messagingScheduler with connectionPoolSize = {}", threadPoolSize);
         return Schedulers.newBoundedElastic(threadPoolSize, taskQueueSize, "publish-pool");
     }
+
+    @Bean
+    public Scheduler messageProcessorScheduler() {
+        LOG.info("Creates a messageProcessorScheduler with parallelism = {}", messageProcessorConcurrency);
+        return Schedulers.newParallel("message-processor", messageProcessorConcurrency);
+    }
+
+    @Bean
+    public MessageConverter smileMessageConverter(ObjectMapper mapper) {
+        // Picked up by the stream binder next to the JSON converter, see the smile profile
+        return new SmileMessageConverter(mapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracingFile")
+    public SpanExporter jsonLinesSpanExporter(@Value("${app.tracingFile}") String tracingFile, ObjectMapper mapper) throws IOException {
+        LOG.info("Exports finished spans to {}", tracingFile);
+        return new JsonLinesSpanExporter(Path.of(tracingFile), mapper);
+    }
 }
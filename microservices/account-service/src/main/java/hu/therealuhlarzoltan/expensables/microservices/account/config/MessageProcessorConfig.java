@@ -7,27 +7,45 @@ import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.account.AccountController;
 import hu.therealuhlarzoltan.expensables.api.microservices.events.*;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.*;
+import hu.therealuhlarzoltan.expensables.microservices.account.services.AccountService;
+import hu.therealuhlarzoltan.expensables.microservices.account.services.IdempotencyService;
+import hu.therealuhlarzoltan.expensables.util.AcknowledgingProcessor;
+import hu.therealuhlarzoltan.expensables.util.KeyedExecutor;
+import hu.therealuhlarzoltan.expensables.util.MessageObservations;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.validation.ConstraintViolationException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.integration.amqp.inbound.AmqpInboundChannelAdapter;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
-import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 @Configuration
 public class MessageProcessorConfig {
@@ -35,191 +53,485 @@ public class MessageProcessorConfig {
 
     private final ObjectMapper objectMapper;
     private final AccountController accountController;
+    private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
     private final StreamBridge streamBridge;
+    private final Integer messageProcessorConcurrency;
+    private final KeyedExecutor<Message<Event<?, ?>>> keyedExecutor;
+    private final AcknowledgingProcessor acknowledgingProcessor;
+    private final ObservationRegistry observationRegistry;
+
+    private record BalanceChange(AccountEvent.Type type, BigDecimal amount, String correlationId, String replyTo) {
+        BigDecimal delta() {
+            return type == AccountEvent.Type.DEPOSIT ? amount : amount.negate();
+        }
+    }
+
+    // Either a run of netted balance changes or a single message
+    private record BatchStep(List<BalanceChange> balanceChanges, Message<Event<?, ?>> message) {
+    }
 
     @Autowired
-    public MessageProcessorConfig(StreamBridge streamBridge, ObjectMapper objectMapper, AccountController accountController, ObjectMapper mapper) {
+    public MessageProcessorConfig(
+            StreamBridge streamBridge,
+            ObjectMapper objectMapper,
+            AccountController accountController,
+            AccountService accountService,
+            IdempotencyService idempotencyService,
+            @Value("${app.messageProcessorConcurrency:8}") Integer messageProcessorConcurrency,
+            @Value("${app.messageProcessorMaxAttempts:8}") Integer messageProcessorMaxAttempts,
+            @Value("${app.messageProcessorBackOffInitialInterval:500ms}") Duration messageProcessorBackOffInitialInterval,
+            @Value("${app.messageProcessorBackOffMaxInterval:30s}") Duration messageProcessorBackOffMaxInterval,
+            @Value("${app.messageProcessorBackOffMultiplier:2.0}") Double messageProcessorBackOffMultiplier,
+            @Value("${app.idempotencyClaimTimeout:30s}") Duration idempotencyClaimTimeout,
+            @Qualifier("messageProcessorScheduler") Scheduler messageProcessorScheduler,
+            ObservationRegistry observationRegistry
+    ) {
         this.objectMapper = objectMapper;
         this.accountController = accountController;
+        this.accountService = accountService;
+        this.idempotencyService = idempotencyService;
         this.streamBridge = streamBridge;
+        this.observationRegistry = observationRegistry;
+        this.messageProcessorConcurrency = messageProcessorConcurrency;
+        this.keyedExecutor = new KeyedExecutor<>(
+                messageProcessorConcurrency,
+                message -> message.getHeaders().getOrDefault("partitionKey", message.getPayload().getKey()),
+                messageProcessorScheduler
+        );
+        this.acknowledgingProcessor = new AcknowledgingProcessor(
+                messageProcessorMaxAttempts,
+                messageProcessorBackOffInitialInterval,
+                messageProcessorBackOffMaxInterval,
+                messageProcessorBackOffMultiplier,
+                messageProcessorScheduler
+        );
+        // A redelivery finding the claim of a crashed delivery fails until the claim can be taken over, giving up earlier dead letters it unanswered
+        if (acknowledgingProcessor.retryWindow().compareTo(idempotencyClaimTimeout) <= 0) {
+            throw new IllegalStateException("The retry window of the message processor (" + acknowledgingProcessor.retryWindow()
+                    + ") must be longer than the idempotency claim timeout (" + idempotencyClaimTimeout + ")");
+        }
     }
 
     @Bean
-    public Consumer<Message<Event<?, ?>>> messageProcessor() {
-        return message -> {
-            Event<?, ?> event = message.getPayload();
-            String correlationId = (String) message.getHeaders().get("correlationId");
-            LOG.info("Processing message created at {}...", event.getEventCreatedAt());
-            if (event instanceof CrudEvent<?, ?>) {
-                LOG.info("CRUD event detected...");
-                if (!(event.getKey() instanceof String)) {
-                    String errorMessage = "Incorrect CRUD event parameters, expected <String, Account>";
-                    LOG.warn(errorMessage);
-                    ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
-                    HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                    sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                    return;
-                }
-                Account crudEventData;
-                try {
-                    crudEventData = objectMapper.convertValue(event.getData(), Account.class);
-                } catch (IllegalArgumentException e) {
-                    String errorMessage = "Incorrect CRUD event parameters, expected <String, Account>";
+    public Function<Flux<Message<Event<?, ?>>>, Mono<Void>> messageProcessor() {
+        // Messages with the same partition key are processed in order, different keys are processed in parallel
+        // A message is only acknowledged once it was processed, failing ones are retried and then dead lettered
+        return messages -> keyedExecutor.execute(messages, message -> acknowledgingProcessor.process(message, () -> processObserved(message)));
+    }
+
+    private Mono<Void> processObserved(Message<Event<?, ?>> message) {
+        return MessageObservations.observeProcessing("messageProcessor-in-0", message, observationRegistry, () -> processMessage(message));
+    }
+
+    private Mono<Void> processMessage(Message<Event<?, ?>> message) {
+        Event<?, ?> event = message.getPayload();
+        String correlationId = (String) message.getHeaders().get("correlationId");
+        String replyTo = (String) message.getHeaders().get("replyTo");
+        LOG.info("Processing message created at {}...", event.getEventCreatedAt());
+        if (event instanceof CrudEvent<?, ?>) {
+            LOG.info("CRUD event detected...");
+            if (!(event.getKey() instanceof String)) {
+                String errorMessage = "Incorrect CRUD event parameters, expected <String, Account>";
+                LOG.warn(errorMessage);
+                ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
+                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
+                sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                return Mono.empty();
+            }
+            Account crudEventData;
+            try {
+                crudEventData = objectMapper.convertValue(event.getData(), Account.class);
+            } catch (IllegalArgumentException e) {
+                String errorMessage = "Incorrect CRUD event parameters, expected <String, Account>";
+                LOG.warn(errorMessage);
+                ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
+                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
+                sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                return Mono.empty();
+            }
+            @SuppressWarnings(value = "unchecked") // We know that the Event is a CrudEvent and the key is a String
+            CrudEvent<String, ?> eventWithKey = (CrudEvent<String, ?>) event;
+            CrudEvent<String, Account> crudEvent = new CrudEvent<String, Account>(eventWithKey.getEventType(), eventWithKey.getKey(), crudEventData);
+            switch (crudEvent.getEventType()) {
+                case CREATE:
+                    Account account = crudEvent.getData();
+                    // Design flaw - Some exception inside the controller are being thrown directly, deferring turns them into Mono.error
+                    return Mono.defer(() -> accountController.createAccount(account))
+                            .doOnSuccess(createdAccount -> {
+                                ResponsePayload httpInfo = new ResponsePayload(HttpStatus.CREATED, createdAccount);
+                                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
+                                sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                            })
+                            .onErrorResume(throwable -> {
+                                LOG.error("Failed to create account, exception message: {}", throwable.getMessage());
+                                ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
+                                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
+                                sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                                return Mono.empty();
+                            })
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                case UPDATE:
+                    Account accountToUpdate = crudEvent.getData();
+                    return Mono.defer(() -> accountController.updateAccount(accountToUpdate))
+                            .doOnSuccess(updatedAccount -> {
+                                ResponsePayload httpInfo = new ResponsePayload(HttpStatus.ACCEPTED, updatedAccount);
+                                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
+                                sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                            })
+                            .onErrorResume((throwable) -> {
+                                LOG.error("Failed to update account, exception message: {}", throwable.getMessage());
+                                ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
+                                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
+                                sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                                return Mono.empty();
+                            })
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                case DELETE:
+                    String accountId = crudEvent.getKey();
+                    return Mono.defer(() -> accountController.deleteAccount(UUID.fromString(accountId)))
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                default:
+                    String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE, UPDATE or DELETE event";
                     LOG.warn(errorMessage);
                     ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
                     HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                    sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                    return;
-                }
-                @SuppressWarnings(value = "unchecked") // We know that the Event is a CrudEvent and the key is a String
-                CrudEvent<String, ?> eventWithKey = (CrudEvent<String, ?>) event;
-                CrudEvent<String, Account> crudEvent = new CrudEvent<String, Account>(eventWithKey.getEventType(), eventWithKey.getKey(), crudEventData);
-                switch (crudEvent.getEventType()) {
-                    case CREATE:
-                        Account account = crudEvent.getData();
-                        // Design flaw - Some exception inside the controller are being thrown directly instead of wrapping them in a Mono.error or Flux.error
-                        try {
-                            accountController.createAccount(account)
-                                    .doOnSuccess(createdAccount -> {
-                                        String jsonString = serializeObjectToJson(createdAccount);
-                                        ResponsePayload httpInfo = new ResponsePayload(jsonString, HttpStatus.CREATED);
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
-                                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                                    })
-                                    .onErrorResume(throwable -> {
-                                        LOG.error("Failed to create account, exception message: {}", throwable.getMessage());
-                                        ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                                        return Mono.empty();
-                                    })
-                                    .subscribe();
-                        } catch (Exception ex) {
-                            LOG.error("Failed to create account, exception message: {}", ex.getMessage());
-                            ResponsePayload httpInfo = new ResponsePayload(ex.getMessage(), resolveHttpStatus(ex));
-                            HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                            sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                        }
-                        break;
-                    case UPDATE:
-                        Account accountToUpdate = crudEvent.getData();
-                        try {
-                            accountController.updateAccount(accountToUpdate)
-                                    .doOnSuccess(updatedAccount -> {
-                                        String jsonString = serializeObjectToJson(updatedAccount);
-                                        ResponsePayload httpInfo = new ResponsePayload(jsonString, HttpStatus.ACCEPTED);
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
-                                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                                    })
-                                    .onErrorResume((throwable) -> {
-                                        LOG.error("Failed to update account, exception message: {}", throwable.getMessage());
-                                        ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                                        return Mono.empty();
-                                    })
-                                    .subscribe();
-                        } catch (Exception ex) {
-                            LOG.error("Failed to update account, exception message: {}", ex.getMessage());
-                            ResponsePayload httpInfo = new ResponsePayload(ex.getMessage(), resolveHttpStatus(ex));
-                            HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                            sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                        }
-                        break;
-                    case DELETE:
-                        String accountId = crudEvent.getKey();
-                        accountController.deleteAccount(UUID.fromString(accountId)).block();
-                        break;
-                    default:
-                        String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE, UPDATE or DELETE event";
-                        LOG.warn(errorMessage);
-                        ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
-                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                        return;
-                }
-            } else if (event instanceof AccountEvent<?, ?>) {
-                LOG.info("Account event detected...");
-                if (!(event.getKey() instanceof String) || (!(event.getData() instanceof BigDecimal) && !(event.getData() instanceof Double) && !(event.getData() instanceof Integer))) {
-                    String errorMessage = "Incorrect Account event parameters, expected <String, BigDecimal/Double>/Integer";
+                    sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                    return Mono.empty();
+            }
+        } else if (event instanceof AccountEvent<?, ?>) {
+            LOG.info("Account event detected...");
+            if (!(event.getKey() instanceof String) || (!(event.getData() instanceof BigDecimal) && !(event.getData() instanceof Double) && !(event.getData() instanceof Integer))) {
+                String errorMessage = "Incorrect Account event parameters, expected <String, BigDecimal/Double>/Integer";
+                LOG.warn(errorMessage);
+                ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
+                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
+                sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                return Mono.empty();
+            }
+            AccountEvent<String, BigDecimal> accountEvent =  new AccountEvent<String, BigDecimal>((AccountEvent.Type) event.getEventType(), (String) event.getKey(), convertToBigdecimal(event.getData()));
+            String compensatedId = (String) message.getHeaders().get("compensates");
+            if (compensatedId != null && accountEvent.getEventType() != null) {
+                return processCompensation(compensatedId, correlationId, accountEvent)
+                        .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+            }
+            switch (accountEvent.getEventType()) {
+                case DEPOSIT:
+                    BigDecimal depositAmount = accountEvent.getData();
+                    Mono<HttpResponseEvent> depositResponse = Mono.defer(() -> accountService.deposit(UUID.fromString(accountEvent.getKey()), depositAmount, correlationId))
+                            .map(updatedAccount -> {
+                                ResponsePayload httpInfo = new ResponsePayload(HttpStatus.OK, updatedAccount);
+                                return new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
+                            })
+                            .onErrorResume((throwable) -> {
+                                LOG.error("Failed to deposit to account, exception message: {}", throwable.getMessage());
+                                ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
+                                return Mono.just(new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo));
+                            });
+                    return processOnce(correlationId, replyTo, depositResponse)
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                case WITHDRAW:
+                    BigDecimal withdrawAmount = accountEvent.getData();
+                    Mono<HttpResponseEvent> withdrawResponse = Mono.defer(() -> accountService.withdraw(UUID.fromString(accountEvent.getKey()), withdrawAmount, correlationId))
+                            .map(updatedAccount -> {
+                                ResponsePayload httpInfo = new ResponsePayload(HttpStatus.OK, updatedAccount);
+                                return new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
+                            })
+                            .onErrorResume((throwable) -> {
+                                LOG.error("Failed to withdraw from account, exception message: {}", throwable.getMessage());
+                                ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
+                                return Mono.just(new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo));
+                            });
+                    return processOnce(correlationId, replyTo, withdrawResponse)
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                default:
+                    String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a DEPOSIT or WITHDRAW event";
                     LOG.warn(errorMessage);
                     ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
                     HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                    sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                    return;
+                    sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+                    return Mono.empty();
+            }
+        } else {
+            String errorMessage = "Incorrect event type: " + event.getClass().getSimpleName() + ", expected a CrudEvent or AccountEvent";
+            LOG.warn(errorMessage);
+            ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
+            HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
+            sendResponseMessage("accountResponses-out-0", correlationId, replyTo, responseEvent);
+            return Mono.empty();
+        }
+    }
+
+    // A compensation only reverts a change that was applied, anything else would create or destroy money
+    private Mono<Void> processCompensation(String compensatedId, String correlationId, AccountEvent<String, BigDecimal> compensation) {
+        return idempotencyService.findResponse(compensatedId)
+                .map(response -> response.getEventType() == HttpResponseEvent.Type.SUCCESS)
+                .switchIfEmpty(Mono.defer(() -> fenceOff(compensatedId, UUID.fromString(compensation.getKey()))))
+                .flatMap(applied -> {
+                    if (!applied) {
+                        LOG.info("Event with correlationId {} wasn't applied, skipping its compensation", compensatedId);
+                        return Mono.empty();
+                    }
+                    return applyCompensation(correlationId, compensation);
+                });
+    }
+
+    private Mono<Boolean> fenceOff(String compensatedId, UUID accountId) {
+        // The step is answered with a failure in advance, so it can't be applied after its compensation was skipped
+        return idempotencyService.claim(compensatedId)
+                .flatMap(claimed -> {
+                    if (!claimed) {
+                        return Mono.error(new EventProcessingException("Event with correlationId " + compensatedId + " is still being processed, can't compensate it yet"));
+                    }
+                    // A taken over claim may belong to a delivery that applied the step and died before recording it
+                    return accountService.isApplied(accountId, compensatedId);
+                })
+                .flatMap(applied -> {
+                    if (applied) {
+                        return accountService.getAccountById(accountId)
+                                .map(account -> new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, compensatedId, new ResponsePayload(HttpStatus.OK, account)))
+                                .flatMap(responseEvent -> idempotencyService.complete(compensatedId, responseEvent))
+                                .thenReturn(true);
+                    }
+                    ResponsePayload httpInfo = new ResponsePayload("Compensated before it was applied", HttpStatus.CONFLICT);
+                    HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, compensatedId, httpInfo);
+                    return idempotencyService.complete(compensatedId, responseEvent).thenReturn(false);
+                });
+    }
+
+    private Mono<Void> applyCompensation(String correlationId, AccountEvent<String, BigDecimal> compensation) {
+        UUID accountId = UUID.fromString(compensation.getKey());
+        // Compensations go unanswered, a repeated one that was already applied is skipped
+        // One still being processed fails, so it is retried until it is applied or its claim can be taken over
+        return idempotencyService.claim(correlationId)
+                .flatMap(claimed -> {
+                    if (!claimed) {
+                        return idempotencyService.findResponse(correlationId)
+                                .switchIfEmpty(Mono.error(() -> new EventProcessingException("The compensation with correlationId " + correlationId + " is already being processed")))
+                                .doOnNext(response -> LOG.info("Compensation with correlationId {} was already applied, skipping it", correlationId))
+                                .then();
+                    }
+                    // A failed compensation isn't recorded, it is retried and then dead lettered, so money is never silently created or destroyed
+                    return Mono.defer(() -> compensation.getEventType() == AccountEvent.Type.DEPOSIT
+                                    ? accountService.deposit(accountId, compensation.getData(), correlationId)
+                                    : accountService.withdraw(accountId, compensation.getData(), correlationId))
+                            .onErrorResume(throwable -> {
+                                LOG.error("Failed to apply compensating {} to account, exception message: {}", compensation.getEventType(), throwable.getMessage());
+                                return release(correlationId).then(Mono.error(throwable));
+                            })
+                            .map(updatedAccount -> new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, new ResponsePayload(HttpStatus.OK, updatedAccount)))
+                            .flatMap(response -> idempotencyService.complete(correlationId, response))
+                            .then();
+                });
+    }
+
+    @Bean
+    public Function<Flux<Message<List<Event<?, ?>>>>, Mono<Void>> batchMessageProcessor() {
+        // Batches are processed one after the other, so the balance changes of consecutive batches stay in order
+        // A failing batch is retried as a whole, the balance changes already applied by an earlier attempt are only answered again
+        return batches -> batches
+                .concatMap(batch -> acknowledgingProcessor.process(batch, () -> processBatch(batch)))
+                .then();
+    }
+
+    private Mono<Void> processBatch(Message<List<Event<?, ?>>> batch) {
+        List<Event<?, ?>> events = batch.getPayload();
+        @SuppressWarnings(value = "unchecked") // The Rabbit binder consolidates the headers of a batch into a list of maps
+        List<Map<String, Object>> batchedHeaders = (List<Map<String, Object>>) batch.getHeaders().get(AmqpInboundChannelAdapter.CONSOLIDATED_HEADERS);
+        LOG.info("Processing a batch of {} messages...", events.size());
+        // The steps of a key keep the order of the batch, only consecutive balance changes of an account are netted into one step
+        Map<String, List<BatchStep>> stepsByKey = new LinkedHashMap<>();
+        Map<String, List<BalanceChange>> openRuns = new HashMap<>();
+        Set<String> correlationIds = new HashSet<>();
+        for (int i = 0; i < events.size(); i++) {
+            Event<?, ?> event = events.get(i);
+            Map<String, Object> headers = batchedHeaders != null && i < batchedHeaders.size() ? batchedHeaders.get(i) : Map.of();
+            String correlationId = (String) headers.get("correlationId");
+            BigDecimal amount = convertToBigdecimal(event.getData());
+            if (event instanceof AccountEvent<?, ?> && event.getEventType() != null && event.getKey() instanceof String accountId && isUuid(accountId) && amount != null
+                    && !headers.containsKey("compensates")) {
+                if (correlationId != null && !correlationIds.add(correlationId)) {
+                    // Redelivered within the same batch, the first copy gets the only response
+                    LOG.info("Balance change with correlationId {} occurs twice in the batch, dropping the copy", correlationId);
+                    continue;
                 }
-                AccountEvent<String, BigDecimal> accountEvent =  new AccountEvent<String, BigDecimal>((AccountEvent.Type) event.getEventType(), (String) event.getKey(), convertToBigdecimal(event.getData()));
-                switch (accountEvent.getEventType()) {
-                    case DEPOSIT:
-                        UUID depositAccountId = UUID.fromString(accountEvent.getKey());
-                        BigDecimal depositAmount = accountEvent.getData();
-                        try {
-                            accountController.deposit(depositAccountId, depositAmount)
-                                    .doOnSuccess(updatedAccount -> {
-                                        String jsonString = serializeObjectToJson(updatedAccount);
-                                        ResponsePayload httpInfo = new ResponsePayload(jsonString, HttpStatus.OK);
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
-                                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                                    })
-                                    .onErrorResume((throwable) -> {
-                                        LOG.error("Failed to deposit to account, exception message: {}", throwable.getMessage());
-                                        ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                                        return Mono.empty();
-                                    })
-                                    .subscribe();
-                        } catch (Exception ex) {
-                            LOG.error("Failed to deposit account, exception message: {}", ex.getMessage());
-                            ResponsePayload httpInfo = new ResponsePayload(ex.getMessage(), resolveHttpStatus(ex));
-                            HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                            sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                        }
-                        break;
-                    case WITHDRAW:
-                        UUID withdrawAccountId = UUID.fromString(accountEvent.getKey());
-                        BigDecimal withdrawAmount = accountEvent.getData();
-                        try {
-                            accountController.withdraw(withdrawAccountId, withdrawAmount)
-                                    .doOnSuccess(updatedAccount -> {
-                                        String jsonString = serializeObjectToJson(updatedAccount);
-                                        ResponsePayload httpInfo = new ResponsePayload(jsonString, HttpStatus.OK);
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
-                                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                                    })
-                                    .onErrorResume((throwable) -> {
-                                        LOG.error("Failed to withdraw from account, exception message: {}", throwable.getMessage());
-                                        ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                                        return Mono.empty();
-                                    })
-                                    .subscribe();
-                        } catch (Exception ex) {
-                            LOG.error("Failed to withdraw from account, exception message: {}", ex.getMessage());
-                            ResponsePayload httpInfo = new ResponsePayload(ex.getMessage(), resolveHttpStatus(ex));
-                            HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                            sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                        }
-                        break;
-                    default:
-                        String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a DEPOSIT or WITHDRAW event";
-                        LOG.warn(errorMessage);
-                        ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
-                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                        sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                        return;
+                String replyTo = (String) headers.get("replyTo");
+                List<BalanceChange> run = openRuns.get(accountId);
+                if (run == null) {
+                    run = new ArrayList<>();
+                    openRuns.put(accountId, run);
+                    stepsByKey.computeIfAbsent(accountId, key -> new ArrayList<>()).add(new BatchStep(run, null));
                 }
+                run.add(new BalanceChange((AccountEvent.Type) event.getEventType(), amount, correlationId, replyTo));
             } else {
-                String errorMessage = "Incorrect event type: " + event.getClass().getSimpleName() + ", expected a CrudEvent or AccountEvent";
-                LOG.warn(errorMessage);
-                ResponsePayload httpInfo = new ResponsePayload(errorMessage, HttpStatus.BAD_REQUEST);
-                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                sendResponseMessage("accountResponses-out-0", correlationId, responseEvent);
-                return;
+                // Anything that can't be netted, compensations included, goes through the regular one-by-one processing
+                // It ends the run of its account, so the balance changes before and after it stay on their side of it
+                String key = String.valueOf(headers.getOrDefault("partitionKey", event.getKey()));
+                openRuns.remove(key);
+                stepsByKey.computeIfAbsent(key, ignored -> new ArrayList<>())
+                        .add(new BatchStep(null, MessageBuilder.<Event<?, ?>>withPayload(event).copyHeaders(headers).build()));
             }
-            LOG.info("Message processing done!");
-        };
+        }
+        return Flux.fromIterable(stepsByKey.entrySet())
+                .flatMap(entry -> Flux.fromIterable(entry.getValue())
+                        .concatMap(step -> step.message() != null
+                                ? processObserved(step.message())
+                                : applyRun(entry.getKey(), step.balanceChanges())), messageProcessorConcurrency)
+                .then(Mono.fromRunnable(() -> LOG.info("Batch processing done!")));
+    }
+
+    private Mono<Void> applyRun(String accountId, List<BalanceChange> changes) {
+        // Claims still unanswered when the run fails or is cancelled are released, so the retry of the batch can claim them again
+        // Releasing the claim of a change that made it to the balance is safe, the guarded balance update won't apply it twice
+        Set<String> unanswered = ConcurrentHashMap.newKeySet();
+        return claimBalanceChanges(changes, unanswered)
+                .filter(claimedChanges -> !claimedChanges.isEmpty())
+                .flatMap(claimedChanges -> applyBalanceChanges(UUID.fromString(accountId), claimedChanges, unanswered))
+                .onErrorResume(throwable -> releaseAll(unanswered).then(Mono.error(throwable)))
+                .doOnCancel(() -> releaseAll(unanswered).subscribe());
+    }
+
+    private Mono<List<BalanceChange>> claimBalanceChanges(List<BalanceChange> changes, Set<String> unanswered) {
+        // Redelivered changes are answered right away and left out of the netting
+        return Flux.fromIterable(changes)
+                .concatMap(change -> claimOrReplay(change.correlationId(), change.replyTo())
+                        .filter(Boolean::booleanValue)
+                        .doOnNext(claimed -> {
+                            if (change.correlationId() != null) {
+                                unanswered.add(change.correlationId());
+                            }
+                        })
+                        .map(claimed -> change))
+                .collectList();
+    }
+
+    private Mono<Void> applyBalanceChanges(UUID accountId, List<BalanceChange> changes, Set<String> unanswered) {
+        // The net change is only applied if the balance never drops below the floor at any point in the sequence
+        BigDecimal net = BigDecimal.ZERO;
+        BigDecimal requiredBalance = BigDecimal.ZERO;
+        List<BigDecimal> runningTotals = new ArrayList<>(changes.size());
+        for (BalanceChange change : changes) {
+            net = net.add(change.delta());
+            requiredBalance = requiredBalance.max(net.negate());
+            runningTotals.add(net);
+        }
+        BigDecimal netChange = net;
+        List<String> correlationIds = changes.stream().map(BalanceChange::correlationId).filter(Objects::nonNull).toList();
+        LOG.info("Netted {} balance changes for account with id {} to {}", changes.size(), accountId, netChange);
+        return accountService.applyNetBalanceChange(accountId, netChange, requiredBalance, correlationIds)
+                .onErrorResume(throwable -> {
+                    // Each change gets its own outcome below, errors included
+                    LOG.error("Failed to apply the netted changes to account, exception message: {}", throwable.getMessage());
+                    return Mono.empty();
+                })
+                .flatMap(updatedAccount -> {
+                    BigDecimal startingBalance = updatedAccount.getBalance().subtract(netChange);
+                    List<Mono<Void>> responses = new ArrayList<>(changes.size());
+                    for (int i = 0; i < changes.size(); i++) {
+                        Account accountAfterChange = new Account(updatedAccount.getAccountId(), updatedAccount.getOwnerId(), updatedAccount.getAccountName(),
+                                updatedAccount.getAccountType(), updatedAccount.getAccountCategory(), updatedAccount.getCurrency(), updatedAccount.getBankName(),
+                                startingBalance.add(runningTotals.get(i)), updatedAccount.getVersion());
+                        ResponsePayload httpInfo = new ResponsePayload(HttpStatus.OK, accountAfterChange);
+                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, changes.get(i).correlationId(), httpInfo);
+                        responses.add(answer(changes.get(i), responseEvent, unanswered));
+                    }
+                    return Mono.when(responses).thenReturn(true);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    LOG.info("Couldn't apply the netted changes to account with id {}, applying them one by one", accountId);
+                    return Flux.fromIterable(changes)
+                            .concatMap(change -> applyBalanceChange(accountId, change, unanswered))
+                            .then(Mono.just(false));
+                }))
+                .then();
+    }
+
+    private Mono<Void> applyBalanceChange(UUID accountId, BalanceChange change, Set<String> unanswered) {
+        Mono<Account> result = Mono.defer(() -> change.type() == AccountEvent.Type.DEPOSIT
+                ? accountService.deposit(accountId, change.amount(), change.correlationId())
+                : accountService.withdraw(accountId, change.amount(), change.correlationId()));
+        return result
+                .map(updatedAccount -> {
+                    ResponsePayload httpInfo = new ResponsePayload(HttpStatus.OK, updatedAccount);
+                    return new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, change.correlationId(), httpInfo);
+                })
+                .onErrorResume(throwable -> {
+                    LOG.error("Failed to apply {} to account, exception message: {}", change.type(), throwable.getMessage());
+                    ResponsePayload httpInfo = new ResponsePayload(throwable.getMessage(), resolveHttpStatus(throwable));
+                    return Mono.just(new HttpResponseEvent(HttpResponseEvent.Type.ERROR, change.correlationId(), httpInfo));
+                })
+                .flatMap(responseEvent -> answer(change, responseEvent, unanswered));
+    }
+
+    private Mono<Void> answer(BalanceChange change, HttpResponseEvent responseEvent, Set<String> unanswered) {
+        return respond(change.correlationId(), change.replyTo(), responseEvent)
+                .doOnSuccess(ignored -> {
+                    if (change.correlationId() != null) {
+                        unanswered.remove(change.correlationId());
+                    }
+                });
+    }
+
+    private Mono<Void> releaseAll(Set<String> correlationIds) {
+        return Flux.fromIterable(List.copyOf(correlationIds))
+                .concatMap(correlationId -> release(correlationId)
+                        .onErrorResume(throwable -> {
+                            // The claim then times out and is taken over by a later delivery
+                            LOG.error("Failed to release the claim of the event with correlationId {}, exception message: {}", correlationId, throwable.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private Mono<Void> processOnce(String correlationId, String replyTo, Mono<HttpResponseEvent> processing) {
+        return claimOrReplay(correlationId, replyTo)
+                .filter(Boolean::booleanValue)
+                .flatMap(claimed -> processing
+                        .onErrorResume(throwable -> release(correlationId).then(Mono.error(throwable))))
+                .flatMap(response -> respond(correlationId, replyTo, response));
+    }
+
+    private Mono<Boolean> claimOrReplay(String correlationId, String replyTo) {
+        if (correlationId == null) {
+            return Mono.just(true);
+        }
+        return idempotencyService.claim(correlationId)
+                .flatMap(claimed -> claimed ? Mono.just(true) : replayResponse(correlationId, replyTo));
+    }
+
+    private Mono<Boolean> replayResponse(String correlationId, String replyTo) {
+        // A redelivered event gets the response of its first delivery instead of being applied again
+        // While the first delivery is still being processed the redelivery fails, so it is retried and answered once there is a response
+        // If the first delivery crashed, the retries outlast its claim, which is then taken over and the event processed again
+        return idempotencyService.findResponse(correlationId)
+                .doOnNext(response -> {
+                    LOG.info("Event with correlationId {} was already processed, resending its response", correlationId);
+                    sendResponseMessage("accountResponses-out-0", correlationId, replyTo, response);
+                })
+                .switchIfEmpty(Mono.error(() -> new EventProcessingException("The event with correlationId " + correlationId + " is already being processed")))
+                .thenReturn(false);
+    }
+
+    private Mono<Void> release(String correlationId) {
+        return correlationId == null ? Mono.empty() : idempotencyService.release(correlationId);
+    }
+
+    private Mono<Void> respond(String correlationId, String replyTo, HttpResponseEvent response) {
+        Mono<HttpResponseEvent> recordedResponse = correlationId == null
+                ? Mono.just(response)
+                : idempotencyService.complete(correlationId, response);
+        return recordedResponse
+                .doOnNext(recorded -> sendResponseMessage("accountResponses-out-0", correlationId, replyTo, recorded))
+                .then();
+    }
+
+    private boolean isUuid(String value) {
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 
     private BigDecimal convertToBigdecimal(Object data) {
@@ -231,30 +543,23 @@ public class MessageProcessorConfig {
         };
     }
 
-    private void sendResponseMessage(String bindingName, String correlationId, HttpResponseEvent event) {
+    private void sendResponseMessage(String bindingName, String correlationId, String replyTo, HttpResponseEvent event) {
         if (correlationId == null) {
             LOG.warn("No correlationId found in the message headers, will not send a response message");
             return;
         }
         LOG.info("Sending a response message to {} with correlationId {}", bindingName, correlationId);
-        Message<HttpResponseEvent> responseMessage = MessageBuilder.withPayload(event)
+        MessageBuilder<HttpResponseEvent> responseMessage = MessageBuilder.withPayload(event)
                 .setHeader("correlationId", correlationId)
-                .build();
-        boolean success = streamBridge.send(bindingName, responseMessage);
+                .setHeader("replyTo", replyTo);
+        // Sent within the processing observation, so the reply continues the trace of the request
+        boolean success = MessageObservations.sending(bindingName, responseMessage, observationRegistry)
+                .observe(() -> streamBridge.send(bindingName, responseMessage.build()));
         if (!success) {
             LOG.error("Failed to send the response message to {} with correlationId {}", bindingName, correlationId);
         }
     }
 
-    private String serializeObjectToJson(Object object) {
-        try {
-            return objectMapper.writeValueAsString(object);
-        } catch (IOException e) {
-            LOG.error("Failed to serialize object to JSON: {}", e.getMessage());
-            return null;
-        }
-    }
-
     private HttpStatus resolveHttpStatus(Throwable throwable) {
         return switch (throwable) {
             case NotFoundException notFoundException -> HttpStatus.NOT_FOUND;
@@ -3,10 +3,20 @@ package hu.therealuhlarzoltan.expensables.microservices.account.controllers;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.account.AccountController;
 
+import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.ResponsePayload;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.InsufficientFundsException;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.InvalidInputDataException;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundException;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.ServiceResponseException;
 import hu.therealuhlarzoltan.expensables.microservices.account.services.AccountService;
+import hu.therealuhlarzoltan.expensables.microservices.account.services.IdempotencyService;
+import jakarta.validation.ConstraintViolationException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
@@ -14,6 +24,7 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
@@ -22,6 +33,7 @@ public class AccountControllerImpl implements AccountController {
     private final static Logger LOG = LoggerFactory.getLogger(AccountControllerImpl.class);
 
     private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
 
     @Override
     public Flux<Account> getAccounts(@RequestParam(required = false) Long ownerId) {
@@ -59,14 +71,65 @@ public class AccountControllerImpl implements AccountController {
     }
 
     @Override
-    public Mono<Account> deposit(UUID accountId, BigDecimal amount) {
+    public Mono<Account> deposit(UUID accountId, BigDecimal amount, String correlationId) {
         LOG.info("Received a PUT request to deposit {} to account with id: {}", amount, accountId);
-        return accountService.deposit(accountId, amount);
+        return changeBalanceOnce(accountId, correlationId, () -> accountService.deposit(accountId, amount, correlationId));
     }
 
     @Override
-    public Mono<Account> withdraw(UUID accountId, BigDecimal amount) {
+    public Mono<Account> withdraw(UUID accountId, BigDecimal amount, String correlationId) {
         LOG.info("Received a PUT request to withdraw {} from account with id: {}", amount, accountId);
-        return accountService.withdraw(accountId, amount);
+        return changeBalanceOnce(accountId, correlationId, () -> accountService.withdraw(accountId, amount, correlationId));
+    }
+
+    // A saga step sent directly is recorded just like its message would be, so a compensation can tell whether it was applied
+    private Mono<Account> changeBalanceOnce(UUID accountId, String correlationId, Supplier<Mono<Account>> balanceChange) {
+        if (correlationId == null) {
+            return Mono.defer(balanceChange);
+        }
+        return idempotencyService.claim(correlationId)
+                .flatMap(claimed -> {
+                    if (!claimed) {
+                        return replayBalanceChange(accountId, correlationId);
+                    }
+                    return Mono.defer(balanceChange)
+                            .flatMap(account -> {
+                                HttpResponseEvent response = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, new ResponsePayload(HttpStatus.OK, account));
+                                return idempotencyService.complete(correlationId, response).thenReturn(account);
+                            })
+                            .onErrorResume(ex -> {
+                                // Recorded like a failed message, so a repeated request and a compensation see the same outcome
+                                HttpResponseEvent response = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, new ResponsePayload(ex.getMessage(), resolveHttpStatus(ex)));
+                                return idempotencyService.complete(correlationId, response).then(Mono.error(ex));
+                            });
+                });
+    }
+
+    private Mono<Account> replayBalanceChange(UUID accountId, String correlationId) {
+        LOG.info("Balance change with correlationId {} was already received, answering with its outcome", correlationId);
+        return idempotencyService.findResponse(correlationId)
+                .switchIfEmpty(Mono.error(new ServiceResponseException("The balance change is already being processed", HttpStatus.CONFLICT)))
+                .flatMap(response -> {
+                    if (response.getEventType() != HttpResponseEvent.Type.SUCCESS) {
+                        return Mono.error(new ServiceResponseException(response.getData().getMessage(), response.getData().getStatus()));
+                    }
+                    return Mono.justOrEmpty(response.getData().getBody(Account.class))
+                            .switchIfEmpty(Mono.defer(() -> accountService.getAccountById(accountId)));
+                });
+    }
+
+    private HttpStatus resolveHttpStatus(Throwable throwable) {
+        return switch (throwable) {
+            case ServiceResponseException serviceResponseException -> serviceResponseException.getResponseStatus();
+            case NotFoundException notFoundException -> HttpStatus.NOT_FOUND;
+            case InsufficientFundsException insufficientFundsException -> HttpStatus.PRECONDITION_FAILED;
+            case IllegalArgumentException illegalArgumentException -> HttpStatus.UNPROCESSABLE_ENTITY;
+            case IllegalStateException illegalStateException -> HttpStatus.UNPROCESSABLE_ENTITY;
+            case ConstraintViolationException constraintViolationException -> HttpStatus.UNPROCESSABLE_ENTITY;
+            case InvalidInputDataException invalidInputDataException -> HttpStatus.UNPROCESSABLE_ENTITY;
+            case OptimisticLockingFailureException optimisticLockingFailureException -> HttpStatus.CONFLICT;
+            // The outcome is unknown, the sagas treat this status as a step that might have been applied
+            case null, default -> HttpStatus.FAILED_DEPENDENCY;
+        };
     }
 }
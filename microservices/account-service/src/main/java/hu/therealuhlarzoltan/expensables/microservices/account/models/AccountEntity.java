@@ -15,9 +15,12 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Document(collection = "bank_accounts")
 @Data
@@ -49,6 +52,7 @@ public class AccountEntity {
     private String bank;
 
     @NotNull(message = "Balance is required")
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal balance;
 
     @NotNull(message = "Account type is required")
@@ -66,4 +70,7 @@ public class AccountEntity {
     @CurrencyExists
     private String currency;
 
+    // The correlationIds of the latest balance changes, recorded by the same update that applies them
+    private List<String> appliedEvents;
+
 }
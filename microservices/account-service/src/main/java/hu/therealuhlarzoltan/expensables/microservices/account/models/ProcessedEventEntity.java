@@ -0,0 +1,43 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.models;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+
+@Document(collection = "processed_events")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProcessedEventEntity {
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String correlationId;
+
+    // Not set while the event is still being processed
+    private HttpResponseEvent.Type responseType;
+
+    private String responseMessage;
+
+    private HttpStatus responseStatus;
+
+    private Object responseBody;
+
+    // Redeliveries happen within seconds, a week of history is plenty
+    @Indexed(expireAfter = "7d")
+    private Instant claimedAt;
+
+    public boolean isCompleted() {
+        return responseType != null;
+    }
+}
@@ -0,0 +1,13 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.repositories;
+
+import hu.therealuhlarzoltan.expensables.microservices.account.models.AccountEntity;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface AccountBalanceRepository {
+    Mono<AccountEntity> depositAtomically(String entityId, BigDecimal amount, String correlationId);
+    Mono<AccountEntity> withdrawAtomically(String entityId, BigDecimal amount, String correlationId);
+    Mono<AccountEntity> applyNetAtomically(String entityId, BigDecimal net, BigDecimal requiredBalance, List<String> correlationIds);
+}
@@ -0,0 +1,67 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.repositories;
+
+import hu.therealuhlarzoltan.expensables.microservices.account.models.AccountEntity;
+import hu.therealuhlarzoltan.expensables.microservices.account.models.AccountType;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
+    // Far more than the balance changes an account gets while a stale idempotency claim waits to be taken over
+    private static final int APPLIED_EVENTS_KEPT = 1000;
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    @Override
+    public Mono<AccountEntity> depositAtomically(String entityId, BigDecimal amount, String correlationId) {
+        List<String> correlationIds = correlationIdsOf(correlationId);
+        Query query = Query.query(notYetApplied(entityId, correlationIds));
+        return mongoOperations.findAndModify(query, balanceUpdate(amount, correlationIds), FindAndModifyOptions.options().returnNew(true), AccountEntity.class);
+    }
+
+    @Override
+    public Mono<AccountEntity> withdrawAtomically(String entityId, BigDecimal amount, String correlationId) {
+        return applyNetAtomically(entityId, amount.negate(), amount, correlationIdsOf(correlationId));
+    }
+
+    @Override
+    public Mono<AccountEntity> applyNetAtomically(String entityId, BigDecimal net, BigDecimal requiredBalance, List<String> correlationIds) {
+        // Same floor as PositiveIfNotCreditValidator: credit accounts may go negative, others must cover the deduction
+        Query query = Query.query(notYetApplied(entityId, correlationIds)
+                .orOperator(
+                        Criteria.where("type").is(AccountType.CREDIT.toString()),
+                        Criteria.where("balance").gte(new Decimal128(requiredBalance))
+                ));
+        return mongoOperations.findAndModify(query, balanceUpdate(net, correlationIds), FindAndModifyOptions.options().returnNew(true), AccountEntity.class);
+    }
+
+    private Criteria notYetApplied(String entityId, List<String> correlationIds) {
+        // Matches nothing once any of the changes was applied, so a redelivered change can't be applied a second time
+        Criteria criteria = Criteria.where("entityId").is(entityId);
+        return correlationIds.isEmpty() ? criteria : criteria.and("appliedEvents").nin(correlationIds);
+    }
+
+    private Update balanceUpdate(BigDecimal delta, List<String> correlationIds) {
+        // The version is bumped as well, so concurrent full-document saves still fail their optimistic lock check
+        Update update = new Update()
+                .inc("balance", new Decimal128(delta))
+                .inc("version", 1);
+        if (!correlationIds.isEmpty()) {
+            update.push("appliedEvents").slice(-APPLIED_EVENTS_KEPT).each(correlationIds.toArray());
+        }
+        return update;
+    }
+
+    private List<String> correlationIdsOf(String correlationId) {
+        return correlationId == null ? List.of() : List.of(correlationId);
+    }
+}
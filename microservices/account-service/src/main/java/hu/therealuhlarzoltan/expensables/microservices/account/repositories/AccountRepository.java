@@ -8,8 +8,9 @@ import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
-public interface AccountRepository extends ReactiveMongoRepository<AccountEntity, String> {
+public interface AccountRepository extends ReactiveMongoRepository<AccountEntity, String>, AccountBalanceRepository {
     Mono<AccountEntity> findByEntityId(String entityId);
     Flux<AccountEntity> findByOwnerId(Long ownerId);
     Mono<Void> deleteByEntityId(String entityId);
+    Mono<Boolean> existsByEntityIdAndAppliedEvents(String entityId, String correlationId);
 }
@@ -0,0 +1,19 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.repositories;
+
+import hu.therealuhlarzoltan.expensables.microservices.account.models.ProcessedEventEntity;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public interface ProcessedEventRepository extends ReactiveMongoRepository<ProcessedEventEntity, String> {
+    Mono<ProcessedEventEntity> findByCorrelationId(String correlationId);
+    Mono<Void> deleteByCorrelationId(String correlationId);
+
+    // Moves an unfinished claim made before claimedBefore to the caller, the filter makes sure only one caller gets it
+    @Query("{ 'correlationId': ?0, 'responseType': null, 'claimedAt': { '$lt': ?1 } }")
+    @Update("{ '$set': { 'claimedAt': ?2 } }")
+    Mono<Long> reclaimUnfinished(String correlationId, Instant claimedBefore, Instant claimedAt);
+}
@@ -6,6 +6,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 public interface AccountService {
@@ -16,6 +17,8 @@ public interface AccountService {
     Mono<Account> createAccount(Account account);
     Mono<Account> updateAccount(Account account);
     Mono<Void> deleteAccount(UUID accountId);
-    Mono<Account> deposit(UUID accountId, BigDecimal amount);
-    Mono<Account> withdraw(UUID accountId, BigDecimal amount);
+    Mono<Account> deposit(UUID accountId, BigDecimal amount, String correlationId);
+    Mono<Account> withdraw(UUID accountId, BigDecimal amount, String correlationId);
+    Mono<Account> applyNetBalanceChange(UUID accountId, BigDecimal net, BigDecimal requiredBalance, List<String> correlationIds);
+    Mono<Boolean> isApplied(UUID accountId, String correlationId);
 }
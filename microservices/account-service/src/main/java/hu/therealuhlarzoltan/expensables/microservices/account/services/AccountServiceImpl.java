@@ -8,6 +8,7 @@ import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundEx
 import hu.therealuhlarzoltan.expensables.microservices.account.components.mappers.AccountMapper;
 import hu.therealuhlarzoltan.expensables.microservices.account.components.validators.AccountStateValidator;
 import hu.therealuhlarzoltan.expensables.microservices.account.components.validators.PositiveIfNotCreditValidator;
+import hu.therealuhlarzoltan.expensables.microservices.account.models.AccountEntity;
 import hu.therealuhlarzoltan.expensables.microservices.account.repositories.AccountRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -22,6 +23,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -78,29 +80,71 @@ public class AccountServiceImpl implements  AccountService {
     }
 
     @Override
-    public Mono<Account> deposit(UUID accountId, BigDecimal amount) {
+    public Mono<Account> deposit(UUID accountId, BigDecimal amount, String correlationId) {
         LOG.info("Will deposit {} to account with id={}", amount, accountId);
-        return accountRepository.findByEntityId(accountId.toString())
-                .switchIfEmpty(Mono.error(new NotFoundException("No account found for accountId: " + accountId)))
-                .flatMap(entity -> {
-                    entity.setBalance(entity.getBalance().add(amount));
-                    return accountRepository.save(entity).map(accountMapper::accountEntityToAccount);
-                });
+        return internalDeposit(accountId, amount, correlationId)
+                .map(accountMapper::accountEntityToAccount);
     }
 
     @Override
-    public Mono<Account> withdraw(UUID accountId, BigDecimal amount) {
+    public Mono<Account> withdraw(UUID accountId, BigDecimal amount, String correlationId) {
         LOG.info("Will withdraw {} from account with id={}", amount, accountId);
-        return accountRepository.findByEntityId(accountId.toString())
-                .switchIfEmpty(Mono.error(new NotFoundException("No account found for accountId: " + accountId)))
-                .flatMap(entity -> {
-                    boolean isValid = positiveIfNotCreditValidator.isValid(amount, entity);
-                    if (!isValid) {
-                        return Mono.error(new InsufficientFundsException("Insufficient funds for account with name: " + entity.getName()));
-                    }
-                    entity.setBalance(entity.getBalance().subtract(amount));
-                    return accountRepository.save(entity).map(accountMapper::accountEntityToAccount);
-                });
+        return internalWithdraw(accountId, amount, correlationId)
+                .map(accountMapper::accountEntityToAccount);
+    }
+
+    @Override
+    public Mono<Account> applyNetBalanceChange(UUID accountId, BigDecimal net, BigDecimal requiredBalance, List<String> correlationIds) {
+        // Completes empty if the account doesn't exist, can't cover the required balance or already got any of the changes
+        LOG.info("Will apply a net balance change of {} to account with id={}", net, accountId);
+        return accountRepository.applyNetAtomically(accountId.toString(), net, requiredBalance, correlationIds)
+                .map(accountMapper::accountEntityToAccount);
+    }
+
+    @Override
+    public Mono<Boolean> isApplied(UUID accountId, String correlationId) {
+        return accountRepository.existsByEntityIdAndAppliedEvents(accountId.toString(), correlationId);
+    }
+
+    private Mono<AccountEntity> internalDeposit(UUID accountId, BigDecimal amount, String correlationId) {
+        return accountRepository.depositAtomically(accountId.toString(), amount, correlationId)
+                .switchIfEmpty(Mono.defer(() -> accountRepository.findByEntityId(accountId.toString())
+                        .switchIfEmpty(Mono.error(new NotFoundException("No account found for accountId: " + accountId)))
+                        .flatMap(entity -> {
+                            if (wasApplied(entity, correlationId)) {
+                                return alreadyApplied(entity, correlationId);
+                            }
+                            // The account was created between the guarded update and the lookup, trying again
+                            return internalDeposit(accountId, amount, correlationId);
+                        })));
+    }
+
+    private Mono<AccountEntity> internalWithdraw(UUID accountId, BigDecimal amount, String correlationId) {
+        return accountRepository.withdrawAtomically(accountId.toString(), amount, correlationId)
+                .switchIfEmpty(Mono.defer(() -> accountRepository.findByEntityId(accountId.toString())
+                        .switchIfEmpty(Mono.error(new NotFoundException("No account found for accountId: " + accountId)))
+                        .flatMap(entity -> {
+                            if (wasApplied(entity, correlationId)) {
+                                return alreadyApplied(entity, correlationId);
+                            }
+                            boolean isValid = positiveIfNotCreditValidator.isValid(amount, entity);
+                            if (!isValid) {
+                                return Mono.error(new InsufficientFundsException("Insufficient funds for account with name: " + entity.getName()));
+                            }
+                            // The balance was topped up between the guarded update and the lookup, trying again
+                            LOG.info("Retrying withdrawal of {} from account with id={}", amount, accountId);
+                            return internalWithdraw(accountId, amount, correlationId);
+                        })));
+    }
+
+    private boolean wasApplied(AccountEntity entity, String correlationId) {
+        return correlationId != null && entity.getAppliedEvents() != null && entity.getAppliedEvents().contains(correlationId);
+    }
+
+    private Mono<AccountEntity> alreadyApplied(AccountEntity entity, String correlationId) {
+        // An earlier delivery applied the change but didn't live to record its outcome, the balance already reflects it
+        LOG.warn("Balance change with correlationId {} was already applied to account with id={}", correlationId, entity.getEntityId());
+        return Mono.just(entity);
     }
 
     private Mono<Account> internalCreate(Account account) {
@@ -0,0 +1,11 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.services;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import reactor.core.publisher.Mono;
+
+public interface IdempotencyService {
+    Mono<HttpResponseEvent> findResponse(String correlationId);
+    Mono<Boolean> claim(String correlationId);
+    Mono<HttpResponseEvent> complete(String correlationId, HttpResponseEvent response);
+    Mono<Void> release(String correlationId);
+}
@@ -0,0 +1,103 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.services;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.ResponsePayload;
+import hu.therealuhlarzoltan.expensables.microservices.account.models.ProcessedEventEntity;
+import hu.therealuhlarzoltan.expensables.microservices.account.repositories.ProcessedEventRepository;
+import hu.therealuhlarzoltan.expensables.util.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+    private final ProcessedEventRepository processedEventRepository;
+    private final ExpiringCache<String, HttpResponseEvent> responseCache;
+    private final Duration claimTimeout;
+
+    @Autowired
+    public IdempotencyServiceImpl(
+            ProcessedEventRepository processedEventRepository,
+            @Value("${app.idempotencyCacheSize:10000}") Integer idempotencyCacheSize,
+            @Value("${app.idempotencyCacheTtl:10m}") Duration idempotencyCacheTtl,
+            @Value("${app.idempotencyClaimTimeout:30s}") Duration idempotencyClaimTimeout
+    ) {
+        this.processedEventRepository = processedEventRepository;
+        this.responseCache = new ExpiringCache<>(idempotencyCacheSize, idempotencyCacheTtl);
+        this.claimTimeout = idempotencyClaimTimeout;
+    }
+
+    @Override
+    public Mono<HttpResponseEvent> findResponse(String correlationId) {
+        return Mono.justOrEmpty(responseCache.get(correlationId))
+                .switchIfEmpty(Mono.defer(() -> processedEventRepository.findByCorrelationId(correlationId)
+                        .filter(ProcessedEventEntity::isCompleted)
+                        .map(this::toResponseEvent)
+                        .doOnNext(response -> responseCache.put(correlationId, response))));
+    }
+
+    @Override
+    public Mono<Boolean> claim(String correlationId) {
+        // Redeliveries usually arrive within seconds, so most duplicates never reach the database
+        if (responseCache.get(correlationId).isPresent()) {
+            return Mono.just(false);
+        }
+        // The unique index on the correlationId makes sure only one delivery of an event can claim it
+        ProcessedEventEntity claim = ProcessedEventEntity.builder()
+                .correlationId(correlationId)
+                .claimedAt(Instant.now())
+                .build();
+        return processedEventRepository.insert(claim)
+                .thenReturn(true)
+                .onErrorResume(DuplicateKeyException.class, e -> reclaimIfStale(correlationId, claim.getClaimedAt()));
+    }
+
+    // Errors are recorded as well, the sender already acted on them and a redelivery must get the same answer
+    // A failure to store the response is passed on, so the event is retried instead of being acknowledged with an unfinished claim
+    @Override
+    public Mono<HttpResponseEvent> complete(String correlationId, HttpResponseEvent response) {
+        return processedEventRepository.findByCorrelationId(correlationId)
+                .flatMap(processedEvent -> {
+                    processedEvent.setResponseType(response.getEventType());
+                    processedEvent.setResponseMessage(response.getData().getMessage());
+                    processedEvent.setResponseStatus(response.getData().getStatus());
+                    processedEvent.setResponseBody(response.getData().getBody());
+                    return processedEventRepository.save(processedEvent);
+                })
+                .doOnNext(saved -> responseCache.put(correlationId, response))
+                .thenReturn(response)
+                .doOnError(throwable -> LOG.error("Failed to store the response of the event with correlationId {}, exception message: {}", correlationId, throwable.getMessage()));
+    }
+
+    @Override
+    public Mono<Void> release(String correlationId) {
+        responseCache.remove(correlationId);
+        return processedEventRepository.deleteByCorrelationId(correlationId);
+    }
+
+    private Mono<Boolean> reclaimIfStale(String correlationId, Instant now) {
+        // A claim that was never completed belongs to a delivery that died, maybe after applying the event but before recording it
+        // Taking it over is still safe, the balance updates record the correlationId atomically and skip a change that was applied
+        return processedEventRepository.reclaimUnfinished(correlationId, now.minus(claimTimeout), now)
+                .map(reclaimed -> reclaimed > 0)
+                .doOnNext(reclaimed -> {
+                    if (reclaimed) {
+                        LOG.warn("Reclaimed the stale claim of the event with correlationId {}", correlationId);
+                    }
+                });
+    }
+
+    private HttpResponseEvent toResponseEvent(ProcessedEventEntity processedEvent) {
+        ResponsePayload payload = new ResponsePayload(processedEvent.getResponseMessage(), processedEvent.getResponseStatus(), processedEvent.getResponseBody());
+        return new HttpResponseEvent(processedEvent.getResponseType(), processedEvent.getCorrelationId(), payload);
+    }
+}
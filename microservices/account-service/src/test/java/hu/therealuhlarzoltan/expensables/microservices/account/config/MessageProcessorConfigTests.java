@@ -0,0 +1,260 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.AccountController;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.AccountEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.CrudEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.Event;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.ResponsePayload;
+import hu.therealuhlarzoltan.expensables.microservices.account.services.AccountService;
+import hu.therealuhlarzoltan.expensables.microservices.account.services.IdempotencyService;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.integration.amqp.inbound.AmqpInboundChannelAdapter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageProcessorConfigTests {
+    private static final UUID ACCOUNT_ID = UUID.fromString("8d1d4a4e-3f3a-4f7e-9a53-2b6f1c8e2a10");
+
+    private record BatchedEvent(Event<?, ?> event, Map<String, Object> headers) {
+    }
+
+    private StreamBridge streamBridge;
+    private AccountController accountController;
+    private AccountService accountService;
+    private IdempotencyService idempotencyService;
+    private MessageProcessorConfig messageProcessorConfig;
+
+    @BeforeEach
+    void setUp() {
+        streamBridge = mock(StreamBridge.class);
+        accountController = mock(AccountController.class);
+        accountService = mock(AccountService.class);
+        idempotencyService = mock(IdempotencyService.class);
+        messageProcessorConfig = new MessageProcessorConfig(streamBridge, new ObjectMapper(), accountController, accountService, idempotencyService,
+                4, 4, Duration.ofMillis(1), Duration.ofMillis(1), 2.0, Duration.ofMillis(1), Schedulers.parallel(), ObservationRegistry.NOOP);
+        when(streamBridge.send(anyString(), any())).thenReturn(true);
+        when(idempotencyService.claim(anyString())).thenReturn(Mono.just(true));
+        when(idempotencyService.complete(anyString(), any(HttpResponseEvent.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+        when(idempotencyService.release(anyString())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void consecutiveBalanceChangesOfAnAccountAreNetted() {
+        when(accountService.applyNetBalanceChange(eq(ACCOUNT_ID), any(BigDecimal.class), any(BigDecimal.class), anyList())).thenReturn(Mono.just(account("107")));
+
+        processBatch(
+                balanceChange(AccountEvent.Type.DEPOSIT, "10", "first"),
+                balanceChange(AccountEvent.Type.WITHDRAW, "3", "second")
+        );
+
+        verify(accountService).applyNetBalanceChange(ACCOUNT_ID, new BigDecimal("7"), BigDecimal.ZERO, List.of("first", "second"));
+        List<HttpResponseEvent> responses = sentResponses();
+        assertEquals(List.of("first", "second"), responses.stream().map(HttpResponseEvent::getKey).toList());
+        // Each change is answered with the balance right after it
+        assertEquals(new BigDecimal("110"), responses.get(0).getData().getBody(Account.class).getBalance());
+        assertEquals(new BigDecimal("107"), responses.get(1).getData().getBody(Account.class).getBalance());
+    }
+
+    @Test
+    void netChangesThatCantBeAppliedAreReplayedOneByOne() {
+        when(accountService.applyNetBalanceChange(eq(ACCOUNT_ID), any(BigDecimal.class), any(BigDecimal.class), anyList())).thenReturn(Mono.empty());
+        when(accountService.withdraw(ACCOUNT_ID, new BigDecimal("30"), "first")).thenReturn(Mono.just(account("70")));
+        when(accountService.deposit(ACCOUNT_ID, new BigDecimal("10"), "second")).thenReturn(Mono.just(account("80")));
+
+        processBatch(
+                balanceChange(AccountEvent.Type.WITHDRAW, "30", "first"),
+                balanceChange(AccountEvent.Type.DEPOSIT, "10", "second")
+        );
+
+        InOrder inOrder = inOrder(accountService);
+        inOrder.verify(accountService).applyNetBalanceChange(ACCOUNT_ID, new BigDecimal("-20"), new BigDecimal("30"), List.of("first", "second"));
+        inOrder.verify(accountService).withdraw(ACCOUNT_ID, new BigDecimal("30"), "first");
+        inOrder.verify(accountService).deposit(ACCOUNT_ID, new BigDecimal("10"), "second");
+        assertEquals(List.of("first", "second"), sentResponses().stream().map(HttpResponseEvent::getKey).toList());
+    }
+
+    @Test
+    void otherEventsOfTheAccountSplitTheNetting() {
+        when(accountService.applyNetBalanceChange(eq(ACCOUNT_ID), any(BigDecimal.class), any(BigDecimal.class), anyList())).thenReturn(Mono.just(account("100")));
+        when(accountController.updateAccount(any(Account.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        processBatch(
+                balanceChange(AccountEvent.Type.DEPOSIT, "10", "first"),
+                batched(new CrudEvent<>(CrudEvent.Type.UPDATE, ACCOUNT_ID.toString(), account("100")), "update"),
+                balanceChange(AccountEvent.Type.DEPOSIT, "20", "second")
+        );
+
+        InOrder inOrder = inOrder(accountService, accountController);
+        inOrder.verify(accountService).applyNetBalanceChange(ACCOUNT_ID, new BigDecimal("10"), BigDecimal.ZERO, List.of("first"));
+        inOrder.verify(accountController).updateAccount(any(Account.class));
+        inOrder.verify(accountService).applyNetBalanceChange(ACCOUNT_ID, new BigDecimal("20"), BigDecimal.ZERO, List.of("second"));
+        assertEquals(List.of("first", "update", "second"), sentResponses().stream().map(HttpResponseEvent::getKey).toList());
+    }
+
+    @Test
+    void aChangeDeliveredTwiceInABatchIsAnsweredOnce() {
+        when(accountService.applyNetBalanceChange(eq(ACCOUNT_ID), any(BigDecimal.class), any(BigDecimal.class), anyList())).thenReturn(Mono.just(account("110")));
+
+        processBatch(
+                balanceChange(AccountEvent.Type.DEPOSIT, "10", "first"),
+                balanceChange(AccountEvent.Type.DEPOSIT, "10", "first")
+        );
+
+        verify(idempotencyService, times(1)).claim("first");
+        verify(accountService).applyNetBalanceChange(ACCOUNT_ID, new BigDecimal("10"), BigDecimal.ZERO, List.of("first"));
+        assertEquals(List.of("first"), sentResponses().stream().map(HttpResponseEvent::getKey).toList());
+    }
+
+    @Test
+    void theClaimsOfARunAreReleasedWhenALaterClaimFails() {
+        when(idempotencyService.claim("second")).thenReturn(Mono.error(new DataAccessResourceFailureException("Mongo is down")));
+
+        processBatch(
+                balanceChange(AccountEvent.Type.DEPOSIT, "10", "first"),
+                balanceChange(AccountEvent.Type.DEPOSIT, "20", "second")
+        );
+
+        // Every attempt of the batch claims the first change again, which only works because the failed attempt released it
+        verify(idempotencyService, times(4)).claim("first");
+        verify(idempotencyService, times(4)).release("first");
+        verify(idempotencyService, never()).release("second");
+        verify(accountService, never()).applyNetBalanceChange(any(UUID.class), any(BigDecimal.class), any(BigDecimal.class), anyList());
+        verify(streamBridge, never()).send(anyString(), any());
+    }
+
+    @Test
+    void aCompensationRevertsAStepThatWasAppliedButNeverAnswered() {
+        // The delivery of the step died between the balance update and recording its response, its claim was taken over
+        when(idempotencyService.findResponse(anyString())).thenReturn(Mono.empty());
+        when(accountService.isApplied(ACCOUNT_ID, "step")).thenReturn(Mono.just(true));
+        when(accountService.getAccountById(ACCOUNT_ID)).thenReturn(Mono.just(account("110")));
+        when(accountService.withdraw(ACCOUNT_ID, new BigDecimal("10"), "compensation")).thenReturn(Mono.just(account("100")));
+
+        process(MessageBuilder.<Event<?, ?>>withPayload(new AccountEvent<>(AccountEvent.Type.WITHDRAW, ACCOUNT_ID.toString(), new BigDecimal("10")))
+                .setHeader("correlationId", "compensation")
+                .setHeader("compensates", "step")
+                .build());
+
+        ArgumentCaptor<HttpResponseEvent> stepResponse = ArgumentCaptor.forClass(HttpResponseEvent.class);
+        verify(idempotencyService).complete(eq("step"), stepResponse.capture());
+        assertEquals(HttpResponseEvent.Type.SUCCESS, stepResponse.getValue().getEventType());
+        verify(accountService).withdraw(ACCOUNT_ID, new BigDecimal("10"), "compensation");
+    }
+
+    @Test
+    void aCompensationHeldByAnotherDeliveryIsRetriedInsteadOfDropped() {
+        when(idempotencyService.findResponse("step")).thenReturn(Mono.just(new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, "step", new ResponsePayload(HttpStatus.OK, account("110")))));
+        // An earlier delivery of the compensation claimed it and died before changing the balance
+        when(idempotencyService.claim("compensation")).thenReturn(Mono.just(false), Mono.just(true));
+        when(idempotencyService.findResponse("compensation")).thenReturn(Mono.empty());
+        when(accountService.withdraw(ACCOUNT_ID, new BigDecimal("10"), "compensation")).thenReturn(Mono.just(account("100")));
+
+        process(MessageBuilder.<Event<?, ?>>withPayload(new AccountEvent<>(AccountEvent.Type.WITHDRAW, ACCOUNT_ID.toString(), new BigDecimal("10")))
+                .setHeader("correlationId", "compensation")
+                .setHeader("compensates", "step")
+                .build());
+
+        verify(idempotencyService, times(2)).claim("compensation");
+        verify(accountService, times(1)).withdraw(ACCOUNT_ID, new BigDecimal("10"), "compensation");
+        verify(idempotencyService).complete(eq("compensation"), any(HttpResponseEvent.class));
+    }
+
+    @Test
+    void aRedeliveryAfterACrashIsAnsweredOnceTheDeadClaimIsTakenOver() {
+        // The first delivery applied the deposit and died before recording its response, its claim is taken over once it timed out
+        when(idempotencyService.claim("deposit")).thenReturn(Mono.just(false), Mono.just(false), Mono.just(true));
+        when(idempotencyService.findResponse("deposit")).thenReturn(Mono.empty());
+        // The guarded update finds the correlationId on the account and answers with the balance as it is
+        when(accountService.deposit(ACCOUNT_ID, new BigDecimal("10"), "deposit")).thenReturn(Mono.just(account("110")));
+
+        process(MessageBuilder.<Event<?, ?>>withPayload(new AccountEvent<>(AccountEvent.Type.DEPOSIT, ACCOUNT_ID.toString(), new BigDecimal("10")))
+                .setHeader("correlationId", "deposit")
+                .setHeader("replyTo", "tests")
+                .build());
+
+        verify(idempotencyService, times(3)).claim("deposit");
+        verify(accountService, times(1)).deposit(ACCOUNT_ID, new BigDecimal("10"), "deposit");
+        verify(idempotencyService).complete(eq("deposit"), any(HttpResponseEvent.class));
+        List<HttpResponseEvent> responses = sentResponses();
+        assertEquals(List.of("deposit"), responses.stream().map(HttpResponseEvent::getKey).toList());
+        assertEquals(HttpResponseEvent.Type.SUCCESS, responses.getFirst().getEventType());
+    }
+
+    @Test
+    void theRetriesMustOutlastTheIdempotencyClaimTimeout() {
+        // 500 ms, 1 s, 1 s and 1 s of backoff would dead letter a redelivery long before a one minute claim can be taken over
+        assertThrows(IllegalStateException.class, () -> new MessageProcessorConfig(streamBridge, new ObjectMapper(), accountController, accountService, idempotencyService,
+                4, 5, Duration.ofMillis(500), Duration.ofSeconds(1), 2.0, Duration.ofMinutes(1), Schedulers.parallel(), ObservationRegistry.NOOP));
+    }
+
+    private void process(Message<Event<?, ?>> message) {
+        messageProcessorConfig.messageProcessor().apply(Flux.just(message)).block(Duration.ofSeconds(5));
+    }
+
+    private void processBatch(BatchedEvent... batchedEvents) {
+        List<Event<?, ?>> events = new ArrayList<>();
+        List<Map<String, Object>> headers = new ArrayList<>();
+        for (BatchedEvent batchedEvent : batchedEvents) {
+            events.add(batchedEvent.event());
+            headers.add(batchedEvent.headers());
+        }
+        Message<List<Event<?, ?>>> batch = MessageBuilder.withPayload(events)
+                .setHeader(AmqpInboundChannelAdapter.CONSOLIDATED_HEADERS, headers)
+                .build();
+        messageProcessorConfig.batchMessageProcessor().apply(Flux.just(batch)).block(Duration.ofSeconds(5));
+    }
+
+    private List<HttpResponseEvent> sentResponses() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(streamBridge, atLeastOnce()).send(eq("accountResponses-out-0"), captor.capture());
+        return captor.getAllValues().stream()
+                .map(message -> (HttpResponseEvent) ((Message<?>) message).getPayload())
+                .toList();
+    }
+
+    private static BatchedEvent balanceChange(AccountEvent.Type type, String amount, String correlationId) {
+        return batched(new AccountEvent<>(type, ACCOUNT_ID.toString(), new BigDecimal(amount)), correlationId);
+    }
+
+    private static BatchedEvent batched(Event<?, ?> event, String correlationId) {
+        return new BatchedEvent(event, Map.of("partitionKey", ACCOUNT_ID.toString(), "correlationId", correlationId, "replyTo", "tests"));
+    }
+
+    private static Account account(String balance) {
+        return new Account(ACCOUNT_ID.toString(), 1L, "Savings", "SAVINGS", "PERSONAL", "EUR", "Bank", new BigDecimal(balance), 1);
+    }
+}
@@ -0,0 +1,100 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.services;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.InsufficientFundsException;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundException;
+import hu.therealuhlarzoltan.expensables.microservices.account.components.mappers.AccountMapper;
+import hu.therealuhlarzoltan.expensables.microservices.account.components.validators.AccountStateValidator;
+import hu.therealuhlarzoltan.expensables.microservices.account.components.validators.PositiveIfNotCreditValidator;
+import hu.therealuhlarzoltan.expensables.microservices.account.models.AccountEntity;
+import hu.therealuhlarzoltan.expensables.microservices.account.repositories.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.Validator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountServiceImplTests {
+    private static final UUID ACCOUNT_ID = UUID.fromString("8d1d4a4e-3f3a-4f7e-9a53-2b6f1c8e2a10");
+
+    private AccountRepository accountRepository;
+    private PositiveIfNotCreditValidator positiveIfNotCreditValidator;
+    private AccountServiceImpl accountService;
+
+    @BeforeEach
+    void setUp() {
+        AccountMapper accountMapper = mock(AccountMapper.class);
+        accountRepository = mock(AccountRepository.class);
+        positiveIfNotCreditValidator = mock(PositiveIfNotCreditValidator.class);
+        accountService = new AccountServiceImpl(accountMapper, mock(Validator.class), positiveIfNotCreditValidator, mock(AccountStateValidator.class), accountRepository);
+        when(accountMapper.accountEntityToAccount(any(AccountEntity.class))).thenAnswer(invocation -> {
+            AccountEntity entity = invocation.getArgument(0);
+            return new Account(entity.getEntityId(), 1L, "Savings", "SAVINGS", "PERSONAL", "EUR", "Bank", entity.getBalance(), 1);
+        });
+    }
+
+    @Test
+    void aDepositAlreadyAppliedIsNotAppliedAgain() {
+        // The guarded update skips the account, since an earlier delivery recorded the correlationId with its change
+        when(accountRepository.depositAtomically(ACCOUNT_ID.toString(), new BigDecimal("10"), "deposit")).thenReturn(Mono.empty());
+        when(accountRepository.findByEntityId(ACCOUNT_ID.toString())).thenReturn(Mono.just(entity("110", "deposit")));
+
+        StepVerifier.create(accountService.deposit(ACCOUNT_ID, new BigDecimal("10"), "deposit"))
+                .expectNextMatches(account -> account.getBalance().equals(new BigDecimal("110")))
+                .verifyComplete();
+
+        verify(accountRepository, times(1)).depositAtomically(ACCOUNT_ID.toString(), new BigDecimal("10"), "deposit");
+    }
+
+    @Test
+    void aWithdrawalAlreadyAppliedIsNotAppliedAgain() {
+        when(accountRepository.withdrawAtomically(ACCOUNT_ID.toString(), new BigDecimal("30"), "withdrawal")).thenReturn(Mono.empty());
+        when(accountRepository.findByEntityId(ACCOUNT_ID.toString())).thenReturn(Mono.just(entity("0", "withdrawal")));
+
+        StepVerifier.create(accountService.withdraw(ACCOUNT_ID, new BigDecimal("30"), "withdrawal"))
+                .expectNextMatches(account -> account.getBalance().equals(new BigDecimal("0")))
+                .verifyComplete();
+
+        verify(accountRepository, times(1)).withdrawAtomically(ACCOUNT_ID.toString(), new BigDecimal("30"), "withdrawal");
+    }
+
+    @Test
+    void aWithdrawalNotAppliedYetStillChecksTheFunds() {
+        when(accountRepository.withdrawAtomically(ACCOUNT_ID.toString(), new BigDecimal("30"), "withdrawal")).thenReturn(Mono.empty());
+        when(accountRepository.findByEntityId(ACCOUNT_ID.toString())).thenReturn(Mono.just(entity("20", "other")));
+        when(positiveIfNotCreditValidator.isValid(any(BigDecimal.class), any(AccountEntity.class))).thenReturn(false);
+
+        StepVerifier.create(accountService.withdraw(ACCOUNT_ID, new BigDecimal("30"), "withdrawal"))
+                .verifyError(InsufficientFundsException.class);
+    }
+
+    @Test
+    void aMissingAccountIsReported() {
+        when(accountRepository.depositAtomically(ACCOUNT_ID.toString(), new BigDecimal("10"), "deposit")).thenReturn(Mono.empty());
+        when(accountRepository.findByEntityId(ACCOUNT_ID.toString())).thenReturn(Mono.empty());
+
+        StepVerifier.create(accountService.deposit(ACCOUNT_ID, new BigDecimal("10"), "deposit"))
+                .verifyError(NotFoundException.class);
+    }
+
+    private static AccountEntity entity(String balance, String... appliedEvents) {
+        return AccountEntity.builder()
+                .entityId(ACCOUNT_ID.toString())
+                .name("Savings")
+                .balance(new BigDecimal(balance))
+                .type("SAVINGS")
+                .appliedEvents(new ArrayList<>(List.of(appliedEvents)))
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package hu.therealuhlarzoltan.expensables.microservices.account.services;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.ResponsePayload;
+import hu.therealuhlarzoltan.expensables.microservices.account.models.ProcessedEventEntity;
+import hu.therealuhlarzoltan.expensables.microservices.account.repositories.ProcessedEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceImplTests {
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(1);
+
+    private ProcessedEventRepository processedEventRepository;
+    private IdempotencyServiceImpl idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        processedEventRepository = mock(ProcessedEventRepository.class);
+        idempotencyService = new IdempotencyServiceImpl(processedEventRepository, 100, Duration.ofMinutes(10), CLAIM_TIMEOUT);
+        when(processedEventRepository.insert(any(ProcessedEventEntity.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(processedEventRepository.save(any(ProcessedEventEntity.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(processedEventRepository.deleteByCorrelationId(anyString())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void theFirstDeliveryClaimsTheEvent() {
+        StepVerifier.create(idempotencyService.claim("correlation"))
+                .expectNext(true)
+                .verifyComplete();
+    }
+
+    @Test
+    void aFreshClaimIsNotTakenOver() {
+        when(processedEventRepository.insert(any(ProcessedEventEntity.class))).thenReturn(Mono.error(new DuplicateKeyException("Duplicate")));
+        when(processedEventRepository.reclaimUnfinished(eq("correlation"), any(Instant.class), any(Instant.class))).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(idempotencyService.claim("correlation"))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void aStaleClaimIsTakenOver() {
+        when(processedEventRepository.insert(any(ProcessedEventEntity.class))).thenReturn(Mono.error(new DuplicateKeyException("Duplicate")));
+        when(processedEventRepository.reclaimUnfinished(eq("correlation"), any(Instant.class), any(Instant.class))).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(idempotencyService.claim("correlation"))
+                .expectNext(true)
+                .verifyComplete();
+
+        ArgumentCaptor<Instant> claimedBefore = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> claimedAt = ArgumentCaptor.forClass(Instant.class);
+        verify(processedEventRepository).reclaimUnfinished(eq("correlation"), claimedBefore.capture(), claimedAt.capture());
+        assertEquals(CLAIM_TIMEOUT, Duration.between(claimedBefore.getValue(), claimedAt.getValue()));
+    }
+
+    @Test
+    void aCompletedEventIsNotClaimedAgain() {
+        when(processedEventRepository.findByCorrelationId("correlation")).thenReturn(Mono.just(claimed("correlation")));
+        HttpResponseEvent response = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, "correlation", new ResponsePayload(HttpStatus.OK, null));
+
+        StepVerifier.create(idempotencyService.complete("correlation", response).then(idempotencyService.claim("correlation")))
+                .expectNext(false)
+                .verifyComplete();
+
+        verify(processedEventRepository, never()).insert(any(ProcessedEventEntity.class));
+    }
+
+    @Test
+    void errorsAreRecordedAndReplayed() {
+        when(processedEventRepository.findByCorrelationId("correlation")).thenReturn(Mono.just(claimed("correlation")));
+        HttpResponseEvent response = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, "correlation", new ResponsePayload("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
+
+        StepVerifier.create(idempotencyService.complete("correlation", response))
+                .expectNext(response)
+                .verifyComplete();
+
+        ArgumentCaptor<ProcessedEventEntity> saved = ArgumentCaptor.forClass(ProcessedEventEntity.class);
+        verify(processedEventRepository).save(saved.capture());
+        assertEquals(HttpResponseEvent.Type.ERROR, saved.getValue().getResponseType());
+        assertEquals(HttpStatus.FAILED_DEPENDENCY, saved.getValue().getResponseStatus());
+        verify(processedEventRepository, never()).deleteByCorrelationId(anyString());
+        StepVerifier.create(idempotencyService.findResponse("correlation").map(replayed -> replayed.getData().getStatus()))
+                .expectNext(HttpStatus.FAILED_DEPENDENCY)
+                .verifyComplete();
+    }
+
+    @Test
+    void aResponseThatCouldntBeStoredFailsTheCompletion() {
+        when(processedEventRepository.findByCorrelationId("correlation")).thenReturn(Mono.just(claimed("correlation")));
+        when(processedEventRepository.save(any(ProcessedEventEntity.class))).thenReturn(Mono.error(new DataAccessResourceFailureException("Mongo is down")));
+        HttpResponseEvent response = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, "correlation", new ResponsePayload(HttpStatus.OK, null));
+
+        StepVerifier.create(idempotencyService.complete("correlation", response))
+                .verifyError(DataAccessResourceFailureException.class);
+
+        // Not cached either, the claim is still unfinished and must not look answered
+        StepVerifier.create(idempotencyService.findResponse("correlation"))
+                .verifyComplete();
+    }
+
+    @Test
+    void storedResponsesAreFoundAfterTheCacheForgotThem() {
+        ProcessedEventEntity completed = claimed("completed");
+        completed.setResponseType(HttpResponseEvent.Type.ERROR);
+        completed.setResponseMessage("Insufficient funds");
+        completed.setResponseStatus(HttpStatus.PRECONDITION_FAILED);
+        when(processedEventRepository.findByCorrelationId("completed")).thenReturn(Mono.just(completed));
+        when(processedEventRepository.findByCorrelationId("unfinished")).thenReturn(Mono.just(claimed("unfinished")));
+
+        StepVerifier.create(idempotencyService.findResponse("completed"))
+                .expectNextMatches(response -> response.getEventType() == HttpResponseEvent.Type.ERROR
+                        && response.getData().getStatus() == HttpStatus.PRECONDITION_FAILED
+                        && "Insufficient funds".equals(response.getData().getMessage()))
+                .verifyComplete();
+        StepVerifier.create(idempotencyService.findResponse("unfinished"))
+                .verifyComplete();
+    }
+
+    private static ProcessedEventEntity claimed(String correlationId) {
+        return ProcessedEventEntity.builder()
+                .correlationId(correlationId)
+                .claimedAt(Instant.now())
+                .build();
+    }
+}
@@ -73,6 +73,31 @@ public class AccountGatewayImpl implements AccountGateway {
     }
 
 
+    // Balance changes are never retried, the sagas decide what happens after a failure
+    @CircuitBreaker(name = "accountService", fallbackMethod = "handleBalanceChangeFallback")
+    @TimeLimiter(name = "accountService", fallbackMethod = "handleBalanceChangeTimeoutFallback")
+    @Override
+    public Mono<Account> deposit(String accountId, BigDecimal amount, String correlationId) {
+        URI url = UriComponentsBuilder
+                .fromUriString(ACCOUNT_SERVICE_URL + "/api/accounts/{accountId}/deposit")
+                .queryParam("amount", amount)
+                .queryParam("correlationId", correlationId)
+                .build(accountId);
+        return putForSingleReactive(url, Account.class);
+    }
+
+    @CircuitBreaker(name = "accountService", fallbackMethod = "handleBalanceChangeFallback")
+    @TimeLimiter(name = "accountService", fallbackMethod = "handleBalanceChangeTimeoutFallback")
+    @Override
+    public Mono<Account> withdraw(String accountId, BigDecimal amount, String correlationId) {
+        URI url = UriComponentsBuilder
+                .fromUriString(ACCOUNT_SERVICE_URL + "/api/accounts/{accountId}/withdraw")
+                .queryParam("amount", amount)
+                .queryParam("correlationId", correlationId)
+                .build(accountId);
+        return putForSingleReactive(url, Account.class);
+    }
+
     // Handling timeouts
     public Mono<Account> handleTimeoutFallback(String accountId, TimeoutException ex) {
         return Mono.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
@@ -87,6 +112,11 @@ public class AccountGatewayImpl implements AccountGateway {
         return Mono.fromCallable(() -> buildUnknownAccount(accountId));
     }
 
+    // Handling timeouts of balance changes
+    public Mono<Account> handleBalanceChangeTimeoutFallback(String accountId, BigDecimal amount, String correlationId, TimeoutException ex) {
+        return Mono.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
+    }
+
     // Handling exceptions
     public Mono<Account> handleFallback(String accountId, Throwable ex) {
         // Only handling 5xx server errors here
@@ -110,6 +140,11 @@ public class AccountGatewayImpl implements AccountGateway {
         return Mono.error(ex);
     }
 
+    // Handling exceptions of balance changes
+    public Mono<Account> handleBalanceChangeFallback(String accountId, BigDecimal amount, String correlationId, Throwable ex) {
+        return handleFallback(accountId, ex);
+    }
+
     // Handling exceptions with default account
     public Mono<Account> handleFallbackWithDefault(String accountId, Throwable ex) {
         // Only handling 5xx server errors here
@@ -4,11 +4,13 @@ import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseR
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 public interface ExpenseGateway {
     Mono<ExpenseRecord> getExpense(String id);
 
     Mono<ExpenseRecord> getExpenseWithFallback(String id);
 
-    Flux<ExpenseRecord> getExpenses(String accountId);
+    Flux<ExpenseRecord> getExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit);
     Flux<ExpenseRecord> getExpensesWithFallback(String accountId);
 }
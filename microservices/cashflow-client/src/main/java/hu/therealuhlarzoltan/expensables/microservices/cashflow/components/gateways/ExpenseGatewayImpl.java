@@ -16,6 +16,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 import java.util.concurrent.TimeoutException;
 
 import static hu.therealuhlarzoltan.expensables.microservices.cashflow.components.gateways.WebClientRequests.*;
@@ -52,11 +56,14 @@ public class ExpenseGatewayImpl implements ExpenseGateway {
     @TimeLimiter(name = "expenseService", fallbackMethod = "handleTimeoutFallbackMany")
     @Retry(name = "expenseService")
     @Override
-    public Flux<ExpenseRecord> getExpenses(String accountId) {
+    public Flux<ExpenseRecord> getExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
         URI url = UriComponentsBuilder
-                .fromUriString(EXPENSE_SERVICE_URL + "/api/expenses")
-                .queryParam("accountId", accountId)
-                .build().toUri();
+                .fromUriString(EXPENSE_SERVICE_URL + "/api/expenses/{accountId}")
+                .queryParamIfPresent("from", Optional.ofNullable(from).map(ExpenseGatewayImpl::formatDateTime))
+                .queryParamIfPresent("to", Optional.ofNullable(to).map(ExpenseGatewayImpl::formatDateTime))
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .build(accountId);
         return getForManyReactive(url, ExpenseRecord.class);
     }
 
@@ -66,9 +73,8 @@ public class ExpenseGatewayImpl implements ExpenseGateway {
     @Override
     public Flux<ExpenseRecord> getExpensesWithFallback(String accountId) {
         URI url = UriComponentsBuilder
-                .fromUriString(EXPENSE_SERVICE_URL + "/api/expenses")
-                .queryParam("accountId", accountId)
-                .build().toUri();
+                .fromUriString(EXPENSE_SERVICE_URL + "/api/expenses/{accountId}")
+                .build(accountId);
         return getForManyReactive(url, ExpenseRecord.class);
     }
 
@@ -80,7 +86,7 @@ public class ExpenseGatewayImpl implements ExpenseGateway {
         return Mono.fromCallable(() -> buildUnknownExpense(expenseId));
     }
 
-    public Flux<ExpenseRecord> handleTimeoutFallbackMany(String accountId, TimeoutException ex) {
+    public Flux<ExpenseRecord> handleTimeoutFallbackMany(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit, TimeoutException ex) {
         return Flux.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
     }
 
@@ -100,7 +106,7 @@ public class ExpenseGatewayImpl implements ExpenseGateway {
         return Mono.error(ex);
     }
 
-    public Flux<ExpenseRecord> handleFallbackMany(String accountId, Throwable ex) {
+    public Flux<ExpenseRecord> handleFallbackMany(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit, Throwable ex) {
         // Only handling 5xx server errors here
         if (ex instanceof WebClientResponseException && ((WebClientResponseException) ex).getStatusCode().is5xxServerError()) {
             return Flux.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
@@ -142,4 +148,9 @@ public class ExpenseGatewayImpl implements ExpenseGateway {
                 .accountId("Uknown")
                 .build();
     }
+
+    private static String formatDateTime(ZonedDateTime dateTime) {
+        // In UTC, so no offset sign has to survive the query string
+        return dateTime.withZoneSameInstant(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
 }
@@ -7,6 +7,8 @@ import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 public interface IncomeGateway {
     @CircuitBreaker(name = "incomeService", fallbackMethod = "handleFallback")
     @Retry(name = "incomeService")
@@ -21,7 +23,7 @@ public interface IncomeGateway {
     @CircuitBreaker(name = "incomeService", fallbackMethod = "handleFallbackMany")
     @Retry(name = "incomeService")
     @TimeLimiter(name = "incomeService", fallbackMethod = "handleTimeoutFallbackMany")
-    Flux<IncomeRecord> getIncomes(String accountId);
+    Flux<IncomeRecord> getIncomes(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit);
 
     @CircuitBreaker(name = "incomeService", fallbackMethod = "handleFallbackManyDefault")
     @Retry(name = "incomeService")
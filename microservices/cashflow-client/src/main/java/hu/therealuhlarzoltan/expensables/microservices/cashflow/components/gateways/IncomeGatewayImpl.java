@@ -16,6 +16,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 import java.util.concurrent.TimeoutException;
 
 import static hu.therealuhlarzoltan.expensables.microservices.cashflow.components.gateways.WebClientRequests.*;
@@ -52,9 +56,13 @@ public class IncomeGatewayImpl implements IncomeGateway {
     @Retry(name = "incomeService")
     @TimeLimiter(name = "incomeService", fallbackMethod = "handleTimeoutFallbackMany")
     @Override
-    public Flux<IncomeRecord> getIncomes(String accountId) {
+    public Flux<IncomeRecord> getIncomes(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
         URI url = UriComponentsBuilder
                 .fromUriString(INCOME_SERVICE_URL + "/api/incomes/{accountId}")
+                .queryParamIfPresent("from", Optional.ofNullable(from).map(IncomeGatewayImpl::formatDateTime))
+                .queryParamIfPresent("to", Optional.ofNullable(to).map(IncomeGatewayImpl::formatDateTime))
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
                 .build(accountId);
         return getForManyReactive(url, IncomeRecord.class);
     }
@@ -101,12 +109,12 @@ public class IncomeGatewayImpl implements IncomeGateway {
     }
 
     // Handle many fallbacks without defaults
-    public Flux<IncomeRecord> handleTimeoutFallbackMany(String accountId, TimeoutException ex) {
+    public Flux<IncomeRecord> handleTimeoutFallbackMany(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit, TimeoutException ex) {
         return Flux.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
     }
 
 
-    public Flux<IncomeRecord> handleFallbackMany(String accountId, Throwable ex) {
+    public Flux<IncomeRecord> handleFallbackMany(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit, Throwable ex) {
         // Only handling 5xx server errors here
         if (ex instanceof WebClientResponseException && ((WebClientResponseException) ex).getStatusCode().is5xxServerError()) {
             return Flux.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
@@ -140,4 +148,9 @@ public class IncomeGatewayImpl implements IncomeGateway {
                 .currency("Unknown")
                 .build();
     }
+
+    private static String formatDateTime(ZonedDateTime dateTime) {
+        // In UTC, so no offset sign has to survive the query string
+        return dateTime.withZoneSameInstant(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
 }
@@ -1,6 +1,5 @@
 package hu.therealuhlarzoltan.expensables.microservices.cashflow.components.sagas;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseRecord;
 import hu.therealuhlarzoltan.expensables.api.microservices.events.AccountEvent;
 import hu.therealuhlarzoltan.expensables.api.microservices.events.CrudEvent;
@@ -11,6 +10,11 @@ import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundEx
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.ServiceResponseException;
 import hu.therealuhlarzoltan.expensables.microservices.cashflow.components.gateways.ExpenseGateway;
 import hu.therealuhlarzoltan.expensables.microservices.cashflow.services.ResponseListenerService;
+import hu.therealuhlarzoltan.expensables.util.AccountFastPath;
+import hu.therealuhlarzoltan.expensables.util.SagaJournal;
+import hu.therealuhlarzoltan.expensables.util.SagaObservations;
+import hu.therealuhlarzoltan.expensables.util.MessageObservations;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,7 +29,6 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.UUID;
@@ -38,9 +41,12 @@ import static hu.therealuhlarzoltan.expensables.api.microservices.events.HttpRes
 public class ExpenseSagaImpl implements ExpenseSaga {
     private static final Logger LOG = LoggerFactory.getLogger(ExpenseSagaImpl.class);
     private final ResponseListenerService responseListener;
+    private final AccountFastPath accountFastPath;
+    private final SagaJournal sagaJournal;
+    private final SagaObservations sagaObservations;
+    private final ObservationRegistry observationRegistry;
     private final Scheduler publishEventScheduler;
     private final StreamBridge streamBridge;
-    private final ObjectMapper mapper;
     private final int RESPONSE_EVENT_WAIT_DURATION;
     private final ExpenseGateway expenseGateway;
 
@@ -66,15 +72,21 @@ public class ExpenseSagaImpl implements ExpenseSaga {
     public ExpenseSagaImpl(
             @Qualifier("publishEventScheduler") Scheduler publishEventScheduler,
             WebClient webClient,
-            ObjectMapper mapper,
             StreamBridge streamBridge,
             ResponseListenerService responseListener,
+            AccountFastPath accountFastPath,
+            SagaJournal sagaJournal,
+            SagaObservations sagaObservations,
+            ObservationRegistry observationRegistry,
             ExpenseGateway expenseGateway,
             @Value("${app.response-event-wait-duration:10}") int responseEventWaitDuration) {
         this.publishEventScheduler = publishEventScheduler;
-        this.mapper = mapper;
         this.streamBridge = streamBridge;
         this.responseListener = responseListener;
+        this.accountFastPath = accountFastPath;
+        this.sagaJournal = sagaJournal;
+        this.sagaObservations = sagaObservations;
+        this.observationRegistry = observationRegistry;
         this.expenseGateway = expenseGateway;
         this.RESPONSE_EVENT_WAIT_DURATION = responseEventWaitDuration;
     }
@@ -84,7 +96,9 @@ public class ExpenseSagaImpl implements ExpenseSaga {
         AtomicReference<ExpenseCreationState> state = new AtomicReference<>(ExpenseCreationState.INIT);
         String creatExpenseCorrId = UUID.randomUUID().toString();
         String updateAccountCorrId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         AtomicReference<String> responseMessage = new AtomicReference<>();
+        AtomicReference<ExpenseRecord> createdExpense = new AtomicReference<>();
         AtomicReference<HttpStatus> responseStatus = new AtomicReference<>(HttpStatus.CREATED);
         return Mono.fromRunnable(() -> {
                     LOG.info("Starting the expense creation saga for expense: {}", expenseRecord);
@@ -94,7 +108,7 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                     if (response.getEventType() == SUCCESS) {
                         LOG.info("Expense created successfully with id: {}", expenseRecord.getRecordId());
                         state.set(ExpenseCreationState.EXPENSE_CREATED);
-                        responseMessage.set(response.getData().getMessage());
+                        createdExpense.set(response.getData().getBody(ExpenseRecord.class));
                         return Mono.empty();
                     }
                     else if (response.getEventType() == ERROR) {
@@ -136,16 +150,15 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                     if (((ServiceResponseException) ex).getResponseStatus().equals(HttpStatus.FAILED_DEPENDENCY)) {
                         state.set(ExpenseCreationState.ACCOUNT_UPDATED);
                     }
-                    restoreExpenseCreation(state.get(), expenseRecord);
+                    restoreExpenseCreation(sagaId, creatExpenseCorrId, updateAccountCorrId, state.get(), expenseRecord);
                 }).subscribeOn(publishEventScheduler).then(Mono.defer(() -> {
                     if (responseStatus.get() == HttpStatus.CREATED) {
-                        String jsonString = responseMessage.get();
-                        ExpenseRecord createdExpense = deserializeObjectFromJson(jsonString, ExpenseRecord.class);
-                        return Mono.just(createdExpense);
+                        return Mono.just(createdExpense.get());
                     } else {
                         return Mono.error(mapException(responseMessage.get(), responseStatus.get()));
                     }
-                }));
+                }))
+                .transform(sagaJournal.journaled(sagaId, "expense-creation", creatExpenseCorrId, updateAccountCorrId));
     }
 
     @Override
@@ -153,7 +166,9 @@ public class ExpenseSagaImpl implements ExpenseSaga {
         AtomicReference<ExpenseCreationState> state = new AtomicReference<>(ExpenseCreationState.INIT);
         String creatExpenseCorrId = UUID.randomUUID().toString();
         String updateAccountCorrId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         AtomicReference<String> responseMessage = new AtomicReference<>();
+        AtomicReference<ExpenseRecord> createdExpense = new AtomicReference<>();
         AtomicReference<HttpStatus> responseStatus = new AtomicReference<>(HttpStatus.CREATED);
         return Mono.fromRunnable(() -> {
                     LOG.info("Starting the expense creation saga for expense: {}", expenseRecord);
@@ -163,7 +178,7 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                     if (response.getEventType() == SUCCESS) {
                         LOG.info("Expense created successfully with id: {}", expenseRecord.getRecordId());
                         state.set(ExpenseCreationState.EXPENSE_CREATED);
-                        responseMessage.set(response.getData().getMessage());
+                        createdExpense.set(response.getData().getBody(ExpenseRecord.class));
                         return Mono.empty();
                     }
                     else if (response.getEventType() == ERROR) {
@@ -205,16 +220,15 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                     if (((ServiceResponseException) ex).getResponseStatus().equals(HttpStatus.FAILED_DEPENDENCY)) {
                         state.set(ExpenseCreationState.ACCOUNT_UPDATED);
                     }
-                    restoreExpenseCreation(state.get(), expenseRecord, amount);
+                    restoreExpenseCreation(sagaId, creatExpenseCorrId, updateAccountCorrId, state.get(), expenseRecord, amount);
                 }).subscribeOn(publishEventScheduler).then(Mono.defer(() -> {
                     if (responseStatus.get() == HttpStatus.CREATED) {
-                        String jsonString = responseMessage.get();
-                        ExpenseRecord createdExpense = deserializeObjectFromJson(jsonString, ExpenseRecord.class);
-                        return Mono.just(createdExpense);
+                        return Mono.just(createdExpense.get());
                     } else {
                         return Mono.error(mapException(responseMessage.get(), responseStatus.get()));
                     }
-                }));
+                }))
+                .transform(sagaJournal.journaled(sagaId, "expense-creation", creatExpenseCorrId, updateAccountCorrId));
     }
 
     private Throwable mapException(String message, HttpStatus status) {
@@ -225,6 +239,7 @@ public class ExpenseSagaImpl implements ExpenseSaga {
     public Mono<ExpenseRecord> updateExpense(ExpenseRecord expenseRecord, BigDecimal amount) {
         String accountUpdateCorrId = UUID.randomUUID().toString();
         String expenseUpdateCorrId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         AtomicReference<ExpenseUpdateState> state = new AtomicReference<>(ExpenseUpdateState.INIT);
         return Mono.fromRunnable(() -> {
             LOG.info("Starting expense update saga with expense id: {}", expenseRecord.getRecordId());
@@ -242,8 +257,7 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                         .flatMap(response -> {
                             if (response.getEventType() == SUCCESS) {
                                 state.set(ExpenseUpdateState.EXPENSE_UPDATED);
-                                String jsonString = response.getData().getMessage();
-                                ExpenseRecord updatedExpenseRecord = deserializeObjectFromJson(jsonString, ExpenseRecord.class);
+                                ExpenseRecord updatedExpenseRecord = response.getData().getBody(ExpenseRecord.class);
                                 return Mono.just(updatedExpenseRecord);
                             } else if (response.getEventType() == ERROR) {
                                 LOG.error("Couldn't update expense record from expense saga for expense id: {}", expenseRecord.getRecordId());
@@ -258,9 +272,10 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                         })
         ).onErrorResume(ex -> {
             LOG.info("Encountered an error during expense update with id: {}, exception: {}", expenseRecord.getRecordId(), ex.getMessage());
-            restoreExpenseUpdate(state.get(), expenseRecord, amount);
+            restoreExpenseUpdate(sagaId, accountUpdateCorrId, state.get(), expenseRecord, amount);
             return Mono.error(ex);
-        }).subscribeOn(publishEventScheduler);
+        }).subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "expense-update", accountUpdateCorrId, expenseUpdateCorrId));
     }
 
     private Mono<Void> handleAccountUpdate(ExpenseRecord expenseRecord, BigDecimal amount, String accountUpdateCorrId, AtomicReference<ExpenseUpdateState> state) {
@@ -296,6 +311,8 @@ public class ExpenseSagaImpl implements ExpenseSaga {
     public Mono<Void> deleteExpense(ExpenseRecord expenseRecord) {
         AtomicReference<ExpenseDeletionState> state = new AtomicReference<>(ExpenseDeletionState.INIT);
         String corrId = UUID.randomUUID().toString();
+        String expenseDeletionId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         return expenseGateway.getExpense(expenseRecord.getRecordId())
                 .onErrorMap(e -> {
                     LOG.warn("Expense record not found: {}", expenseRecord.getRecordId());
@@ -303,7 +320,7 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                 })
                 .then(Mono.fromRunnable(() -> {
                     LOG.info("Starting the expense deletion saga for expense: {}", expenseRecord);
-                    sendMessage("expenses-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, expenseRecord.getRecordId(), expenseRecord));
+                    sendSagaStep(sagaId, expenseDeletionId, "expenses-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, expenseRecord.getRecordId(), expenseRecord));
                 }))
                 .then(Mono.delay(Duration.ofSeconds(1)))
                 .then(expenseGateway.getExpense(expenseRecord.getRecordId())
@@ -337,15 +354,18 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                 .onErrorResume(ex -> {
                     LOG.warn("Encountered an error during expense deletion with id: {}, exception: {}", expenseRecord.getRecordId(), ex.getMessage());
                     if (!(ex instanceof NotFoundException))
-                        restoreExpenseDeletion(state.get(), expenseRecord, expenseRecord.getAmount());
+                        restoreExpenseDeletion(sagaId, expenseDeletionId, corrId, state.get(), expenseRecord, expenseRecord.getAmount());
                     return Mono.empty();
-                }).then().subscribeOn(publishEventScheduler);
+                }).then().subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "expense-deletion", corrId));
     }
 
     @Override
     public Mono<Void> deleteExpense(ExpenseRecord expenseRecord, BigDecimal amount) {
         AtomicReference<ExpenseDeletionState> state = new AtomicReference<>(ExpenseDeletionState.INIT);
         String corrId = UUID.randomUUID().toString();
+        String expenseDeletionId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         return expenseGateway.getExpense(expenseRecord.getRecordId())
                 .onErrorMap(e -> {
                     LOG.warn("Expense record not found: {}", expenseRecord.getRecordId());
@@ -353,7 +373,7 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                 })
                 .then(Mono.fromRunnable(() -> {
                     LOG.info("Starting the expense deletion saga for expense: {}", expenseRecord);
-                    sendMessage("expenses-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, expenseRecord.getRecordId(), expenseRecord));
+                    sendSagaStep(sagaId, expenseDeletionId, "expenses-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, expenseRecord.getRecordId(), expenseRecord));
                 }))
                 .then(Mono.delay(Duration.ofSeconds(1)))
                 .then(expenseGateway.getExpense(expenseRecord.getRecordId())
@@ -387,18 +407,41 @@ public class ExpenseSagaImpl implements ExpenseSaga {
                 .onErrorResume(ex -> {
                     LOG.warn("Encountered an error during expense deletion with id: {}, exception: {}", expenseRecord.getRecordId(), ex.getMessage());
                     if (!(ex instanceof NotFoundException))
-                        restoreExpenseDeletion(state.get(), expenseRecord, amount);
+                        restoreExpenseDeletion(sagaId, expenseDeletionId, corrId, state.get(), expenseRecord, amount);
                     return Mono.empty();
-                }).then().subscribeOn(publishEventScheduler);
+                }).then().subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "expense-deletion", corrId));
     }
 
     private void sendMessage(String bindingName, String correlationId, Event<?, ?> event) {
+        sendMessage(bindingName, correlationId, event, sagaJournal.recordStep(correlationId, bindingName, event));
+    }
+
+    // The step only leaves once it is durable in the saga log, so a crash can't lose track of it
+    private void sendMessage(String bindingName, String correlationId, Event<?, ?> event, Mono<Void> stepRecorded) {
+        if (accountFastPath.supports(bindingName, event)) {
+            responseListener.registerDirectResponse(correlationId, stepRecorded.then(accountFastPath.execute(correlationId, event, () -> publishMessage(bindingName, correlationId, event))));
+            return;
+        }
+        stepRecorded.then(Mono.fromRunnable(() -> publishMessage(bindingName, correlationId, event))).subscribe();
+    }
+
+    private void sendSagaStep(String sagaId, String stepId, String bindingName, Event<?, ?> event) {
+        sagaJournal.recordUnacknowledgedStep(sagaId, stepId, bindingName, event)
+                .then(Mono.fromRunnable(() -> sendMessage(bindingName, event)))
+                .subscribe();
+    }
+
+    private void publishMessage(String bindingName, String correlationId, Event<?, ?> event) {
         LOG.debug("Sending a {} message to {}", event.getEventType(), bindingName);
-        Message message = MessageBuilder.withPayload(event)
+        MessageBuilder<Event<?, ?>> message = MessageBuilder.<Event<?, ?>>withPayload(event)
                 .setHeader("partitionKey", event.getKey())
                 .setHeader("correlationId", correlationId)
-                .build();
-        streamBridge.send(bindingName, message);
+                .setHeader("replyTo", responseListener.getReplyTo());
+        // Sent as a child of the step, the trace context of which goes along in the headers
+        MessageObservations.sending(bindingName, message, observationRegistry)
+                .parentObservation(sagaObservations.currentStep(correlationId))
+                .observe(() -> streamBridge.send(bindingName, message.build()));
     }
 
     private void sendMessage(String bindingName, Event<?, ?> event) {
@@ -409,34 +452,27 @@ public class ExpenseSagaImpl implements ExpenseSaga {
         streamBridge.send(bindingName, message);
     }
 
-    private <T> T deserializeObjectFromJson(String json, Class<T> clazz) {
-        T obj = null;
-        try {
-            obj = mapper.readValue(json, clazz);
-        } catch (IOException e) {
-            LOG.error("Couldn't deserialize object from json: {}", e.getMessage());
-        }
-        return obj;
-    }
-
     private Throwable createMessageResponseError(ResponsePayload data) {
         return new ServiceResponseException(data.getMessage(), data.getStatus());
     }
 
-    private void restoreExpenseCreation(ExpenseCreationState state, ExpenseRecord record) {
+    private void restoreExpenseCreation(String sagaId, String creatExpenseCorrId, String updateAccountCorrId, ExpenseCreationState state, ExpenseRecord record) {
+        if (state != ExpenseCreationState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No rollback needed after failed expense creation with expense id: {}", record.getRecordId());
                 break;
             case ACCOUNT_UPDATED:
                 LOG.info("Rolling back account update for expense creation with expense id: {}", record.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), record.getAmount()));
+                sagaJournal.compensate(sagaId, updateAccountCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), record.getAmount()));
                 LOG.info("Rolling back expense creation with expense id: {}", record.getRecordId());
-                sendMessage("expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, creatExpenseCorrId, "expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
                 break;
             case EXPENSE_CREATED:
                 LOG.info("Rolling back expense creation with expense id: {}", record.getRecordId());
-                sendMessage("expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, creatExpenseCorrId, "expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
                 break;
             default:
                 LOG.warn("Couldn't determine restore action for expense creation state: {} with expense id: {}", state, record.getRecordId());
@@ -445,20 +481,23 @@ public class ExpenseSagaImpl implements ExpenseSaga {
 
     }
 
-    private void restoreExpenseCreation(ExpenseCreationState state, ExpenseRecord record, BigDecimal amount) {
+    private void restoreExpenseCreation(String sagaId, String creatExpenseCorrId, String updateAccountCorrId, ExpenseCreationState state, ExpenseRecord record, BigDecimal amount) {
+        if (state != ExpenseCreationState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No rollback needed after failed expense creation with expense id: {}", record.getRecordId());
                 break;
             case ACCOUNT_UPDATED:
                 LOG.info("Rolling back account update for expense creation with expense id: {}", record.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), amount));
+                sagaJournal.compensate(sagaId, updateAccountCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), amount));
                 LOG.info("Rolling back expense creation with expense id: {}", record.getRecordId());
-                sendMessage("expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, creatExpenseCorrId, "expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
                 break;
             case EXPENSE_CREATED:
                 LOG.info("Rolling back expense creation with expense id: {}", record.getRecordId());
-                sendMessage("expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, creatExpenseCorrId, "expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
                 break;
             default:
                 LOG.warn("Couldn't determine restore action for expense creation state: {} with expense id: {}", state, record.getRecordId());
@@ -467,20 +506,23 @@ public class ExpenseSagaImpl implements ExpenseSaga {
 
     }
 
-    private void restoreExpenseDeletion(ExpenseDeletionState state, ExpenseRecord record, BigDecimal amount) {
+    private void restoreExpenseDeletion(String sagaId, String expenseDeletionId, String accountUpdateCorrId, ExpenseDeletionState state, ExpenseRecord record, BigDecimal amount) {
+        if (state != ExpenseDeletionState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No rollback needed after failed expense deletion with expense id: {}", record.getRecordId());
                 break;
             case ACCOUNT_UPDATED:
                 LOG.info("Rolling back account update for expense deletion with expense id: {}", record.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), amount));
+                sagaJournal.compensate(sagaId, accountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), amount));
                 LOG.info("Rolling back expense deletion with expense id: {}", record.getRecordId());
-                sendMessage("expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.CREATE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, expenseDeletionId, "expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.CREATE, record.getRecordId(), record));
                 break;
             case EXPENSE_DELETED:
                 LOG.info("Rolling back expense deletion with expense id: {}", record.getRecordId());
-                sendMessage("expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.CREATE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, expenseDeletionId, "expenses-out-0", new CrudEvent<String, ExpenseRecord>(CrudEvent.Type.CREATE, record.getRecordId(), record));
                 break;
             default:
                 LOG.warn("Couldn't determine restore action for expense deletion state: {} with expense id: {}", state, record.getRecordId());
@@ -489,7 +531,10 @@ public class ExpenseSagaImpl implements ExpenseSaga {
 
     }
 
-    private void restoreExpenseUpdate(ExpenseUpdateState state, ExpenseRecord record, BigDecimal amount) {
+    private void restoreExpenseUpdate(String sagaId, String accountUpdateCorrId, ExpenseUpdateState state, ExpenseRecord record, BigDecimal amount) {
+        if (state != ExpenseUpdateState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No rollback needed after failed expense update with expense id: {}", record.getRecordId());
@@ -497,9 +542,9 @@ public class ExpenseSagaImpl implements ExpenseSaga {
             case ACCOUNT_UPDATED, EXPENSE_UPDATED:
                 LOG.info("Rolling back account update for expense update with expense id: {}", record.getRecordId());
                 if (amount.compareTo(BigDecimal.ZERO) < 0) {
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), amount.abs()));
+                    sagaJournal.compensate(sagaId, accountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), amount.abs()));
                 } else {
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), amount.abs()));
+                    sagaJournal.compensate(sagaId, accountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), amount.abs()));
                 }
                 break;
             default:
@@ -1,6 +1,5 @@
 package hu.therealuhlarzoltan.expensables.microservices.cashflow.components.sagas;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.income.IncomeRecord;
 import hu.therealuhlarzoltan.expensables.api.microservices.events.*;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.EventProcessingException;
@@ -9,7 +8,12 @@ import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundEx
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.ServiceResponseException;
 import hu.therealuhlarzoltan.expensables.microservices.cashflow.components.gateways.IncomeGateway;
 import hu.therealuhlarzoltan.expensables.microservices.cashflow.services.ResponseListenerService;
+import hu.therealuhlarzoltan.expensables.util.AccountFastPath;
+import hu.therealuhlarzoltan.expensables.util.SagaJournal;
+import hu.therealuhlarzoltan.expensables.util.SagaObservations;
 import hu.therealuhlarzoltan.expensables.util.HttpErrorInfo;
+import hu.therealuhlarzoltan.expensables.util.MessageObservations;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,7 +30,6 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import static hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent.Type.*;
 
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.UUID;
@@ -36,9 +39,12 @@ import java.util.concurrent.atomic.AtomicReference;
 public class IncomeSagaImpl implements IncomeSaga {
     private static final Logger LOG = LoggerFactory.getLogger(IncomeSagaImpl.class);
     private final ResponseListenerService responseListener;
+    private final AccountFastPath accountFastPath;
+    private final SagaJournal sagaJournal;
+    private final SagaObservations sagaObservations;
+    private final ObservationRegistry observationRegistry;
     private final Scheduler publishEventScheduler;
     private final StreamBridge streamBridge;
-    private final ObjectMapper mapper;
     private final int RESPONSE_EVENT_WAIT_DURATION;
     private final IncomeGateway incomeGateway;
 
@@ -64,15 +70,21 @@ public class IncomeSagaImpl implements IncomeSaga {
     public IncomeSagaImpl(
             @Qualifier("publishEventScheduler") Scheduler publishEventScheduler,
             WebClient webClient,
-            ObjectMapper mapper,
             StreamBridge streamBridge,
             ResponseListenerService responseListener,
+            AccountFastPath accountFastPath,
+            SagaJournal sagaJournal,
+            SagaObservations sagaObservations,
+            ObservationRegistry observationRegistry,
             IncomeGateway incomeGateway,
             @Value("${app.response-event-wait-duration:10}") int responseEventWaitDuration) {
         this.publishEventScheduler = publishEventScheduler;
-        this.mapper = mapper;
         this.streamBridge = streamBridge;
         this.responseListener = responseListener;
+        this.accountFastPath = accountFastPath;
+        this.sagaJournal = sagaJournal;
+        this.sagaObservations = sagaObservations;
+        this.observationRegistry = observationRegistry;
         this.incomeGateway = incomeGateway;
         this.RESPONSE_EVENT_WAIT_DURATION = responseEventWaitDuration;
     }
@@ -82,7 +94,9 @@ public class IncomeSagaImpl implements IncomeSaga {
         AtomicReference<IncomeCreationState> state = new AtomicReference<>(IncomeCreationState.INIT);
         String creatIncomeCorrId = UUID.randomUUID().toString();
         String updateAccountCorrId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         AtomicReference<String> responseMessage = new AtomicReference<>();
+        AtomicReference<IncomeRecord> createdIncome = new AtomicReference<>();
         AtomicReference<HttpStatus> responseStatus = new AtomicReference<>(HttpStatus.CREATED);
         return Mono.fromRunnable(() -> {
             LOG.info("Starting the income creation saga for income: {}", incomeRecord);
@@ -92,7 +106,7 @@ public class IncomeSagaImpl implements IncomeSaga {
                     if (response.getEventType() == SUCCESS) {
                         LOG.info("Income created successfully with id: {}", incomeRecord.getRecordId());
                         state.set(IncomeCreationState.INCOME_CREATED);
-                        responseMessage.set(response.getData().getMessage());
+                        createdIncome.set(response.getData().getBody(IncomeRecord.class));
                         return Mono.empty();
                     }
                     else if (response.getEventType() == ERROR) {
@@ -134,16 +148,15 @@ public class IncomeSagaImpl implements IncomeSaga {
                 if (((ServiceResponseException) ex).getResponseStatus().equals(HttpStatus.FAILED_DEPENDENCY)) {
                     state.set(IncomeCreationState.ACCOUNT_UPDATED);
                 }
-                restoreIncomeCreation(state.get(), incomeRecord);
+                restoreIncomeCreation(sagaId, creatIncomeCorrId, updateAccountCorrId, state.get(), incomeRecord);
             }).subscribeOn(publishEventScheduler).then(Mono.defer(() -> {
                     if (responseStatus.get() == HttpStatus.CREATED) {
-                        String jsonString = responseMessage.get();
-                        IncomeRecord createdIncome = deserializeObjectFromJson(jsonString, IncomeRecord.class);
-                        return Mono.just(createdIncome);
+                        return Mono.just(createdIncome.get());
                     } else {
                         return Mono.error(mapException(responseMessage.get(), responseStatus.get()));
                     }
-                }));
+                }))
+                .transform(sagaJournal.journaled(sagaId, "income-creation", creatIncomeCorrId, updateAccountCorrId));
     }
 
     @Override
@@ -151,7 +164,9 @@ public class IncomeSagaImpl implements IncomeSaga {
         AtomicReference<IncomeCreationState> state = new AtomicReference<>(IncomeCreationState.INIT);
         String creatIncomeCorrId = UUID.randomUUID().toString();
         String updateAccountCorrId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         AtomicReference<String> responseMessage = new AtomicReference<>();
+        AtomicReference<IncomeRecord> createdIncome = new AtomicReference<>();
         AtomicReference<HttpStatus> responseStatus = new AtomicReference<>(HttpStatus.CREATED);
         return Mono.fromRunnable(() -> {
                     LOG.info("Starting the income creation saga for income: {}", incomeRecord);
@@ -161,7 +176,7 @@ public class IncomeSagaImpl implements IncomeSaga {
                     if (response.getEventType() == SUCCESS) {
                         LOG.info("Income created successfully with id: {}", incomeRecord.getRecordId());
                         state.set(IncomeCreationState.INCOME_CREATED);
-                        responseMessage.set(response.getData().getMessage());
+                        createdIncome.set(response.getData().getBody(IncomeRecord.class));
                         return Mono.empty();
                     }
                     else if (response.getEventType() == ERROR) {
@@ -203,16 +218,15 @@ public class IncomeSagaImpl implements IncomeSaga {
                     if (((ServiceResponseException) ex).getResponseStatus().equals(HttpStatus.FAILED_DEPENDENCY)) {
                         state.set(IncomeCreationState.ACCOUNT_UPDATED);
                     }
-                    restoreIncomeCreation(state.get(), incomeRecord, amount);
+                    restoreIncomeCreation(sagaId, creatIncomeCorrId, updateAccountCorrId, state.get(), incomeRecord, amount);
                 }).subscribeOn(publishEventScheduler).then(Mono.defer(() -> {
                     if (responseStatus.get() == HttpStatus.CREATED) {
-                        String jsonString = responseMessage.get();
-                        IncomeRecord createdIncome = deserializeObjectFromJson(jsonString, IncomeRecord.class);
-                        return Mono.just(createdIncome);
+                        return Mono.just(createdIncome.get());
                     } else {
                         return Mono.error(mapException(responseMessage.get(), responseStatus.get()));
                     }
-                }));
+                }))
+                .transform(sagaJournal.journaled(sagaId, "income-creation", creatIncomeCorrId, updateAccountCorrId));
     }
 
     private Throwable mapException(String message, HttpStatus status) {
@@ -223,6 +237,7 @@ public class IncomeSagaImpl implements IncomeSaga {
     public Mono<IncomeRecord> updateIncome(IncomeRecord incomeRecord, BigDecimal amount) {
         String accountUpdateCorrId = UUID.randomUUID().toString();
         String incomeUpdateCorrId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         AtomicReference<IncomeUpdateState> state = new AtomicReference<>(IncomeUpdateState.INIT);
         return Mono.fromRunnable(() -> {
             LOG.info("Starting income update saga with income id: {}", incomeRecord.getRecordId());
@@ -240,8 +255,7 @@ public class IncomeSagaImpl implements IncomeSaga {
                     .flatMap(response -> {
                         if (response.getEventType() == SUCCESS) {
                             state.set(IncomeUpdateState.INCOME_UPDATED);
-                            String jsonString = response.getData().getMessage();
-                            IncomeRecord updatedIncomeRecord = deserializeObjectFromJson(jsonString, IncomeRecord.class);
+                            IncomeRecord updatedIncomeRecord = response.getData().getBody(IncomeRecord.class);
                             return Mono.just(updatedIncomeRecord);
                         } else if (response.getEventType() == ERROR) {
                             LOG.error("Couldn't update income record from income saga for income id: {}", incomeRecord.getRecordId());
@@ -256,9 +270,10 @@ public class IncomeSagaImpl implements IncomeSaga {
                     })
         ).onErrorResume(ex -> {
             LOG.info("Encountered an error during income update with id: {}, exception: {}", incomeRecord.getRecordId(), ex.getMessage());
-            restoreIncomeUpdate(state.get(), incomeRecord, amount);
+            restoreIncomeUpdate(sagaId, accountUpdateCorrId, state.get(), incomeRecord, amount);
             return Mono.error(ex);
-        }).subscribeOn(publishEventScheduler);
+        }).subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "income-update", accountUpdateCorrId, incomeUpdateCorrId));
     }
 
     private Mono<Void> handleAccountUpdate(IncomeRecord incomeRecord, BigDecimal amount, String accountUpdateCorrId, AtomicReference<IncomeUpdateState> state) {
@@ -294,6 +309,8 @@ public class IncomeSagaImpl implements IncomeSaga {
     public Mono<Void> deleteIncome(IncomeRecord incomeRecord) {
         AtomicReference<IncomeDeletionState> state = new AtomicReference<>(IncomeDeletionState.INIT);
         String corrId = UUID.randomUUID().toString();
+        String incomeDeletionId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         return incomeGateway.getIncome(incomeRecord.getRecordId())
                 .onErrorMap(e -> {
                     LOG.warn("Income record not found: {}", incomeRecord.getRecordId());
@@ -301,7 +318,7 @@ public class IncomeSagaImpl implements IncomeSaga {
                 })
                 .then(Mono.fromRunnable(() -> {
                     LOG.info("Starting the income deletion saga for income: {}", incomeRecord);
-                    sendMessage("incomes-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, incomeRecord.getRecordId(), incomeRecord));
+                    sendSagaStep(sagaId, incomeDeletionId, "incomes-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, incomeRecord.getRecordId(), incomeRecord));
                 }))
                 .then(Mono.delay(Duration.ofSeconds(1)))
                 .then(incomeGateway.getIncome(incomeRecord.getRecordId())
@@ -335,15 +352,18 @@ public class IncomeSagaImpl implements IncomeSaga {
                         state.set(IncomeDeletionState.ACCOUNT_UPDATED);
                     }
                     if (!(ex instanceof NotFoundException))
-                        restoreIncomeDeletion(state.get(), incomeRecord, incomeRecord.getAmount());
+                        restoreIncomeDeletion(sagaId, incomeDeletionId, corrId, state.get(), incomeRecord, incomeRecord.getAmount());
                     return Mono.empty();
-                }).then().subscribeOn(publishEventScheduler);
+                }).then().subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "income-deletion", corrId));
     }
 
     @Override
     public Mono<Void> deleteIncome(IncomeRecord incomeRecord, BigDecimal amount) {
         AtomicReference<IncomeDeletionState> state = new AtomicReference<>(IncomeDeletionState.INIT);
         String corrId = UUID.randomUUID().toString();
+        String incomeDeletionId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         return incomeGateway.getIncome(incomeRecord.getRecordId())
                 .onErrorMap(e -> {
                     LOG.warn("Income record not found: {}", incomeRecord.getRecordId());
@@ -351,7 +371,7 @@ public class IncomeSagaImpl implements IncomeSaga {
                 })
                 .then(Mono.fromRunnable(() -> {
                     LOG.info("Starting the income deletion saga for income: {}", incomeRecord);
-                    sendMessage("incomes-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, incomeRecord.getRecordId(), incomeRecord));
+                    sendSagaStep(sagaId, incomeDeletionId, "incomes-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, incomeRecord.getRecordId(), incomeRecord));
                 }))
                 .then(Mono.delay(Duration.ofSeconds(1)))
                 .then(incomeGateway.getIncome(incomeRecord.getRecordId())
@@ -385,18 +405,41 @@ public class IncomeSagaImpl implements IncomeSaga {
                         state.set(IncomeDeletionState.ACCOUNT_UPDATED);
                     }
                     if (!(ex instanceof NotFoundException))
-                        restoreIncomeDeletion(state.get(), incomeRecord, amount);
+                        restoreIncomeDeletion(sagaId, incomeDeletionId, corrId, state.get(), incomeRecord, amount);
                     return Mono.empty();
-                }).then().subscribeOn(publishEventScheduler);
+                }).then().subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "income-deletion", corrId));
     }
 
     private void sendMessage(String bindingName, String correlationId, Event<?, ?> event) {
+        sendMessage(bindingName, correlationId, event, sagaJournal.recordStep(correlationId, bindingName, event));
+    }
+
+    // The step only leaves once it is durable in the saga log, so a crash can't lose track of it
+    private void sendMessage(String bindingName, String correlationId, Event<?, ?> event, Mono<Void> stepRecorded) {
+        if (accountFastPath.supports(bindingName, event)) {
+            responseListener.registerDirectResponse(correlationId, stepRecorded.then(accountFastPath.execute(correlationId, event, () -> publishMessage(bindingName, correlationId, event))));
+            return;
+        }
+        stepRecorded.then(Mono.fromRunnable(() -> publishMessage(bindingName, correlationId, event))).subscribe();
+    }
+
+    private void sendSagaStep(String sagaId, String stepId, String bindingName, Event<?, ?> event) {
+        sagaJournal.recordUnacknowledgedStep(sagaId, stepId, bindingName, event)
+                .then(Mono.fromRunnable(() -> sendMessage(bindingName, event)))
+                .subscribe();
+    }
+
+    private void publishMessage(String bindingName, String correlationId, Event<?, ?> event) {
         LOG.debug("Sending a {} message to {}", event.getEventType(), bindingName);
-        Message message = MessageBuilder.withPayload(event)
+        MessageBuilder<Event<?, ?>> message = MessageBuilder.<Event<?, ?>>withPayload(event)
                 .setHeader("partitionKey", event.getKey())
                 .setHeader("correlationId", correlationId)
-                .build();
-        streamBridge.send(bindingName, message);
+                .setHeader("replyTo", responseListener.getReplyTo());
+        // Sent as a child of the step, the trace context of which goes along in the headers
+        MessageObservations.sending(bindingName, message, observationRegistry)
+                .parentObservation(sagaObservations.currentStep(correlationId))
+                .observe(() -> streamBridge.send(bindingName, message.build()));
     }
 
     private void sendMessage(String bindingName, Event<?, ?> event) {
@@ -407,54 +450,50 @@ public class IncomeSagaImpl implements IncomeSaga {
         streamBridge.send(bindingName, message);
     }
 
-    private <T> T deserializeObjectFromJson(String json, Class<T> clazz) {
-        T obj = null;
-        try {
-            obj = mapper.readValue(json, clazz);
-        } catch (IOException e) {
-            LOG.error("Couldn't deserialize object from json: {}", e.getMessage());
-        }
-        return obj;
-    }
-
     private Throwable createMessageResponseError(ResponsePayload data) {
         return new ServiceResponseException(data.getMessage(), data.getStatus());
     }
 
-    private void restoreIncomeCreation(IncomeCreationState state, IncomeRecord record) {
+    private void restoreIncomeCreation(String sagaId, String creatIncomeCorrId, String updateAccountCorrId, IncomeCreationState state, IncomeRecord record) {
+        if (state != IncomeCreationState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No rollback needed after failed income creation with income id: {}", record.getRecordId());
                 break;
             case ACCOUNT_UPDATED:
                 LOG.info("Rolling back account update for income creation with income id: {}", record.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), record.getAmount()));
+                sagaJournal.compensate(sagaId, updateAccountCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), record.getAmount()));
                 LOG.info("Rolling back income creation with income id: {}", record.getRecordId());
-                sendMessage("incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, creatIncomeCorrId, "incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
                 break;
             case INCOME_CREATED:
                 LOG.info("Rolling back income creation with income id: {}", record.getRecordId());
-                sendMessage("incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, creatIncomeCorrId, "incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
                 break;
             default:
                 LOG.warn("Couldn't determine restore action for income creation state: {} with income id: {}", state, record.getRecordId());
         }
     }
 
-    private void restoreIncomeCreation(IncomeCreationState state, IncomeRecord record, BigDecimal amount) {
+    private void restoreIncomeCreation(String sagaId, String creatIncomeCorrId, String updateAccountCorrId, IncomeCreationState state, IncomeRecord record, BigDecimal amount) {
+        if (state != IncomeCreationState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No rollback needed after failed income creation with income id: {}", record.getRecordId());
                 break;
             case ACCOUNT_UPDATED:
                 LOG.info("Rolling back account update for income creation with income id: {}", record.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), amount));
+                sagaJournal.compensate(sagaId, updateAccountCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), amount));
                 LOG.info("Rolling back income creation with income id: {}", record.getRecordId());
-                sendMessage("incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, creatIncomeCorrId, "incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
                 break;
             case INCOME_CREATED:
                 LOG.info("Rolling back income creation with income id: {}", record.getRecordId());
-                sendMessage("incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, creatIncomeCorrId, "incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.DELETE, record.getRecordId(), record));
                 break;
             default:
                 LOG.warn("Couldn't determine restore action for income creation state: {} with income id: {}", state, record.getRecordId());
@@ -462,20 +501,23 @@ public class IncomeSagaImpl implements IncomeSaga {
         }
     }
 
-    private void restoreIncomeDeletion(IncomeDeletionState state, IncomeRecord record, BigDecimal amount) {
+    private void restoreIncomeDeletion(String sagaId, String incomeDeletionId, String accountUpdateCorrId, IncomeDeletionState state, IncomeRecord record, BigDecimal amount) {
+        if (state != IncomeDeletionState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No rollback needed after failed income deletion with income id: {}", record.getRecordId());
                 break;
             case ACCOUNT_UPDATED:
                 LOG.info("Rolling back account update for income deletion with income id: {}", record.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), amount));
+                sagaJournal.compensate(sagaId, accountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), amount));
                 LOG.info("Rolling back income deletion with income id: {}", record.getRecordId());
-                sendMessage("incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.CREATE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, incomeDeletionId, "incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.CREATE, record.getRecordId(), record));
                 break;
             case INCOME_DELETED:
                 LOG.info("Rolling back income deletion with income id: {}", record.getRecordId());
-                sendMessage("incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.CREATE, record.getRecordId(), record));
+                sagaJournal.compensate(sagaId, incomeDeletionId, "incomes-out-0", new CrudEvent<String, IncomeRecord>(CrudEvent.Type.CREATE, record.getRecordId(), record));
                 break;
             default:
                 LOG.warn("Couldn't determine restore action for income deletion state: {} with income id: {}", state, record.getRecordId());
@@ -484,7 +526,10 @@ public class IncomeSagaImpl implements IncomeSaga {
 
     }
 
-    private void restoreIncomeUpdate(IncomeUpdateState state, IncomeRecord record, BigDecimal amount) {
+    private void restoreIncomeUpdate(String sagaId, String accountUpdateCorrId, IncomeUpdateState state, IncomeRecord record, BigDecimal amount) {
+        if (state != IncomeUpdateState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No rollback needed after failed income update with income id: {}", record.getRecordId());
@@ -492,9 +537,9 @@ public class IncomeSagaImpl implements IncomeSaga {
             case ACCOUNT_UPDATED, INCOME_UPDATED:
                 LOG.info("Rolling back account update for income update with income id: {}", record.getRecordId());
                 if (amount.compareTo(BigDecimal.ZERO) < 0) {
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), amount.abs()));
+                    sagaJournal.compensate(sagaId, accountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, record.getAccountId(), amount.abs()));
                 } else {
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), amount.abs()));
+                    sagaJournal.compensate(sagaId, accountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, record.getAccountId(), amount.abs()));
                 }
                 break;
             default:
@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 @RestController
 @RequiredArgsConstructor
 public class CashflowClientControllerImpl implements CashflowClientController {
@@ -18,15 +20,15 @@ public class CashflowClientControllerImpl implements CashflowClientController {
     private final CashflowService service;
 
     @Override
-    public Flux<IncomeRecordInfo> getAccountIncomes(String accountId) {
-        LOG.info("Received a GET request to retrieve incomes for account with id: {}", accountId);
-        return service.getAccountIncomes(accountId);
+    public Flux<IncomeRecordInfo> getAccountIncomes(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
+        LOG.info("Received a GET request to retrieve incomes for account with id: {}, from: {}, to: {}, cursor: {}, limit: {}", accountId, from, to, cursor, limit);
+        return service.getAccountIncomes(accountId, from, to, cursor, limit);
     }
 
     @Override
-    public Flux<ExpenseRecordInfo> getAccountExpenses(String accountId) {
-        LOG.info("Received a GET request to retrieve expenses for account with id: {}", accountId);
-        return service.getAccountExpenses(accountId);
+    public Flux<ExpenseRecordInfo> getAccountExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
+        LOG.info("Received a GET request to retrieve expenses for account with id: {}, from: {}, to: {}, cursor: {}, limit: {}", accountId, from, to, cursor, limit);
+        return service.getAccountExpenses(accountId, from, to, cursor, limit);
     }
 
     @Override
@@ -5,14 +5,16 @@ import hu.therealuhlarzoltan.expensables.api.microservices.core.income.IncomeRec
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 public interface CashflowIntegration {
 
     Mono<Void> deleteExpense(ExpenseRecord expenseRecord);
     Mono<Void> deleteIncome(IncomeRecord incomeRecord);
 
-    Flux<IncomeRecord> getAccountIncomes(String accountId);
+    Flux<IncomeRecord> getAccountIncomes(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit);
 
-    Flux<ExpenseRecord> getAccountExpenses(String accountId);
+    Flux<ExpenseRecord> getAccountExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit);
 
     Mono<IncomeRecord> getIncome(String incomeId);
 
@@ -31,15 +31,15 @@ public class CashflowIntegrationImpl implements CashflowIntegration {
     private final ExpenseSaga expenseSaga;
 
     @Override
-    public Flux<IncomeRecord> getAccountIncomes(String accountId) {
+    public Flux<IncomeRecord> getAccountIncomes(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
         LOG.info("Will delegate the getAccountIncomes API call to the IncomeGateway with id: {}", accountId);
-        return incomeGateway.getIncomes(accountId);
+        return incomeGateway.getIncomes(accountId, from, to, cursor, limit);
     }
 
     @Override
-    public Flux<ExpenseRecord> getAccountExpenses(String accountId) {
+    public Flux<ExpenseRecord> getAccountExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
         LOG.info("Will delegate the getAccountExpenses API call to the ExpensesGateway with id: {}", accountId);
-        return expenseGateway.getExpenses(accountId);
+        return expenseGateway.getExpenses(accountId, from, to, cursor, limit);
     }
 
     @Override
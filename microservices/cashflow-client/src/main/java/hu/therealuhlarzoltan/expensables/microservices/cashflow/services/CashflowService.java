@@ -5,10 +5,12 @@ import hu.therealuhlarzoltan.expensables.api.microservices.composite.cashflow.In
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 public interface CashflowService {
-    Flux<IncomeRecordInfo> getAccountIncomes(String accountId);
+    Flux<IncomeRecordInfo> getAccountIncomes(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit);
 
-    Flux<ExpenseRecordInfo> getAccountExpenses(String accountId);
+    Flux<ExpenseRecordInfo> getAccountExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit);
 
     Mono<IncomeRecordInfo> getIncome(String incomeId);
 
@@ -13,6 +13,8 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 @Service
 @RequiredArgsConstructor
 public class CashflowServiceImpl implements CashflowService {
@@ -24,16 +26,16 @@ public class CashflowServiceImpl implements CashflowService {
 
 
     @Override
-    public Flux<IncomeRecordInfo> getAccountIncomes(String accountId) {
+    public Flux<IncomeRecordInfo> getAccountIncomes(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
         LOG.info("Will call the getAccountIncomes API in the integration layer with accountId: {}", accountId);
-        return integration.getAccountIncomes(accountId)
+        return integration.getAccountIncomes(accountId, from, to, cursor, limit)
                 .map(incomeMapper::incomeRecordToInfo);
     }
 
     @Override
-    public Flux<ExpenseRecordInfo> getAccountExpenses(String accountId) {
+    public Flux<ExpenseRecordInfo> getAccountExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
         LOG.info("Will call the getAccountExpenses API in the integration layer with accountId: {}", accountId);
-        return integration.getAccountExpenses(accountId).map(expenseMapper::expenseRecordToInfo);
+        return integration.getAccountExpenses(accountId, from, to, cursor, limit).map(expenseMapper::expenseRecordToInfo);
     }
 
     @Override
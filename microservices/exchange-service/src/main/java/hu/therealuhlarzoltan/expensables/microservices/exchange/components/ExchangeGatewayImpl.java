@@ -1,6 +1,5 @@
 package hu.therealuhlarzoltan.expensables.microservices.exchange.components;
 
-import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.exchange.ExchangeRequest;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.exchange.ExchangeResponse;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.ServiceResponseException;
@@ -21,7 +20,7 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.net.URI;
-import java.time.ZonedDateTime;
+import java.time.LocalDate;
 import java.util.concurrent.TimeoutException;
 
 import static hu.therealuhlarzoltan.expensables.microservices.exchange.components.WebClientRequests.*;
@@ -35,32 +34,26 @@ public class ExchangeGatewayImpl implements ExchangeGateway {
     @Retry(name = "exchangeApi")
     @TimeLimiter(name = "exchangeApi", fallbackMethod = "handleTimeoutFallback")
     @Override
-    public Mono<ExchangeResponse> exchangeCurrency(String fromCurrency, String toCurrency, BigDecimal amount, ZonedDateTime date) {
-        String dateString = date.toLocalDate().toString();
+    public Mono<BigDecimal> getExchangeRate(String fromCurrency, String toCurrency, LocalDate date) {
+        // Converting a single unit yields the rate itself, the amounts are converted locally
         String relativeUri = UriComponentsBuilder.fromUriString("/convert")
                 .queryParam("from", fromCurrency)
                 .queryParam("to", toCurrency)
-                .queryParam("amount", amount)
-                .queryParam("date", dateString)
+                .queryParam("amount", BigDecimal.ONE)
+                .queryParam("date", date.toString())
                 .build().toUriString();
         return getForConversionReactive(relativeUri)
-                .map(response -> {
-                    response.setToCurrency(toCurrency);
-                    response.setFromCurrency(fromCurrency);
-                    response.setAmount(amount);
-                    response.setExchangeDate(date);
-                    return response;
-                });
+                .map(ExchangeResponse::getResult);
     }
 
     // Handling timeouts
-    public Mono<ExchangeResponse> handleTimeoutFallback(String fromCurrency, String toCurrency, BigDecimal amount, ZonedDateTime date, TimeoutException ex) {
+    public Mono<BigDecimal> handleTimeoutFallback(String fromCurrency, String toCurrency, LocalDate date, TimeoutException ex) {
         return Mono.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
     }
 
 
     // Handling exceptions
-    public Mono<Account> handleFallback(String fromCurrency, String toCurrency, BigDecimal amount, ZonedDateTime date, Throwable ex) {
+    public Mono<BigDecimal> handleFallback(String fromCurrency, String toCurrency, LocalDate date, Throwable ex) {
         // Only handling 5xx server errors here
         if (ex instanceof WebClientResponseException && ((WebClientResponseException) ex).getStatusCode().is5xxServerError()) {
             return Mono.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
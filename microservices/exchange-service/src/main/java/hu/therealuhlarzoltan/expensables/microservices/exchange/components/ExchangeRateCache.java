@@ -0,0 +1,81 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.components;
+
+import hu.therealuhlarzoltan.expensables.util.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Daily exchange rates by currency pair. The rate of a past day never changes, so those are kept until the least
+ * recently used ones are evicted, while today's rates are only kept for a short while as they still move.
+ */
+@Component
+public class ExchangeRateCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ExchangeRateCache.class);
+    private final Map<RateKey, BigDecimal> historicalRates;
+    private final ExpiringCache<RateKey, BigDecimal> currentRates;
+    private final Map<RateKey, Mono<BigDecimal>> pendingLookups = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    public record RateKey(String fromCurrency, String toCurrency, LocalDate date) {
+    }
+
+    @Autowired
+    public ExchangeRateCache(
+            @Value("${app.historical-rate-cache-size:100000}") Integer historicalRateCacheSize,
+            @Value("${app.current-rate-cache-size:1000}") Integer currentRateCacheSize,
+            @Value("${app.current-rate-cache-ttl:10m}") Duration currentRateCacheTtl
+    ) {
+        this(historicalRateCacheSize, currentRateCacheSize, currentRateCacheTtl, Clock.systemUTC());
+    }
+
+    public ExchangeRateCache(Integer historicalRateCacheSize, Integer currentRateCacheSize, Duration currentRateCacheTtl, Clock clock) {
+        this.clock = clock;
+        this.historicalRates = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RateKey, BigDecimal> eldest) {
+                return size() > historicalRateCacheSize;
+            }
+        });
+        this.currentRates = new ExpiringCache<>(currentRateCacheSize, currentRateCacheTtl, clock);
+    }
+
+    public Mono<BigDecimal> getRate(RateKey key, Function<RateKey, Mono<BigDecimal>> loader) {
+        BigDecimal cached = isHistorical(key) ? historicalRates.get(key) : currentRates.get(key).orElse(null);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        // Concurrent misses for the same pair and day share a single remote lookup
+        return pendingLookups.computeIfAbsent(key, missingKey -> loader.apply(missingKey)
+                .doOnNext(rate -> put(missingKey, rate))
+                .doFinally(signal -> pendingLookups.remove(missingKey))
+                .cache());
+    }
+
+    public void put(RateKey key, BigDecimal rate) {
+        LOG.debug("Caching the {} -> {} rate of {}: {}", key.fromCurrency(), key.toCurrency(), key.date(), rate);
+        if (isHistorical(key)) {
+            historicalRates.put(key, rate);
+        } else {
+            currentRates.put(key, rate);
+        }
+    }
+
+    public boolean isHistorical(RateKey key) {
+        // Rates are quoted per UTC day, only the days before today in UTC are final
+        return key.date().isBefore(LocalDate.now(clock));
+    }
+}
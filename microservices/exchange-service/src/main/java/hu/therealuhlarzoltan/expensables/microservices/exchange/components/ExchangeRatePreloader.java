@@ -0,0 +1,59 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.components;
+
+import hu.therealuhlarzoltan.expensables.microservices.exchange.services.ExchangeRateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@Component
+public class ExchangeRatePreloader {
+    private static final Logger LOG = LoggerFactory.getLogger(ExchangeRatePreloader.class);
+    private final ExchangeRateService exchangeRateService;
+    private final Integer rateWarmupDays;
+    private final String ratePreloadFrom;
+    private final String ratePreloadTo;
+
+    @Autowired
+    public ExchangeRatePreloader(
+            ExchangeRateService exchangeRateService,
+            @Value("${app.rate-warmup-days:366}") Integer rateWarmupDays,
+            @Value("${app.rate-preload-from:}") String ratePreloadFrom,
+            @Value("${app.rate-preload-to:}") String ratePreloadTo
+    ) {
+        this.exchangeRateService = exchangeRateService;
+        this.rateWarmupDays = rateWarmupDays;
+        this.ratePreloadFrom = ratePreloadFrom;
+        this.ratePreloadTo = ratePreloadTo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadExchangeRates() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Mono<Long> warmup = exchangeRateService.loadStoredRates(today.minusDays(rateWarmupDays))
+                .doOnNext(count -> LOG.info("Loaded {} stored exchange rates of the last {} days", count, rateWarmupDays));
+        Mono<Long> preload = Mono.empty();
+        if (!ratePreloadFrom.isBlank()) {
+            LocalDate from = LocalDate.parse(ratePreloadFrom);
+            // Only past days are final, today's rates are fetched on demand
+            LocalDate to = ratePreloadTo.isBlank() ? today.minusDays(1) : LocalDate.parse(ratePreloadTo);
+            if (!to.isBefore(today)) {
+                to = today.minusDays(1);
+            }
+            LOG.info("Preloading the exchange rates of every currency pair from {} to {}", from, to);
+            preload = exchangeRateService.preloadExchangeRates(from, to)
+                    .doOnNext(count -> LOG.info("Preloaded {} exchange rates", count));
+        }
+        warmup.then(preload)
+                .doOnError(ex -> LOG.warn("Couldn't preload the exchange rates: {}", ex.getMessage()))
+                .onErrorResume(ex -> Mono.empty())
+                .subscribe();
+    }
+}
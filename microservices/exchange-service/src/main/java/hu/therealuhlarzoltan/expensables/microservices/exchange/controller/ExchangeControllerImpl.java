@@ -8,8 +8,11 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 public class ExchangeControllerImpl implements ExchangeController {
@@ -19,4 +22,9 @@ public class ExchangeControllerImpl implements ExchangeController {
     public Mono<ExchangeResponse> exchangeCurrency(ExchangeRequest exchangeRequest) {
         return exchangeService.exchangeCurrency(exchangeRequest);
     }
+
+    @Override
+    public Flux<ExchangeResponse> exchangeCurrencies(List<ExchangeRequest> exchangeRequests) {
+        return exchangeService.exchangeCurrencies(exchangeRequests);
+    }
 }
@@ -0,0 +1,9 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.models;
+
+// The currencies accounts can be held in, see the account-service
+public enum Currency {
+    USD,
+    EUR,
+    HUF,
+    JPY
+}
@@ -0,0 +1,39 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Document(collection = "exchange_rates")
+@CompoundIndex(name = "pair_date", def = "{'fromCurrency': 1, 'toCurrency': 1, 'date': 1}", unique = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExchangeRateEntity {
+    @Id
+    private String id;
+
+    private String fromCurrency;
+
+    private String toCurrency;
+
+    // ISO day, a calendar day has no single instant to be stored as a date
+    @Indexed
+    private String date;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal rate;
+
+    private Instant fetchedAt;
+}
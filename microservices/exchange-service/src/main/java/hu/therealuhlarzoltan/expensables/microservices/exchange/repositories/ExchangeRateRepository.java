@@ -0,0 +1,11 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.repositories;
+
+import hu.therealuhlarzoltan.expensables.microservices.exchange.models.ExchangeRateEntity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ExchangeRateRepository extends ReactiveMongoRepository<ExchangeRateEntity, String> {
+    Mono<ExchangeRateEntity> findByFromCurrencyAndToCurrencyAndDate(String fromCurrency, String toCurrency, String date);
+    Flux<ExchangeRateEntity> findAllByFromCurrencyAndDateGreaterThanEqual(String fromCurrency, String date);
+}
@@ -0,0 +1,12 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.services;
+
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface ExchangeRateService {
+    Mono<BigDecimal> getExchangeRate(String fromCurrency, String toCurrency, LocalDate date);
+    Mono<Long> loadStoredRates(LocalDate since);
+    Mono<Long> preloadExchangeRates(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,128 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.services;
+
+import hu.therealuhlarzoltan.expensables.microservices.exchange.components.ExchangeGateway;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.components.ExchangeRateCache;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.components.ExchangeRateCache.RateKey;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.models.Currency;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.models.ExchangeRateEntity;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.repositories.ExchangeRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class ExchangeRateServiceImpl implements ExchangeRateService {
+    private static final Logger LOG = LoggerFactory.getLogger(ExchangeRateServiceImpl.class);
+    // Every derived rate is rounded the same way, whichever pair it was derived for
+    private static final MathContext RATE_CONTEXT = new MathContext(12, RoundingMode.HALF_EVEN);
+    private final ExchangeGateway exchangeGateway;
+    private final ExchangeRateCache exchangeRateCache;
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final Integer ratePreloadConcurrency;
+    private final String baseCurrency;
+
+    @Autowired
+    public ExchangeRateServiceImpl(
+            ExchangeGateway exchangeGateway,
+            ExchangeRateCache exchangeRateCache,
+            ExchangeRateRepository exchangeRateRepository,
+            @Value("${app.rate-preload-concurrency:2}") Integer ratePreloadConcurrency,
+            @Value("${app.base-currency:EUR}") String baseCurrency
+    ) {
+        this.exchangeGateway = exchangeGateway;
+        this.exchangeRateCache = exchangeRateCache;
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.ratePreloadConcurrency = ratePreloadConcurrency;
+        this.baseCurrency = Currency.valueOf(baseCurrency.toUpperCase()).name();
+    }
+
+    @Override
+    public Mono<BigDecimal> getExchangeRate(String fromCurrency, String toCurrency, LocalDate date) {
+        if (fromCurrency.equals(toCurrency)) {
+            return Mono.just(BigDecimal.ONE);
+        }
+        // Only the rates against the base currency are looked up, every cross rate is derived from two of those
+        return Mono.zip(getBaseRate(fromCurrency, date), getBaseRate(toCurrency, date),
+                (fromRate, toRate) -> toRate.divide(fromRate, RATE_CONTEXT));
+    }
+
+    @Override
+    public Mono<Long> loadStoredRates(LocalDate since) {
+        // Only rates quoted against the base currency are ever read from the cache, rows of other bases would just take up room
+        return exchangeRateRepository.findAllByFromCurrencyAndDateGreaterThanEqual(baseCurrency, since.toString())
+                .doOnNext(entity -> exchangeRateCache.put(toKey(entity), entity.getRate()))
+                .count();
+    }
+
+    @Override
+    public Mono<Long> preloadExchangeRates(LocalDate from, LocalDate to) {
+        List<String> quotedCurrencies = Arrays.stream(Currency.values())
+                .map(Currency::name)
+                .filter(currency -> !currency.equals(baseCurrency))
+                .toList();
+        return Flux.fromStream(from.datesUntil(to.plusDays(1)))
+                .flatMap(date -> Flux.fromIterable(quotedCurrencies)
+                        .map(currency -> new RateKey(baseCurrency, currency, date)))
+                // Kept low, the rates of a day go to the same remote API with its own rate limits
+                .flatMap(key -> exchangeRateCache.getRate(key, this::loadExchangeRate)
+                        .onErrorResume(ex -> {
+                            LOG.warn("Couldn't preload the {} -> {} rate of {}: {}", key.fromCurrency(), key.toCurrency(), key.date(), ex.getMessage());
+                            return Mono.empty();
+                        }), ratePreloadConcurrency)
+                .count();
+    }
+
+    private Mono<BigDecimal> getBaseRate(String currency, LocalDate date) {
+        if (currency.equals(baseCurrency)) {
+            return Mono.just(BigDecimal.ONE);
+        }
+        return exchangeRateCache.getRate(new RateKey(baseCurrency, currency, date), this::loadExchangeRate);
+    }
+
+    private Mono<BigDecimal> loadExchangeRate(RateKey key) {
+        if (!exchangeRateCache.isHistorical(key)) {
+            return fetchExchangeRate(key);
+        }
+        return exchangeRateRepository.findByFromCurrencyAndToCurrencyAndDate(key.fromCurrency(), key.toCurrency(), key.date().toString())
+                .map(ExchangeRateEntity::getRate)
+                .switchIfEmpty(Mono.defer(() -> fetchExchangeRate(key)
+                        .flatMap(rate -> storeExchangeRate(key, rate).thenReturn(rate))));
+    }
+
+    private Mono<BigDecimal> fetchExchangeRate(RateKey key) {
+        return exchangeGateway.getExchangeRate(key.fromCurrency(), key.toCurrency(), key.date());
+    }
+
+    private Mono<Void> storeExchangeRate(RateKey key, BigDecimal rate) {
+        ExchangeRateEntity entity = ExchangeRateEntity.builder()
+                .fromCurrency(key.fromCurrency())
+                .toCurrency(key.toCurrency())
+                .date(key.date().toString())
+                .rate(rate)
+                .fetchedAt(Instant.now())
+                .build();
+        return exchangeRateRepository.save(entity)
+                // Another instance fetched the same rate in the meantime
+                .onErrorResume(DuplicateKeyException.class, ex -> Mono.empty())
+                .doOnError(ex -> LOG.warn("Couldn't store the {} -> {} rate of {}: {}", key.fromCurrency(), key.toCurrency(), key.date(), ex.getMessage()))
+                .onErrorResume(ex -> Mono.empty())
+                .then();
+    }
+
+    private RateKey toKey(ExchangeRateEntity entity) {
+        return new RateKey(entity.getFromCurrency(), entity.getToCurrency(), LocalDate.parse(entity.getDate()));
+    }
+}
@@ -2,8 +2,12 @@ package hu.therealuhlarzoltan.expensables.microservices.exchange.services;
 
 import hu.therealuhlarzoltan.expensables.api.microservices.core.exchange.ExchangeRequest;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.exchange.ExchangeResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ExchangeService {
     Mono<ExchangeResponse> exchangeCurrency(ExchangeRequest exchangeRequest);
+    Flux<ExchangeResponse> exchangeCurrencies(List<ExchangeRequest> exchangeRequests);
 }
@@ -2,21 +2,79 @@ package hu.therealuhlarzoltan.expensables.microservices.exchange.services;
 
 import hu.therealuhlarzoltan.expensables.api.microservices.core.exchange.ExchangeRequest;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.exchange.ExchangeResponse;
-import hu.therealuhlarzoltan.expensables.microservices.exchange.components.ExchangeGateway;
-import io.github.cdimascio.dotenv.Dotenv;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.components.ExchangeRateCache.RateKey;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 public class ExchangeServiceImpl implements ExchangeService {
-    private final ExchangeGateway exchangeGateway;
+    private final ExchangeRateService exchangeRateService;
 
     @Override
     public Mono<ExchangeResponse> exchangeCurrency(ExchangeRequest exchangeRequest) {
-        return exchangeGateway.exchangeCurrency(exchangeRequest.getFromCurrency(), exchangeRequest.getToCurrency(), exchangeRequest.getAmount(), exchangeRequest.getExchangeDate());
+        ExchangeRequest request = normalize(exchangeRequest);
+        return getExchangeRate(toRateKey(request))
+                .map(rate -> toResponse(request, rate));
+    }
+
+    @Override
+    public Flux<ExchangeResponse> exchangeCurrencies(List<ExchangeRequest> exchangeRequests) {
+        // Requests of the same pair and day share a single rate lookup, the mapping below runs one request at a time
+        Map<RateKey, Mono<BigDecimal>> rates = new HashMap<>();
+        return Flux.fromIterable(exchangeRequests)
+                .map(this::normalize)
+                .flatMapSequential(request -> rates.computeIfAbsent(toRateKey(request), key -> getExchangeRate(key).cache())
+                        .map(rate -> toResponse(request, rate)));
+    }
+
+    private Mono<BigDecimal> getExchangeRate(RateKey key) {
+        return exchangeRateService.getExchangeRate(key.fromCurrency(), key.toCurrency(), key.date());
+    }
+
+    private ExchangeRequest normalize(ExchangeRequest exchangeRequest) {
+        return ExchangeRequest.builder()
+                .fromCurrency(exchangeRequest.getFromCurrency().toUpperCase())
+                .toCurrency(exchangeRequest.getToCurrency().toUpperCase())
+                .amount(exchangeRequest.getAmount())
+                .exchangeDate(exchangeRequest.getExchangeDate() != null ? exchangeRequest.getExchangeDate() : ZonedDateTime.now(ZoneOffset.UTC))
+                .build();
+    }
+
+    private RateKey toRateKey(ExchangeRequest request) {
+        return new RateKey(request.getFromCurrency(), request.getToCurrency(), request.getExchangeDate().toLocalDate());
+    }
+
+    private BigDecimal round(BigDecimal amount, String currencyCode) {
+        // Rounded to the minor unit of the target currency, codes without one are left as they are
+        int fractionDigits;
+        try {
+            fractionDigits = Currency.getInstance(currencyCode).getDefaultFractionDigits();
+        } catch (IllegalArgumentException e) {
+            return amount;
+        }
+        return fractionDigits < 0 ? amount : amount.setScale(fractionDigits, RoundingMode.HALF_EVEN);
+    }
+
+    private ExchangeResponse toResponse(ExchangeRequest request, BigDecimal rate) {
+        return ExchangeResponse.builder()
+                .fromCurrency(request.getFromCurrency())
+                .toCurrency(request.getToCurrency())
+                .exchangeRate(rate)
+                .amount(request.getAmount())
+                .result(round(request.getAmount().multiply(rate), request.getToCurrency()))
+                .exchangeDate(request.getExchangeDate())
+                .build();
     }
 }
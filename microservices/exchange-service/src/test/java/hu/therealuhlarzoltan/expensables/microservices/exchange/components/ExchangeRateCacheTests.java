@@ -0,0 +1,141 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.components;
+
+import hu.therealuhlarzoltan.expensables.microservices.exchange.components.ExchangeRateCache.RateKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExchangeRateCacheTests {
+    // Still the evening of the 13th in New York
+    private static final Instant NOW = Instant.parse("2024-08-14T00:30:00Z");
+    private static final LocalDate TODAY = LocalDate.of(2024, 8, 14);
+    private static final LocalDate YESTERDAY = TODAY.minusDays(1);
+
+    private MutableClock clock;
+    private ExchangeRateCache cache;
+    private AtomicInteger lookups;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        cache = new ExchangeRateCache(2, 10, Duration.ofMinutes(10), clock);
+        lookups = new AtomicInteger();
+    }
+
+    @Test
+    void daysAreSplitByTheUtcDate() {
+        assertTrue(cache.isHistorical(key("EUR", "USD", YESTERDAY)));
+        assertFalse(cache.isHistorical(key("EUR", "USD", TODAY)));
+        assertFalse(cache.isHistorical(key("EUR", "USD", TODAY.plusDays(1))));
+    }
+
+    @Test
+    void historicalRatesStayUntilTheyAreTheLeastRecentlyUsed() {
+        cache.put(key("EUR", "USD", YESTERDAY), new BigDecimal("1.1"));
+        cache.put(key("EUR", "GBP", YESTERDAY), new BigDecimal("0.85"));
+        clock.advance(Duration.ofDays(30));
+        // Using the first rate makes the second one the least recently used
+        assertEquals(new BigDecimal("1.1"), getRate(key("EUR", "USD", YESTERDAY), "9"));
+
+        cache.put(key("EUR", "HUF", YESTERDAY), new BigDecimal("395"));
+
+        assertEquals(new BigDecimal("1.1"), getRate(key("EUR", "USD", YESTERDAY), "9"));
+        assertEquals(new BigDecimal("9"), getRate(key("EUR", "GBP", YESTERDAY), "9"));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void todaysRatesExpire() {
+        cache.put(key("EUR", "USD", TODAY), new BigDecimal("1.1"));
+
+        clock.advance(Duration.ofMinutes(9));
+        assertEquals(new BigDecimal("1.1"), getRate(key("EUR", "USD", TODAY), "1.2"));
+
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(new BigDecimal("1.2"), getRate(key("EUR", "USD", TODAY), "1.3"));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void concurrentMissesShareOneLookup() {
+        Sinks.One<BigDecimal> remoteRate = Sinks.one();
+        RateKey key = key("EUR", "USD", YESTERDAY);
+        List<Mono<BigDecimal>> rates = List.of(
+                cache.getRate(key, countedLookup(remoteRate)),
+                cache.getRate(key, countedLookup(remoteRate)),
+                cache.getRate(key, countedLookup(remoteRate))
+        );
+        Mono<List<BigDecimal>> results = Flux.merge(rates).collectList().cache();
+        results.subscribe();
+
+        remoteRate.tryEmitValue(new BigDecimal("1.1"));
+
+        assertEquals(List.of(new BigDecimal("1.1"), new BigDecimal("1.1"), new BigDecimal("1.1")), results.block(Duration.ofSeconds(5)));
+        assertEquals(1, lookups.get());
+        // Once the lookup finished, the rate is served from the cache
+        assertEquals(new BigDecimal("1.1"), getRate(key, "9"));
+        assertEquals(1, lookups.get());
+    }
+
+    private BigDecimal getRate(RateKey key, String remoteRate) {
+        return cache.getRate(key, missingKey -> {
+            lookups.incrementAndGet();
+            return Mono.just(new BigDecimal(remoteRate));
+        }).block(Duration.ofSeconds(5));
+    }
+
+    private Function<RateKey, Mono<BigDecimal>> countedLookup(Sinks.One<BigDecimal> remoteRate) {
+        return missingKey -> {
+            lookups.incrementAndGet();
+            return remoteRate.asMono();
+        };
+    }
+
+    private static RateKey key(String fromCurrency, String toCurrency, LocalDate date) {
+        return new RateKey(fromCurrency, toCurrency, date);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
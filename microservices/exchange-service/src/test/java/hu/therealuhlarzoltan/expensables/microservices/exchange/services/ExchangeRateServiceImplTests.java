@@ -0,0 +1,112 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.services;
+
+import hu.therealuhlarzoltan.expensables.microservices.exchange.components.ExchangeGateway;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.components.ExchangeRateCache;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.models.ExchangeRateEntity;
+import hu.therealuhlarzoltan.expensables.microservices.exchange.repositories.ExchangeRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExchangeRateServiceImplTests {
+    private static final LocalDate TODAY = LocalDate.of(2024, 8, 14);
+    private static final LocalDate LAST_WEEK = TODAY.minusWeeks(1);
+
+    private ExchangeGateway exchangeGateway;
+    private ExchangeRateRepository exchangeRateRepository;
+    private ExchangeRateServiceImpl exchangeRateService;
+
+    @BeforeEach
+    void setUp() {
+        exchangeGateway = mock(ExchangeGateway.class);
+        exchangeRateRepository = mock(ExchangeRateRepository.class);
+        Clock clock = Clock.fixed(Instant.parse("2024-08-14T12:00:00Z"), ZoneOffset.UTC);
+        ExchangeRateCache exchangeRateCache = new ExchangeRateCache(100, 100, Duration.ofMinutes(10), clock);
+        exchangeRateService = new ExchangeRateServiceImpl(exchangeGateway, exchangeRateCache, exchangeRateRepository, 2, "EUR");
+        // Today's rates come straight from the remote API
+        when(exchangeGateway.getExchangeRate("EUR", "USD", TODAY)).thenReturn(Mono.just(new BigDecimal("1.1")));
+        when(exchangeGateway.getExchangeRate("EUR", "HUF", TODAY)).thenReturn(Mono.just(new BigDecimal("395.5")));
+        when(exchangeGateway.getExchangeRate("EUR", "JPY", TODAY)).thenReturn(Mono.just(new BigDecimal("161.5")));
+    }
+
+    @Test
+    void baseToQuoteIsTheQuotedRate() {
+        StepVerifier.create(exchangeRateService.getExchangeRate("EUR", "USD", TODAY))
+                .expectNext(new BigDecimal("1.1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void quoteToBaseIsTheInverseRoundedToTwelveDigits() {
+        StepVerifier.create(exchangeRateService.getExchangeRate("USD", "EUR", TODAY))
+                .expectNext(new BigDecimal("0.909090909091"))
+                .verifyComplete();
+    }
+
+    @Test
+    void crossRatesAreDerivedFromTheBaseRates() {
+        StepVerifier.create(exchangeRateService.getExchangeRate("USD", "HUF", TODAY))
+                .expectNext(new BigDecimal("359.545454545"))
+                .verifyComplete();
+        StepVerifier.create(exchangeRateService.getExchangeRate("HUF", "JPY", TODAY))
+                .expectNext(new BigDecimal("0.408343868521"))
+                .verifyComplete();
+
+        // Each base rate is looked up once, whichever pairs it was needed for
+        verify(exchangeGateway, times(1)).getExchangeRate("EUR", "USD", TODAY);
+        verify(exchangeGateway, times(1)).getExchangeRate("EUR", "HUF", TODAY);
+        verify(exchangeGateway, times(1)).getExchangeRate("EUR", "JPY", TODAY);
+    }
+
+    @Test
+    void sameCurrencyNeedsNoLookup() {
+        StepVerifier.create(exchangeRateService.getExchangeRate("HUF", "HUF", TODAY))
+                .expectNext(BigDecimal.ONE)
+                .verifyComplete();
+
+        verify(exchangeGateway, never()).getExchangeRate(anyString(), anyString(), any(LocalDate.class));
+    }
+
+    @Test
+    void storedRatesOfTheBaseCurrencyWarmUpTheCache() {
+        when(exchangeRateRepository.findAllByFromCurrencyAndDateGreaterThanEqual("EUR", LAST_WEEK.toString()))
+                .thenReturn(Flux.just(storedRate("EUR", "USD", LAST_WEEK, "1.09")));
+
+        StepVerifier.create(exchangeRateService.loadStoredRates(LAST_WEEK))
+                .expectNext(1L)
+                .verifyComplete();
+        StepVerifier.create(exchangeRateService.getExchangeRate("USD", "EUR", LAST_WEEK))
+                .expectNext(new BigDecimal("0.917431192661"))
+                .verifyComplete();
+
+        verify(exchangeRateRepository, never()).findByFromCurrencyAndToCurrencyAndDate(anyString(), anyString(), anyString());
+        verify(exchangeGateway, never()).getExchangeRate(anyString(), anyString(), any(LocalDate.class));
+    }
+
+    private static ExchangeRateEntity storedRate(String fromCurrency, String toCurrency, LocalDate date, String rate) {
+        return ExchangeRateEntity.builder()
+                .fromCurrency(fromCurrency)
+                .toCurrency(toCurrency)
+                .date(date.toString())
+                .rate(new BigDecimal(rate))
+                .fetchedAt(Instant.parse("2024-08-07T12:00:00Z"))
+                .build();
+    }
+}
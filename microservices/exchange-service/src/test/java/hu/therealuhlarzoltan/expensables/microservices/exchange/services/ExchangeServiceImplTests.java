@@ -0,0 +1,105 @@
+package hu.therealuhlarzoltan.expensables.microservices.exchange.services;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.core.exchange.ExchangeRequest;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.exchange.ExchangeResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExchangeServiceImplTests {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 8, 13);
+    private static final LocalDate SECOND_DAY = LocalDate.of(2024, 8, 14);
+
+    private ExchangeRateService exchangeRateService;
+    private ExchangeServiceImpl exchangeService;
+
+    @BeforeEach
+    void setUp() {
+        exchangeRateService = mock(ExchangeRateService.class);
+        exchangeService = new ExchangeServiceImpl(exchangeRateService);
+        // The first pair answers last, so the responses only come back in order if the service keeps it
+        when(exchangeRateService.getExchangeRate("EUR", "USD", FIRST_DAY))
+                .thenReturn(Mono.just(new BigDecimal("1.1")).delayElement(Duration.ofMillis(100)));
+        when(exchangeRateService.getExchangeRate("EUR", "USD", SECOND_DAY))
+                .thenReturn(Mono.just(new BigDecimal("1.2")));
+        when(exchangeRateService.getExchangeRate("USD", "EUR", FIRST_DAY))
+                .thenReturn(Mono.just(new BigDecimal("0.9")));
+    }
+
+    @Test
+    void exchangeCurrenciesKeepsTheRequestOrder() {
+        List<ExchangeRequest> requests = List.of(
+                request("EUR", "USD", "10", FIRST_DAY),
+                request("USD", "EUR", "20", FIRST_DAY),
+                request("EUR", "USD", "30", SECOND_DAY),
+                request("eur", "usd", "40", FIRST_DAY)
+        );
+
+        StepVerifier.create(exchangeService.exchangeCurrencies(requests).map(ExchangeResponse::getAmount))
+                .expectNext(new BigDecimal("10"), new BigDecimal("20"), new BigDecimal("30"), new BigDecimal("40"))
+                .verifyComplete();
+    }
+
+    @Test
+    void exchangeCurrenciesLooksUpEachPairAndDayOnce() {
+        List<ExchangeRequest> requests = List.of(
+                request("EUR", "USD", "10", FIRST_DAY),
+                request("EUR", "USD", "20", FIRST_DAY),
+                request("USD", "EUR", "30", FIRST_DAY),
+                request("eur", "usd", "40", FIRST_DAY),
+                request("EUR", "USD", "50", SECOND_DAY)
+        );
+
+        List<ExchangeResponse> responses = exchangeService.exchangeCurrencies(requests).collectList().block();
+
+        assertEquals(5, responses.size());
+        assertEquals(0, new BigDecimal("44").compareTo(responses.get(3).getResult()));
+        verify(exchangeRateService, times(1)).getExchangeRate("EUR", "USD", FIRST_DAY);
+        verify(exchangeRateService, times(1)).getExchangeRate("USD", "EUR", FIRST_DAY);
+        verify(exchangeRateService, times(1)).getExchangeRate("EUR", "USD", SECOND_DAY);
+        verify(exchangeRateService, times(3)).getExchangeRate(anyString(), anyString(), any(LocalDate.class));
+    }
+
+    @Test
+    void resultsAreRoundedToTheMinorUnitOfTheTargetCurrency() {
+        when(exchangeRateService.getExchangeRate("EUR", "HUF", FIRST_DAY)).thenReturn(Mono.just(new BigDecimal("395.125")));
+        when(exchangeRateService.getExchangeRate("HUF", "EUR", FIRST_DAY)).thenReturn(Mono.just(new BigDecimal("0.002530845")));
+        when(exchangeRateService.getExchangeRate("EUR", "JPY", FIRST_DAY)).thenReturn(Mono.just(new BigDecimal("161.5")));
+        List<ExchangeRequest> requests = List.of(
+                request("EUR", "HUF", "1", FIRST_DAY),
+                request("HUF", "EUR", "1000", FIRST_DAY),
+                request("EUR", "JPY", "1", FIRST_DAY),
+                request("EUR", "JPY", "3", FIRST_DAY)
+        );
+
+        StepVerifier.create(exchangeService.exchangeCurrencies(requests).map(ExchangeResponse::getResult))
+                // Ties go to the even neighbour
+                .expectNext(new BigDecimal("395.12"), new BigDecimal("2.53"), new BigDecimal("162"), new BigDecimal("484"))
+                .verifyComplete();
+    }
+
+    private static ExchangeRequest request(String fromCurrency, String toCurrency, String amount, LocalDate date) {
+        return ExchangeRequest.builder()
+                .fromCurrency(fromCurrency)
+                .toCurrency(toCurrency)
+                .amount(new BigDecimal(amount))
+                .exchangeDate(ZonedDateTime.of(date.atTime(12, 0), ZoneOffset.UTC))
+                .build();
+    }
+}
@@ -16,6 +16,8 @@ import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexRes
 import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
 import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
 import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {"hu.therealuhlarzoltan"})
@@ -40,12 +42,22 @@ public class ExpenseServiceApplication {
 
     @EventListener(ContextRefreshedEvent.class)
     public void initIndicesAfterStartup() {
+        // Not waited for, the finders just scan the collection until the indices are built
+        ensureIndices().subscribe(
+                null,
+                ex -> LOG.error("Failed to create the indices of the expense_records collection: {}", ex.getMessage()),
+                () -> LOG.info("Indices of the expense_records collection are in place")
+        );
+    }
 
+    public Mono<Void> ensureIndices() {
         MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext = mongoTemplate.getConverter().getMappingContext();
         IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
 
         ReactiveIndexOperations indexOps = mongoTemplate.indexOps(ExpenseRecordEntity.class);
-        resolver.resolveIndexFor(ExpenseRecordEntity.class).forEach(e -> indexOps.ensureIndex(e).block());
+        return Flux.fromIterable(resolver.resolveIndexFor(ExpenseRecordEntity.class))
+                .concatMap(indexOps::ensureIndex)
+                .then();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package hu.therealuhlarzoltan.expensables.microservices.expense.components.callbacks;
+
+import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseRecordEntity;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.ZoneId;
+
+/**
+ * Keeps the zone of the timestamp next to it, as a BSON date only holds the instant.
+ */
+@Component
+public class ExpenseRecordTimestampCallback implements ReactiveBeforeConvertCallback<ExpenseRecordEntity>, ReactiveAfterConvertCallback<ExpenseRecordEntity> {
+
+    @Override
+    public Publisher<ExpenseRecordEntity> onBeforeConvert(ExpenseRecordEntity entity, String collection) {
+        if (entity.getTimestamp() != null) {
+            entity.setTimestampZone(entity.getTimestamp().getZone().getId());
+        }
+        return Mono.just(entity);
+    }
+
+    @Override
+    public Publisher<ExpenseRecordEntity> onAfterConvert(ExpenseRecordEntity entity, Document document, String collection) {
+        // Timestamps still stored as strings carry their zone already
+        if (entity.getTimestamp() != null && entity.getTimestampZone() != null) {
+            entity.setTimestamp(entity.getTimestamp().withZoneSameInstant(ZoneId.of(entity.getTimestampZone())));
+        }
+        return Mono.just(entity);
+    }
+}
@@ -0,0 +1,18 @@
+package hu.therealuhlarzoltan.expensables.microservices.expense.components.converters;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+@Component
+public class ZonedDateTimeToDateConverter implements Converter<ZonedDateTime, Date> {
+
+    @Override
+    public Date convert(@NonNull ZonedDateTime source) {
+        // Only the instant is kept, the zone is stored in a field of its own
+        return Date.from(source.toInstant());
+    }
+}
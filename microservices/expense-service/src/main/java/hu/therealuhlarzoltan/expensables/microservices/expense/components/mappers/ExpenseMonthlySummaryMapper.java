@@ -0,0 +1,22 @@
+package hu.therealuhlarzoltan.expensables.microservices.expense.components.mappers;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseMonthlySummary;
+import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseMonthlyTotal;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+
+@Mapper(componentModel = "spring", uses = {ExpenseCategoryMapper.class, ExpenseSubCategoryMapper.class})
+public interface ExpenseMonthlySummaryMapper {
+
+    @Mappings({
+            @Mapping(source = "accountId", target = "accountId"),
+            @Mapping(source = "month", target = "month"),
+            @Mapping(source = "currency", target = "currency"),
+            @Mapping(source = "totalAmount", target = "totalAmount"),
+            @Mapping(source = "count", target = "expenseCount"),
+            @Mapping(source = "subCategory", target = "expenseSubCategory", qualifiedByName = "mapSubCategoryToString"),
+            @Mapping(source = "category", target = "expenseCategory", qualifiedByName = "mapExpenseCategoryToString")
+    })
+    ExpenseMonthlySummary monthlyTotalToSummary(ExpenseMonthlyTotal monthlyTotal);
+}
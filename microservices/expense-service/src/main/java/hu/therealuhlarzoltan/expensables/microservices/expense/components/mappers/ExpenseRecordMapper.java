@@ -19,6 +19,7 @@ public interface ExpenseRecordMapper {
             @Mapping(source = "name", target = "expenseName"),
             @Mapping(source = "version", target = "version"),
             @Mapping(source = "timestamp", target = "expenseDate"),
+            @Mapping(target = "cursor", ignore = true),
             @Mapping(source = "subCategory", target = "expenseSubCategory", qualifiedByName = "mapSubCategoryToString"),
             @Mapping(source = "category", target = "expenseCategory", qualifiedByName = "mapExpenseCategoryToString")
     })
@@ -32,6 +33,7 @@ public interface ExpenseRecordMapper {
             @Mapping(source = "expenseName", target = "name"),
             @Mapping(source = "version", target = "version"),
             @Mapping(source = "expenseDate", target = "timestamp"),
+            @Mapping(target = "timestampZone", ignore = true),
             @Mapping(source = "expenseCategory", target = "category", qualifiedByName = "mapStringToExpenseCategory"),
             @Mapping(source = "expenseSubCategory", target = "subCategory", qualifiedByName = "mapStringToSubCategory")
     })
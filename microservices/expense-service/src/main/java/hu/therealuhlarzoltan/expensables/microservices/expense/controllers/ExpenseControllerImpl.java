@@ -1,6 +1,7 @@
 package hu.therealuhlarzoltan.expensables.microservices.expense.controllers;
 
 import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseController;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseMonthlySummary;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseRecord;
 import hu.therealuhlarzoltan.expensables.microservices.expense.components.mappers.ExpenseRecordMapper;
 import hu.therealuhlarzoltan.expensables.microservices.expense.services.ExpenseService;
@@ -12,6 +13,8 @@ import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 @RestController
 @RequiredArgsConstructor
 public class ExpenseControllerImpl implements ExpenseController {
@@ -33,9 +36,15 @@ public class ExpenseControllerImpl implements ExpenseController {
     }
 
     @Override
-    public Flux<ExpenseRecord> getExpensesByAccount(String accountId) {
-        LOG.info("Received a GET request for expenses with account id: {}", accountId);
-        return service.getExpensesByAccount(accountId);
+    public Flux<ExpenseRecord> getExpensesByAccount(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
+        LOG.info("Received a GET request for expenses with account id: {}, from: {}, to: {}, cursor: {}, limit: {}", accountId, from, to, cursor, limit);
+        return service.getExpensesByAccount(accountId, from, to, cursor, limit);
+    }
+
+    @Override
+    public Flux<ExpenseMonthlySummary> getMonthlyExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String zone) {
+        LOG.info("Received a GET request for the monthly expenses of account with id: {}, from: {}, to: {}, zone: {}", accountId, from, to, zone);
+        return service.getMonthlyExpenses(accountId, from, to, zone);
     }
 
     @Override
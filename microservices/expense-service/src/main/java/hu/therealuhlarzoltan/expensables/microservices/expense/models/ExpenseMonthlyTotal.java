@@ -0,0 +1,21 @@
+package hu.therealuhlarzoltan.expensables.microservices.expense.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// A row of the monthly aggregation in ExpenseRepository, not stored anywhere
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExpenseMonthlyTotal {
+    private String accountId;
+    private String month;
+    private String category;
+    private String subCategory;
+    private String currency;
+    private BigDecimal totalAmount;
+    private Long count;
+}
@@ -1,14 +1,37 @@
 package hu.therealuhlarzoltan.expensables.microservices.expense.repositories;
 
+import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseMonthlyTotal;
 import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseRecordEntity;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 @Repository
 public interface ExpenseRepository extends ReactiveCrudRepository<ExpenseRecordEntity, String> {
     Flux<ExpenseRecordEntity> findAllByUserId(Long userId);
     Flux<ExpenseRecordEntity> findAllByAccountId(String accountId);
+    Flux<ExpenseRecordEntity> findAllByAccountId(String accountId, Sort sort, Limit limit);
+    // From inclusive, to exclusive, served by the account_timestamp_id index
+    @Query("{ 'accountId': ?0, 'timestamp': { $gte: ?1, $lt: ?2 } }")
+    Flux<ExpenseRecordEntity> findAllByAccountIdInRange(String accountId, ZonedDateTime from, ZonedDateTime to, Sort sort, Limit limit);
+    // The records after the cursor when ordered by timestamp and id descending
+    @Query("{ 'accountId': ?0, 'timestamp': { $gte: ?1 }, $or: [ { 'timestamp': { $lt: ?2 } }, { 'timestamp': ?2, '_id': { $lt: ?3 } } ] }")
+    Flux<ExpenseRecordEntity> findAllByAccountIdAfterCursor(String accountId, ZonedDateTime from, ZonedDateTime cursorTimestamp, ObjectId cursorId, Sort sort, Limit limit);
+    // Amounts are stored as strings, hence the $toDecimal, the months are calendar months in the given zone
+    @Aggregation(pipeline = {
+            "{ $match: { 'accountId': ?0, 'timestamp': { $gte: ?1, $lt: ?2 } } }",
+            "{ $group: { _id: { accountId: '$accountId', month: { $dateToString: { format: '%Y-%m', date: '$timestamp', timezone: ?3 } }, category: '$category', subCategory: '$subCategory', currency: '$currency' }, totalAmount: { $sum: { $toDecimal: '$amount' } }, count: { $sum: 1 } } }",
+            "{ $project: { _id: 0, accountId: '$_id.accountId', month: '$_id.month', category: '$_id.category', subCategory: '$_id.subCategory', currency: '$_id.currency', totalAmount: 1, count: 1 } }",
+            "{ $sort: { month: -1, category: 1, subCategory: 1, currency: 1 } }"
+    })
+    Flux<ExpenseMonthlyTotal> aggregateMonthlyTotals(String accountId, ZonedDateTime from, ZonedDateTime to, String zone);
     Mono<Void> deleteAllByAccountId(String accountId);
 }
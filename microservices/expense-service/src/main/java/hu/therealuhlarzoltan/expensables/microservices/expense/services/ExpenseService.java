@@ -1,5 +1,6 @@
 package hu.therealuhlarzoltan.expensables.microservices.expense.services;
 
+import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseMonthlySummary;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseRecord;
 import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseRecordEntity;
 import jakarta.validation.Valid;
@@ -7,11 +8,14 @@ import org.springframework.validation.annotation.Validated;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 @Validated
 public interface ExpenseService {
     Flux<ExpenseRecord> getAllExpenses();
     Mono<ExpenseRecord> getExpense(String recordId);
-    Flux<ExpenseRecord> getExpensesByAccount(String accountId);
+    Flux<ExpenseRecord> getExpensesByAccount(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit);
+    Flux<ExpenseMonthlySummary> getMonthlyExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String zone);
     Mono<ExpenseRecord> createExpense(@Valid ExpenseRecordEntity expenseRecord);
     Mono<ExpenseRecord> updateExpense(@Valid ExpenseRecordEntity expenseRecord);
     Mono<Void> deleteExpense(String recordId);
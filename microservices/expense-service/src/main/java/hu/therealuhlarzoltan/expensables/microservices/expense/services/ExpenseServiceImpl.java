@@ -1,23 +1,32 @@
 package hu.therealuhlarzoltan.expensables.microservices.expense.services;
 
 import com.mongodb.DuplicateKeyException;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseMonthlySummary;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseRecord;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.InvalidInputDataException;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundException;
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.mappers.ExpenseMonthlySummaryMapper;
 import hu.therealuhlarzoltan.expensables.microservices.expense.components.mappers.ExpenseRecordMapper;
 import hu.therealuhlarzoltan.expensables.microservices.expense.components.validators.SameExpenseCategoryValidator;
 import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseCategory;
 import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseRecordEntity;
 import hu.therealuhlarzoltan.expensables.microservices.expense.repositories.ExpenseRepository;
+import hu.therealuhlarzoltan.expensables.util.RecordCursor;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
 @Service
@@ -25,11 +34,19 @@ import java.time.ZonedDateTime;
 @RequiredArgsConstructor
 public class ExpenseServiceImpl  implements ExpenseService {
     private static final Logger LOG = LoggerFactory.getLogger(ExpenseServiceImpl.class);
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp", "id");
+    private static final ZonedDateTime EARLIEST = ZonedDateTime.of(1, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime LATEST = ZonedDateTime.of(9999, 12, 31, 23, 59, 59, 0, ZoneOffset.UTC);
 
     private final ExpenseRecordMapper mapper;
+    private final ExpenseMonthlySummaryMapper summaryMapper;
     private final SameExpenseCategoryValidator categoryValidator;
     private final ExpenseRepository expenseRepository;
 
+    // ISO strings only order correctly while they share an offset, and keep more precision than a cursor
+    @Value("${app.timestampStorage:date}")
+    private String timestampStorage;
+
     @Override
     public Flux<ExpenseRecord> getAllExpenses() {
         LOG.info("Will retrieve all expense records");
@@ -45,9 +62,52 @@ public class ExpenseServiceImpl  implements ExpenseService {
     }
 
     @Override
-    public Flux<ExpenseRecord> getExpensesByAccount(String accountId) {
+    public Flux<ExpenseRecord> getExpensesByAccount(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
         LOG.info("Will retrieve all expense records for account with id: {}", accountId);
-        return expenseRepository.findAllByAccountId(accountId).map(mapper::entityToExpenseRecord);
+        Limit pageLimit = limit != null ? Limit.of(limit) : Limit.unlimited();
+        if (storesTimestampsAsStrings() && (from != null || to != null || cursor != null)) {
+            return Flux.error(new InvalidInputDataException("Time ranges and cursors need timestamps stored as dates"));
+        }
+        Flux<ExpenseRecordEntity> records;
+        if (cursor != null) {
+            RecordCursor position;
+            try {
+                position = RecordCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return Flux.error(new InvalidInputDataException("Invalid cursor: " + cursor));
+            }
+            // The cursor carries the timestamp and id of the last record, so the page is read straight off the index
+            records = expenseRepository.findAllByAccountIdAfterCursor(accountId, from != null ? from : EARLIEST, position.timestampInUtc(), position.id(), NEWEST_FIRST, pageLimit);
+        } else if (from != null || to != null) {
+            records = expenseRepository.findAllByAccountIdInRange(accountId, from != null ? from : EARLIEST, to != null ? to : LATEST, NEWEST_FIRST, pageLimit);
+        } else {
+            records = expenseRepository.findAllByAccountId(accountId, NEWEST_FIRST, pageLimit);
+        }
+        return records.map(entity -> {
+            ExpenseRecord record = mapper.entityToExpenseRecord(entity);
+            if (!storesTimestampsAsStrings()) {
+                record.setCursor(RecordCursor.of(entity.getTimestamp(), entity.getId()).encode());
+            }
+            return record;
+        });
+    }
+
+    @Override
+    public Flux<ExpenseMonthlySummary> getMonthlyExpenses(String accountId, ZonedDateTime from, ZonedDateTime to, String zone) {
+        LOG.info("Will aggregate the expense records of account with id: {} by month in zone: {}", accountId, zone);
+        if (storesTimestampsAsStrings()) {
+            return Flux.error(new InvalidInputDataException("Monthly summaries need timestamps stored as dates"));
+        }
+        ZoneId zoneId;
+        try {
+            zoneId = ZoneId.of(zone).normalized();
+        } catch (DateTimeException e) {
+            return Flux.error(new InvalidInputDataException("Invalid zone: " + zone));
+        }
+        // Mongo takes region ids and +hh:mm offsets, but not Z
+        String monthZone = ZoneOffset.UTC.equals(zoneId) ? "UTC" : zoneId.getId();
+        return expenseRepository.aggregateMonthlyTotals(accountId, from != null ? from : EARLIEST, to != null ? to : LATEST, monthZone)
+                .map(summaryMapper::monthlyTotalToSummary);
     }
 
     @Override
@@ -95,4 +155,8 @@ public class ExpenseServiceImpl  implements ExpenseService {
         LOG.info("Will delete all expense records for account with id: {}", accountId);
         return expenseRepository.deleteAllByAccountId(accountId);
     }
+
+    private boolean storesTimestampsAsStrings() {
+        return "string".equalsIgnoreCase(timestampStorage);
+    }
 }
@@ -0,0 +1,92 @@
+package hu.therealuhlarzoltan.expensables.microservices.expense;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.core.expense.ExpenseRecord;
+import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseRecordEntity;
+import hu.therealuhlarzoltan.expensables.microservices.expense.repositories.ExpenseRepository;
+import hu.therealuhlarzoltan.expensables.microservices.expense.services.ExpenseService;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "spring.profiles.active=default",
+        "spring.data.mongodb.host=localhost"
+})
+class ExpensePagingTests {
+    private static final ZonedDateTime LATER = ZonedDateTime.of(2024, 8, 14, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime EARLIER = LATER.minusDays(1);
+
+    @Autowired
+    private ExpenseRepository repository;
+
+    @Autowired
+    private ExpenseService service;
+
+    private final String accountId = UUID.randomUUID().toString();
+
+    @AfterEach
+    void deleteRecords() {
+        repository.deleteAllByAccountId(accountId).block();
+    }
+
+    @Test
+    void pagesThroughRecordsSharingATimestamp() {
+        // Ids grow with creation, so newest first means descending ids within a timestamp
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(new ObjectId().toHexString());
+        }
+        repository.saveAll(List.of(
+                expense(ids.get(0), EARLIER),
+                expense(ids.get(1), LATER),
+                expense(ids.get(2), LATER),
+                expense(ids.get(3), LATER),
+                expense(ids.get(4), EARLIER)
+        )).blockLast();
+
+        List<String> pagedIds = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        while (true) {
+            List<ExpenseRecord> page = service.getExpensesByAccount(accountId, null, null, cursor, 2).collectList().block();
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            assertTrue(page.size() <= 2);
+            page.forEach(record -> pagedIds.add(record.getRecordId()));
+            cursor = page.getLast().getCursor();
+            pages++;
+        }
+
+        assertEquals(List.of(ids.get(3), ids.get(2), ids.get(1), ids.get(4), ids.get(0)), pagedIds);
+        assertEquals(3, pages);
+    }
+
+    private ExpenseRecordEntity expense(String id, ZonedDateTime timestamp) {
+        ExpenseRecordEntity entity = new ExpenseRecordEntity();
+        entity.setId(id);
+        entity.setUserId(1L);
+        entity.setAccountId(accountId);
+        entity.setName("Groceries");
+        entity.setCategory("FOODS_AND_DRINKS");
+        entity.setSubCategory("GROCERIES");
+        entity.setAmount(new BigDecimal("10"));
+        entity.setCurrency("EUR");
+        entity.setTimestamp(timestamp);
+        return entity;
+    }
+}
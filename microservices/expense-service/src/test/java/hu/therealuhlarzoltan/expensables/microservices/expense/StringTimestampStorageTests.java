@@ -0,0 +1,88 @@
+package hu.therealuhlarzoltan.expensables.microservices.expense;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.InvalidInputDataException;
+import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseRecordEntity;
+import hu.therealuhlarzoltan.expensables.microservices.expense.repositories.ExpenseRepository;
+import hu.therealuhlarzoltan.expensables.microservices.expense.services.ExpenseService;
+import hu.therealuhlarzoltan.expensables.util.RecordCursor;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "spring.profiles.active=default",
+        "spring.data.mongodb.host=localhost",
+        "app.timestampStorage=string"
+})
+class StringTimestampStorageTests {
+    private static final ZonedDateTime TIMESTAMP = ZonedDateTime.of(2024, 8, 14, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private ExpenseRepository repository;
+
+    @Autowired
+    private ExpenseService service;
+
+    private final String accountId = UUID.randomUUID().toString();
+
+    @AfterEach
+    void deleteRecords() {
+        repository.deleteAllByAccountId(accountId).block();
+    }
+
+    @Test
+    void recordsAreListedWithoutACursor() {
+        repository.save(expense()).block();
+
+        StepVerifier.create(service.getExpensesByAccount(accountId, null, null, null, null))
+                .expectNextMatches(record -> record.getCursor() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    void timeRangesAreRejected() {
+        StepVerifier.create(service.getExpensesByAccount(accountId, TIMESTAMP.minusDays(1), null, null, null))
+                .verifyError(InvalidInputDataException.class);
+        StepVerifier.create(service.getExpensesByAccount(accountId, null, TIMESTAMP, null, null))
+                .verifyError(InvalidInputDataException.class);
+    }
+
+    @Test
+    void cursorsAreRejected() {
+        String cursor = RecordCursor.of(TIMESTAMP, new ObjectId().toHexString()).encode();
+
+        StepVerifier.create(service.getExpensesByAccount(accountId, null, null, cursor, 10))
+                .verifyError(InvalidInputDataException.class);
+    }
+
+    @Test
+    void monthlySummariesAreRejected() {
+        StepVerifier.create(service.getMonthlyExpenses(accountId, null, null, "UTC"))
+                .verifyError(InvalidInputDataException.class);
+    }
+
+    private ExpenseRecordEntity expense() {
+        ExpenseRecordEntity entity = new ExpenseRecordEntity();
+        entity.setId(new ObjectId().toHexString());
+        entity.setUserId(1L);
+        entity.setAccountId(accountId);
+        entity.setName("Groceries");
+        entity.setCategory("FOODS_AND_DRINKS");
+        entity.setSubCategory("GROCERIES");
+        entity.setAmount(new BigDecimal("10"));
+        entity.setCurrency("EUR");
+        entity.setTimestamp(TIMESTAMP);
+        return entity;
+    }
+}
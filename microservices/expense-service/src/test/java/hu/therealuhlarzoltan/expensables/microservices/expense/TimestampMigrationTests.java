@@ -0,0 +1,102 @@
+package hu.therealuhlarzoltan.expensables.microservices.expense;
+
+import hu.therealuhlarzoltan.expensables.microservices.expense.components.migrations.TimestampMigration;
+import hu.therealuhlarzoltan.expensables.microservices.expense.models.ExpenseRecordEntity;
+import hu.therealuhlarzoltan.expensables.microservices.expense.repositories.ExpenseRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Mono;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "spring.profiles.active=default",
+        "spring.data.mongodb.host=localhost",
+        "app.timestampStorage=date"
+})
+class TimestampMigrationTests {
+    private static final ZonedDateTime SUMMER_IN_BUDAPEST = ZonedDateTime.parse("2024-08-14T12:00:00+02:00[Europe/Budapest]");
+    private static final ZonedDateTime WINTER_IN_NEW_YORK = ZonedDateTime.parse("2024-01-10T08:30:00-05:00[America/New_York]");
+    private static final ZonedDateTime ALREADY_A_DATE = ZonedDateTime.parse("2024-03-01T09:15:00+09:00[Asia/Tokyo]");
+
+    @Autowired
+    private ReactiveMongoOperations mongoTemplate;
+
+    @Autowired
+    private ExpenseRepository repository;
+
+    @Autowired
+    private TimestampMigration migration;
+
+    private final String accountId = UUID.randomUUID().toString();
+
+    @AfterEach
+    void deleteRecords() {
+        repository.deleteAllByAccountId(accountId).block();
+    }
+
+    @Test
+    void stringTimestampsBecomeDatesKeepingTheirZone() {
+        String budapestId = new ObjectId().toHexString();
+        String newYorkId = new ObjectId().toHexString();
+        String tokyoId = new ObjectId().toHexString();
+        insert(
+                expense(budapestId).append("timestamp", SUMMER_IN_BUDAPEST.format(DateTimeFormatter.ISO_ZONED_DATE_TIME)),
+                expense(newYorkId).append("timestamp", WINTER_IN_NEW_YORK.format(DateTimeFormatter.ISO_ZONED_DATE_TIME)),
+                expense(tokyoId).append("timestamp", Date.from(ALREADY_A_DATE.toInstant())).append("timestampZone", ALREADY_A_DATE.getZone().getId())
+        );
+
+        migration.migrateTimestamps().block();
+
+        Map<String, Document> stored = mongoTemplate.getCollection("expense_records")
+                .flatMapMany(collection -> collection.find(new Document("accountId", accountId)))
+                .collectMap(document -> document.getObjectId("_id").toHexString())
+                .block();
+        assertEquals(3, stored.size());
+        stored.values().forEach(document -> assertInstanceOf(Date.class, document.get("timestamp")));
+        assertEquals("Europe/Budapest", stored.get(budapestId).getString("timestampZone"));
+        assertEquals("America/New_York", stored.get(newYorkId).getString("timestampZone"));
+        assertEquals("Asia/Tokyo", stored.get(tokyoId).getString("timestampZone"));
+
+        // Read back through the converters and the timestamp callback, the original zone is restored
+        Map<String, ZonedDateTime> timestamps = repository.findAllByAccountId(accountId)
+                .collectList()
+                .map(records -> records.stream().collect(Collectors.toMap(ExpenseRecordEntity::getId, ExpenseRecordEntity::getTimestamp)))
+                .block();
+        assertEquals(Map.of(budapestId, SUMMER_IN_BUDAPEST, newYorkId, WINTER_IN_NEW_YORK, tokyoId, ALREADY_A_DATE), timestamps);
+    }
+
+    private void insert(Document... documents) {
+        mongoTemplate.getCollection("expense_records")
+                .flatMap(collection -> Mono.from(collection.insertMany(List.of(documents))))
+                .block();
+    }
+
+    private Document expense(String id) {
+        return new Document("_id", new ObjectId(id))
+                .append("version", 0)
+                .append("userId", 1L)
+                .append("accountId", accountId)
+                .append("name", "Groceries")
+                .append("category", "FOODS_AND_DRINKS")
+                .append("subCategory", "GROCERIES")
+                .append("amount", "10")
+                .append("currency", "EUR");
+    }
+}
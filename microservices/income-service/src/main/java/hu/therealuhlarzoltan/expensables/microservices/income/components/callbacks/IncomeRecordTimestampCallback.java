@@ -0,0 +1,35 @@
+package hu.therealuhlarzoltan.expensables.microservices.income.components.callbacks;
+
+import hu.therealuhlarzoltan.expensables.microservices.income.models.IncomeRecordEntity;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.ZoneId;
+
+/**
+ * Keeps the zone of the timestamp next to it, as a BSON date only holds the instant.
+ */
+@Component
+public class IncomeRecordTimestampCallback implements ReactiveBeforeConvertCallback<IncomeRecordEntity>, ReactiveAfterConvertCallback<IncomeRecordEntity> {
+
+    @Override
+    public Publisher<IncomeRecordEntity> onBeforeConvert(IncomeRecordEntity entity, String collection) {
+        if (entity.getTimestamp() != null) {
+            entity.setTimestampZone(entity.getTimestamp().getZone().getId());
+        }
+        return Mono.just(entity);
+    }
+
+    @Override
+    public Publisher<IncomeRecordEntity> onAfterConvert(IncomeRecordEntity entity, Document document, String collection) {
+        // Timestamps still stored as strings carry their zone already
+        if (entity.getTimestamp() != null && entity.getTimestampZone() != null) {
+            entity.setTimestamp(entity.getTimestamp().withZoneSameInstant(ZoneId.of(entity.getTimestampZone())));
+        }
+        return Mono.just(entity);
+    }
+}
@@ -0,0 +1,19 @@
+package hu.therealuhlarzoltan.expensables.microservices.income.components.converters;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+@Component
+public class DateToZonedDateTimeConverter implements Converter<Date, ZonedDateTime> {
+
+    @Override
+    public ZonedDateTime convert(@NonNull Date source) {
+        // The zone of the record is restored from its own field after the conversion
+        return ZonedDateTime.ofInstant(source.toInstant(), ZoneOffset.UTC);
+    }
+}
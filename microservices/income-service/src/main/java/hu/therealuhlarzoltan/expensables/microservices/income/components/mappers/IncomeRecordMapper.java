@@ -17,6 +17,7 @@ public interface IncomeRecordMapper {
             @Mapping(source = "name", target = "incomeName"),
             @Mapping(source = "version", target = "version"),
             @Mapping(source = "timestamp", target = "incomeDate"),
+            @Mapping(target = "cursor", ignore = true),
             @Mapping(source = "category", target = "incomeCategory", qualifiedByName = "mapIncomeCategoryToString")
     })
     IncomeRecord entityToIncomeRecord(IncomeRecordEntity incomeRecordEntity);
@@ -29,6 +30,7 @@ public interface IncomeRecordMapper {
             @Mapping(source = "incomeName", target = "name"),
             @Mapping(source = "version", target = "version"),
             @Mapping(source = "incomeDate", target = "timestamp"),
+            @Mapping(target = "timestampZone", ignore = true),
             @Mapping(source = "incomeCategory", target = "category", qualifiedByName = "mapStringToIncomeCategory"),
     })
     IncomeRecordEntity incomeRecordToEntity(IncomeRecord incomeRecord);
@@ -0,0 +1,95 @@
+package hu.therealuhlarzoltan.expensables.microservices.income.components.migrations;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Rewrites the timestamps still stored as ISO strings to BSON dates in the background once the date storage is enabled.
+ * Until it finishes both representations are read, but date range queries only match the records already converted.
+ */
+@Component
+public class TimestampMigration {
+    private static final Logger LOG = LoggerFactory.getLogger(TimestampMigration.class);
+    private static final String COLLECTION = "income_records";
+    private final ReactiveMongoOperations mongoTemplate;
+    private final String timestampStorage;
+    private final Integer migrationBatchSize;
+
+    @Autowired
+    public TimestampMigration(
+            ReactiveMongoOperations mongoTemplate,
+            @Value("${app.timestampStorage:date}") String timestampStorage,
+            @Value("${app.timestampMigrationBatchSize:500}") Integer migrationBatchSize
+    ) {
+        this.mongoTemplate = mongoTemplate;
+        this.timestampStorage = timestampStorage;
+        this.migrationBatchSize = migrationBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateTimestampsAfterStartup() {
+        if (!"date".equalsIgnoreCase(timestampStorage)) {
+            return;
+        }
+        migrateTimestamps().subscribe(
+                migrated -> {
+                    if (migrated > 0) {
+                        LOG.info("Converted the timestamp of {} records in {} to dates", migrated, COLLECTION);
+                    }
+                },
+                ex -> LOG.error("Failed to convert the timestamps in {}: {}", COLLECTION, ex.getMessage())
+        );
+    }
+
+    public Mono<Long> migrateTimestamps() {
+        Query legacyTimestamps = Query.query(Criteria.where("timestamp").type(BsonType.STRING.getValue()));
+        legacyTimestamps.fields().include("timestamp");
+        return mongoTemplate.find(legacyTimestamps, Document.class, COLLECTION)
+                .buffer(migrationBatchSize)
+                .concatMap(this::migrateBatch)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> migrateBatch(List<Document> records) {
+        List<WriteModel<Document>> updates = records.stream()
+                .<WriteModel<Document>>map(this::toDateUpdate)
+                .toList();
+        return mongoTemplate.getCollection(COLLECTION)
+                .flatMap(collection -> Mono.from(collection.bulkWrite(updates, new BulkWriteOptions().ordered(false))))
+                .map(result -> (long) result.getModifiedCount());
+    }
+
+    private UpdateOneModel<Document> toDateUpdate(Document record) {
+        String legacyTimestamp = record.getString("timestamp");
+        ZonedDateTime timestamp = ZonedDateTime.parse(legacyTimestamp, DateTimeFormatter.ISO_ZONED_DATE_TIME);
+        // Matching on the old value too, so a record saved again in the meantime is left alone
+        return new UpdateOneModel<>(
+                Filters.and(Filters.eq("_id", record.get("_id")), Filters.eq("timestamp", legacyTimestamp)),
+                Updates.combine(
+                        Updates.set("timestamp", Date.from(timestamp.toInstant())),
+                        Updates.set("timestampZone", timestamp.getZone().getId())
+                )
+        );
+    }
+}
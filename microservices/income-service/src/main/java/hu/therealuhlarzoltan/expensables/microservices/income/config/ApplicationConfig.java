@@ -1,12 +1,18 @@
 package hu.therealuhlarzoltan.expensables.microservices.income.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.reactivestreams.client.MongoClient;
 import com.mongodb.reactivestreams.client.MongoClients;
 import hu.therealuhlarzoltan.expensables.microservices.income.components.codecs.ZonedDateTimeCodec;
+import hu.therealuhlarzoltan.expensables.microservices.income.components.converters.DateToZonedDateTimeConverter;
 import hu.therealuhlarzoltan.expensables.microservices.income.components.converters.StringToZonedDateTimeConverter;
+import hu.therealuhlarzoltan.expensables.microservices.income.components.converters.ZonedDateTimeToDateConverter;
 import hu.therealuhlarzoltan.expensables.microservices.income.components.converters.ZonedDateTimeToStringConverter;
+import hu.therealuhlarzoltan.expensables.util.JsonLinesSpanExporter;
+import hu.therealuhlarzoltan.expensables.util.SmileMessageConverter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.slf4j.Logger;
@@ -20,9 +26,13 @@ import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.messaging.converter.MessageConverter;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.List;
 
@@ -32,16 +42,19 @@ public class ApplicationConfig {
 
     private final Integer threadPoolSize;
     private final Integer taskQueueSize;
+    private final Integer messageProcessorConcurrency;
     private final ZonedDateTimeCodec zonedDateTimeCodec;
 
     @Autowired
     public ApplicationConfig(
             @Value("${app.threadPoolSize:10}") Integer threadPoolSize,
             @Value("${app.taskQueueSize:100}") Integer taskQueueSize,
+            @Value("${app.messageProcessorConcurrency:8}") Integer messageProcessorConcurrency,
             ZonedDateTimeCodec zonedDateTimeCodec
     ) {
         this.threadPoolSize = threadPoolSize;
         this.taskQueueSize = taskQueueSize;
+        this.messageProcessorConcurrency = messageProcessorConcurrency;
         this.zonedDateTimeCodec = zonedDateTimeCodec;
     }
 
@@ -51,6 +64,12 @@ public class ApplicationConfig {
         return Schedulers.newBoundedElastic(threadPoolSize, taskQueueSize, "publish-pool");
     }
 
+    @Bean
+    public Scheduler messageProcessorScheduler() {
+        LOG.info("Creates a messageProcessorScheduler with parallelism = {}", messageProcessorConcurrency);
+        return Schedulers.newParallel("message-processor", messageProcessorConcurrency);
+    }
+
     @Bean
     @Lazy
     @ConditionalOnProperty(name = {"spring.data.mongodb.host", "spring.data.mongodb.port", "spring.data.mongodb.database"})
@@ -79,9 +98,28 @@ public class ApplicationConfig {
     @DependsOn("mongoClient")
     public MongoCustomConversions customConversions(
             StringToZonedDateTimeConverter stringToZonedDateTimeConverter,
-            ZonedDateTimeToStringConverter zonedDateTimeToStringConverter
+            ZonedDateTimeToStringConverter zonedDateTimeToStringConverter,
+            DateToZonedDateTimeConverter dateToZonedDateTimeConverter,
+            ZonedDateTimeToDateConverter zonedDateTimeToDateConverter,
+            @Value("${app.timestampStorage:date}") String timestampStorage
     ) {
-        List<Converter<?, ?>> converters = Arrays.asList(stringToZonedDateTimeConverter, zonedDateTimeToStringConverter);
+        LOG.info("Stores timestamps as {}", timestampStorage);
+        // Both representations are read, so the records not converted yet keep working
+        Converter<ZonedDateTime, ?> timestampWriter = "string".equalsIgnoreCase(timestampStorage) ? zonedDateTimeToStringConverter : zonedDateTimeToDateConverter;
+        List<Converter<?, ?>> converters = Arrays.asList(stringToZonedDateTimeConverter, dateToZonedDateTimeConverter, timestampWriter);
         return new MongoCustomConversions(converters);
     }
-}
\ No newline at end of file
+
+    @Bean
+    public MessageConverter smileMessageConverter(ObjectMapper mapper) {
+        // Picked up by the stream binder next to the JSON converter, see the smile profile
+        return new SmileMessageConverter(mapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracingFile")
+    public SpanExporter jsonLinesSpanExporter(@Value("${app.tracingFile}") String tracingFile, ObjectMapper mapper) throws IOException {
+        LOG.info("Exports finished spans to {}", tracingFile);
+        return new JsonLinesSpanExporter(Path.of(tracingFile), mapper);
+    }
+}
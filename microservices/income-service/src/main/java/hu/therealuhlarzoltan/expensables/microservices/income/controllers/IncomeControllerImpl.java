@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 @RestController
 @RequiredArgsConstructor
 public class IncomeControllerImpl implements IncomeController {
@@ -32,9 +34,9 @@ public class IncomeControllerImpl implements IncomeController {
     }
 
     @Override
-    public Flux<IncomeRecord> getIncomesByAccount(String accountId) {
-        LOG.info("Received a GET request for incomes by account with ID: {}", accountId);
-        return service.getIncomesByAccount(accountId);
+    public Flux<IncomeRecord> getIncomesByAccount(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
+        LOG.info("Received a GET request for incomes by account with ID: {}, from: {}, to: {}, cursor: {}, limit: {}", accountId, from, to, cursor, limit);
+        return service.getIncomesByAccount(accountId, from, to, cursor, limit);
     }
 
     @Override
@@ -10,6 +10,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -17,6 +19,10 @@ import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 
 @Document(collection = "income_records")
+@CompoundIndexes({
+        @CompoundIndex(name = "account_timestamp_id", def = "{'accountId': 1, 'timestamp': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_timestamp", def = "{'userId': 1, 'timestamp': -1}")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -45,4 +51,6 @@ public class IncomeRecordEntity {
     @Size(min = 3, max = 3, message = "Currency must be 3 characters long")
     private String currency;
     private ZonedDateTime timestamp;
+    // The timestamp is stored as a BSON date, which has no zone
+    private String timestampZone;
 }
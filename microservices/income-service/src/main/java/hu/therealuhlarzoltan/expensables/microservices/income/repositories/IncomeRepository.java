@@ -1,14 +1,27 @@
 package hu.therealuhlarzoltan.expensables.microservices.income.repositories;
 
 import hu.therealuhlarzoltan.expensables.microservices.income.models.IncomeRecordEntity;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 @Repository
 public interface IncomeRepository extends ReactiveCrudRepository<IncomeRecordEntity, String> {
     Flux<IncomeRecordEntity> findAllByUserId(Long userId);
     Flux<IncomeRecordEntity> findAllByAccountId(String accountId);
+    Flux<IncomeRecordEntity> findAllByAccountId(String accountId, Sort sort, Limit limit);
+    // From inclusive, to exclusive, served by the account_timestamp_id index
+    @Query("{ 'accountId': ?0, 'timestamp': { $gte: ?1, $lt: ?2 } }")
+    Flux<IncomeRecordEntity> findAllByAccountIdInRange(String accountId, ZonedDateTime from, ZonedDateTime to, Sort sort, Limit limit);
+    // The records after the cursor when ordered by timestamp and id descending
+    @Query("{ 'accountId': ?0, 'timestamp': { $gte: ?1 }, $or: [ { 'timestamp': { $lt: ?2 } }, { 'timestamp': ?2, '_id': { $lt: ?3 } } ] }")
+    Flux<IncomeRecordEntity> findAllByAccountIdAfterCursor(String accountId, ZonedDateTime from, ZonedDateTime cursorTimestamp, ObjectId cursorId, Sort sort, Limit limit);
     Mono<Void> deleteAllByAccountId(String accountId);
 }
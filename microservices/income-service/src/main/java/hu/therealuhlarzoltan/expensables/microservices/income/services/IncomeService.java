@@ -6,10 +6,12 @@ import jakarta.validation.Valid;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.ZonedDateTime;
+
 public interface IncomeService {
     Flux<IncomeRecord> getAllIncomes();
     Mono<IncomeRecord> getIncome(String recordId);
-    Flux<IncomeRecord> getIncomesByAccount(String accountId);
+    Flux<IncomeRecord> getIncomesByAccount(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit);
     Mono<IncomeRecord> createIncome(@Valid IncomeRecordEntity incomeRecord);
     Mono<IncomeRecord> updateIncome(@Valid IncomeRecordEntity incomeRecord);
     Mono<Void> deleteIncome(String recordId);
@@ -7,15 +7,20 @@ import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundEx
 import hu.therealuhlarzoltan.expensables.microservices.income.components.mappers.IncomeRecordMapper;
 import hu.therealuhlarzoltan.expensables.microservices.income.models.IncomeRecordEntity;
 import hu.therealuhlarzoltan.expensables.microservices.income.repositories.IncomeRepository;
+import hu.therealuhlarzoltan.expensables.util.RecordCursor;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
 @Service
@@ -23,10 +28,17 @@ import java.time.ZonedDateTime;
 @RequiredArgsConstructor
 public class IncomeServiceImpl implements IncomeService {
     private static final Logger LOG = LoggerFactory.getLogger(IncomeServiceImpl.class);
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp", "id");
+    private static final ZonedDateTime EARLIEST = ZonedDateTime.of(1, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime LATEST = ZonedDateTime.of(9999, 12, 31, 23, 59, 59, 0, ZoneOffset.UTC);
 
     private final IncomeRecordMapper mapper;
     private final IncomeRepository repository;
 
+    // ISO strings only order correctly while they share an offset, and keep more precision than a cursor
+    @Value("${app.timestampStorage:date}")
+    private String timestampStorage;
+
     @Override
     public Flux<IncomeRecord> getAllIncomes() {
         LOG.info("Will retrieve all income records");
@@ -42,9 +54,34 @@ public class IncomeServiceImpl implements IncomeService {
     }
 
     @Override
-    public Flux<IncomeRecord> getIncomesByAccount(String accountId) {
+    public Flux<IncomeRecord> getIncomesByAccount(String accountId, ZonedDateTime from, ZonedDateTime to, String cursor, Integer limit) {
         LOG.info("Will retrieve all income records for account with ID: {}", accountId);
-        return repository.findAllByAccountId(accountId).map(mapper::entityToIncomeRecord);
+        Limit pageLimit = limit != null ? Limit.of(limit) : Limit.unlimited();
+        if (storesTimestampsAsStrings() && (from != null || to != null || cursor != null)) {
+            return Flux.error(new InvalidInputDataException("Time ranges and cursors need timestamps stored as dates"));
+        }
+        Flux<IncomeRecordEntity> records;
+        if (cursor != null) {
+            RecordCursor position;
+            try {
+                position = RecordCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return Flux.error(new InvalidInputDataException("Invalid cursor: " + cursor));
+            }
+            // The cursor carries the timestamp and id of the last record, so the page is read straight off the index
+            records = repository.findAllByAccountIdAfterCursor(accountId, from != null ? from : EARLIEST, position.timestampInUtc(), position.id(), NEWEST_FIRST, pageLimit);
+        } else if (from != null || to != null) {
+            records = repository.findAllByAccountIdInRange(accountId, from != null ? from : EARLIEST, to != null ? to : LATEST, NEWEST_FIRST, pageLimit);
+        } else {
+            records = repository.findAllByAccountId(accountId, NEWEST_FIRST, pageLimit);
+        }
+        return records.map(entity -> {
+            IncomeRecord record = mapper.entityToIncomeRecord(entity);
+            if (!storesTimestampsAsStrings()) {
+                record.setCursor(RecordCursor.of(entity.getTimestamp(), entity.getId()).encode());
+            }
+            return record;
+        });
     }
 
     @Override
@@ -88,4 +125,8 @@ public class IncomeServiceImpl implements IncomeService {
         LOG.info("Will delete all income records for account ID: {}", accountId);
         return repository.deleteAllByAccountId(accountId);
     }
+
+    private boolean storesTimestampsAsStrings() {
+        return "string".equalsIgnoreCase(timestampStorage);
+    }
 }
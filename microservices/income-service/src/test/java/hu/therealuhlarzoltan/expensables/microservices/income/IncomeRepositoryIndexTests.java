@@ -0,0 +1,81 @@
+package hu.therealuhlarzoltan.expensables.microservices.income;
+
+import hu.therealuhlarzoltan.expensables.microservices.income.repositories.IncomeRepository;
+import hu.therealuhlarzoltan.expensables.util.QueryPlanRecorder;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "spring.profiles.active=default",
+        "spring.data.mongodb.host=localhost"
+})
+@Import(QueryPlanRecorder.Configuration.class)
+class IncomeRepositoryIndexTests {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp", "id");
+    private static final Limit PAGE = Limit.of(20);
+    private static final ZonedDateTime FROM = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime TO = FROM.plusMonths(1);
+
+    @Autowired
+    private ReactiveMongoOperations mongoTemplate;
+
+    @Autowired
+    private QueryPlanRecorder queryPlans;
+
+    @Autowired
+    private IncomeRepository repository;
+
+    @Autowired
+    private IncomeServiceApplication application;
+
+    private final String accountId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void ensureIndices() {
+        application.ensureIndices().block();
+    }
+
+    @Test
+    void findAllByAccountIdUsesAnIndex() {
+        assertIndexScan(repository.findAllByAccountId(accountId));
+    }
+
+    @Test
+    void findAllByAccountIdPagedUsesAnIndex() {
+        assertIndexScan(repository.findAllByAccountId(accountId, NEWEST_FIRST, PAGE));
+    }
+
+    @Test
+    void findAllByAccountIdInRangeUsesAnIndex() {
+        assertIndexScan(repository.findAllByAccountIdInRange(accountId, FROM, TO, NEWEST_FIRST, PAGE));
+    }
+
+    @Test
+    void findAllByAccountIdAfterCursorUsesAnIndex() {
+        assertIndexScan(repository.findAllByAccountIdAfterCursor(accountId, FROM, TO, new ObjectId(), NEWEST_FIRST, PAGE));
+    }
+
+    @Test
+    void findAllByUserIdUsesAnIndex() {
+        assertIndexScan(repository.findAllByUserId(1L));
+    }
+
+    private void assertIndexScan(Publisher<?> query) {
+        queryPlans.assertIndexScan(mongoTemplate, "income_records", query);
+    }
+}
@@ -12,4 +12,6 @@ public interface AccountGateway {
     Mono<Account> getAccountWithFallback(String accountId);
     Mono<String> getAccountCurrency(String accountId);
     Mono<BigDecimal> getAccountBalance(String accountId);
+    Mono<Account> deposit(String accountId, BigDecimal amount, String correlationId);
+    Mono<Account> withdraw(String accountId, BigDecimal amount, String correlationId);
 }
@@ -15,11 +15,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.net.URI;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 import static hu.therealuhlarzoltan.expensables.microservices.transactionclient.components.gateways.WebClientRequests.*;
@@ -64,6 +66,17 @@ public class ExchangeGatewayImpl implements ExchangeGateway {
         return postForSingleReactive(url, requestBody, ExchangeResponse.class);
     }
 
+    @Retry(name = "exchangeService")
+    @TimeLimiter(name = "exchangeService", fallbackMethod = "handleBatchTimeoutFallback")
+    @CircuitBreaker(name = "exchangeService", fallbackMethod = "handleBatchFallback")
+    @Override
+    public Flux<ExchangeResponse> makeExchanges(List<ExchangeRequest> exchangeRequests) {
+        URI url = UriComponentsBuilder
+                .fromUriString(EXCHANGE_SERVICE_URL + "/api/exchange/batch")
+                .build().toUri();
+        return postForManyReactive(url, exchangeRequests, ExchangeResponse.class);
+    }
+
     //Handling timeouts
     public Mono<ExchangeResponse> handleTimeoutFallback(String fromCurrency, String toCurrency, BigDecimal amount, TimeoutException ex) {
         return Mono.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
@@ -95,4 +108,20 @@ public class ExchangeGatewayImpl implements ExchangeGateway {
         //"Re-throwing" the exception if it's not a 5xx error
         return Mono.error(ex);
     }
+
+    //Handling timeouts of batches
+    public Flux<ExchangeResponse> handleBatchTimeoutFallback(List<ExchangeRequest> exchangeRequests, TimeoutException ex) {
+        return Flux.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
+    }
+
+    public Flux<ExchangeResponse> handleBatchFallback(List<ExchangeRequest> exchangeRequests, Throwable ex) {
+        //Only handling 5xx server errors here
+        if (ex instanceof WebClientResponseException && ((WebClientResponseException) ex).getStatusCode().is5xxServerError()) {
+            return Flux.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY));
+        } else if (ex instanceof CallNotPermittedException) {
+            return Flux.error(new ServiceResponseException("Service unavailable", HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        //"Re-throwing" the exception if it's not a 5xx error
+        return Flux.error(ex);
+    }
 }
@@ -8,6 +8,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -47,7 +48,9 @@ public class WebClientRequests {
     }
 
     public static <T> Flux<T> getForManyReactive(URI url, Class<T> clazz) {
+        // NDJSON is decoded line by line as it arrives, JSON is still accepted from services without the streaming variant
         return webClient.get().uri(url)
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
                 .retrieve().bodyToFlux(clazz)
                 .log(LOG.getName(), FINE)
                 .onErrorMap(Throwable.class, ex -> handleWebClientException(ex));
@@ -62,6 +65,24 @@ public class WebClientRequests {
                 .onErrorMap(Throwable.class, ex -> handleWebClientException(ex));
     }
 
+    public static <B, R> Flux<R> postForManyReactive(URI url, B body, Class<R> clazz) {
+        return webClient.post().uri(url)
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToFlux(clazz)
+                .log(LOG.getName(), FINE)
+                .onErrorMap(Throwable.class, ex -> handleWebClientException(ex));
+    }
+
+    public static <R> Mono<R> putForSingleReactive(URI url, Class<R> clazz) {
+        return webClient.put().uri(url)
+                .retrieve()
+                .bodyToMono(clazz)
+                .log(LOG.getName(), FINE)
+                .onErrorMap(Throwable.class, ex -> handleWebClientException(ex));
+    }
+
     public static Throwable handleWebClientException(Throwable ex) {
         if (!(ex instanceof WebClientResponseException) && !(ex instanceof TimeoutException)) {
             LOG.warn("Got a unexpected error: {}, will rethrow it", ex.toString());
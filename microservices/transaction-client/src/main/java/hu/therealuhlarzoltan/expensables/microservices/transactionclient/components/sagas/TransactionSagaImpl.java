@@ -1,6 +1,5 @@
 package hu.therealuhlarzoltan.expensables.microservices.transactionclient.components.sagas;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.therealuhlarzoltan.expensables.api.microservices.core.transaction.TransactionRecord;
 import hu.therealuhlarzoltan.expensables.api.microservices.events.AccountEvent;
 import hu.therealuhlarzoltan.expensables.api.microservices.events.CrudEvent;
@@ -11,6 +10,11 @@ import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundEx
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.ServiceResponseException;
 import hu.therealuhlarzoltan.expensables.microservices.transactionclient.components.gateways.TransactionGateway;
 import hu.therealuhlarzoltan.expensables.microservices.transactionclient.services.ResponseListenerService;
+import hu.therealuhlarzoltan.expensables.util.AccountFastPath;
+import hu.therealuhlarzoltan.expensables.util.SagaJournal;
+import hu.therealuhlarzoltan.expensables.util.SagaObservations;
+import hu.therealuhlarzoltan.expensables.util.MessageObservations;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,11 +28,13 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent.Type.ERROR;
 import static hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent.Type.SUCCESS;
@@ -37,34 +43,42 @@ import static hu.therealuhlarzoltan.expensables.api.microservices.events.HttpRes
 public class TransactionSagaImpl implements TransactionSaga {
     private static final Logger LOG = LoggerFactory.getLogger(TransactionSagaImpl.class);
     private final ResponseListenerService responseListener;
+    private final AccountFastPath accountFastPath;
+    private final SagaJournal sagaJournal;
+    private final SagaObservations sagaObservations;
+    private final ObservationRegistry observationRegistry;
     private final Scheduler publishEventScheduler;
     private final StreamBridge streamBridge;
-    private final ObjectMapper mapper;
     private final TransactionGateway transactionGateway;
     private final int RESPONSE_EVENT_WAIT_DURATION;
 
     @Autowired
     public TransactionSagaImpl(
             ResponseListenerService responseListener,
+            AccountFastPath accountFastPath,
+            SagaJournal sagaJournal,
+            SagaObservations sagaObservations,
+            ObservationRegistry observationRegistry,
             @Qualifier("publishEventScheduler") Scheduler publishEventScheduler,
             StreamBridge streamBridge,
-            ObjectMapper mapper,
             TransactionGateway transactionGateway,
             @Value("${app.response-event-wait-duration:10}") int responseEventWaitDuration
     ) {
         this.responseListener = responseListener;
+        this.accountFastPath = accountFastPath;
+        this.sagaJournal = sagaJournal;
+        this.sagaObservations = sagaObservations;
+        this.observationRegistry = observationRegistry;
         this.publishEventScheduler = publishEventScheduler;
         this.streamBridge = streamBridge;
-        this.mapper = mapper;
         this.transactionGateway = transactionGateway;
         this.RESPONSE_EVENT_WAIT_DURATION = responseEventWaitDuration;
     }
 
-    private enum TransactionCreationState {
-        INIT,
+    private enum TransactionCreationStep {
+        TRANSACTION_CREATED,
         FROM_ACCOUNT_WITHDRAWN,
         TO_ACCOUNT_DEPOSITED,
-        TRANSACTION_CREATED,
     }
 
     private enum TransactionUpdateState {
@@ -83,170 +97,57 @@ public class TransactionSagaImpl implements TransactionSaga {
 
     @Override
     public Mono<TransactionRecord> createTransaction(TransactionRecord transactionRecord) {
-        AtomicReference<TransactionCreationState> state = new AtomicReference<>(TransactionCreationState.INIT);
-        String createTransactionCorrId = UUID.randomUUID().toString();
-        String updateFromAccountCorrId = UUID.randomUUID().toString();
-        String updateToAccountCorrId = UUID.randomUUID().toString();
-        AtomicReference<String> responseMessage = new AtomicReference<>();
-        AtomicReference<HttpStatus> responseStatus = new AtomicReference<>(HttpStatus.CREATED);
-
-        return Mono.fromRunnable(() -> {
-                    LOG.info("Starting the transaction creation saga for transaction: {}", transactionRecord);
-                    sendMessage("transactions-out-0", createTransactionCorrId, new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transactionRecord.getRecordId(), transactionRecord));
-                }).then(responseListener.waitForResponse(createTransactionCorrId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION)))
-                .flatMap(response -> {
-                    if (response.getEventType() == SUCCESS) {
-                        LOG.info("Transaction created successfully with id: {}", transactionRecord.getRecordId());
-                        state.set(TransactionCreationState.TRANSACTION_CREATED);
-                        responseMessage.set(response.getData().getMessage());
-                        return Mono.empty();
-                    } else if (response.getEventType() == ERROR) {
-                        LOG.warn("Transaction creation failed with error: {}", response.getData().getMessage());
-                        responseMessage.set(response.getData().getMessage());
-                        responseStatus.set(response.getData().getStatus());
-                        return Mono.error(createMessageResponseError(response.getData()));
-                    } else {
-                        LOG.error("Unknown response event received during transaction creation");
-                        return Mono.error(new EventProcessingException("Could not process unknown response"));
-                    }
-                })
-                .then(Mono.fromRunnable(() -> {
-                    if (state.get() == TransactionCreationState.TRANSACTION_CREATED) {
-                        sendMessage("accounts-out-0", updateFromAccountCorrId, new AccountEvent<>(AccountEvent.Type.WITHDRAW, transactionRecord.getFromAccountId(), transactionRecord.getAmount()));
-                    }
-                })).then(responseListener.waitForResponse(updateFromAccountCorrId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION)))
-                .flatMap(response -> {
-                    if (response.getEventType() == SUCCESS) {
-                        LOG.info("Account updated successfully with id: {} because of new transaction entity with id: {}", transactionRecord.getFromAccountId(), transactionRecord.getRecordId());
-                        state.set(TransactionCreationState.FROM_ACCOUNT_WITHDRAWN);
-                        return Mono.empty();
-                    } else if (response.getEventType() == ERROR) {
-                        LOG.warn("Failed to update account with id {} for new transaction entity with id: {}, error: {}", transactionRecord.getFromAccountId(), transactionRecord.getRecordId(), response.getData().getMessage());
-                        responseMessage.set(response.getData().getMessage());
-                        responseStatus.set(response.getData().getStatus());
-                        return Mono.error(createMessageResponseError(response.getData()));
-                    } else {
-                        LOG.error("Unknown response event received during transaction creation");
-                        return Mono.error(new EventProcessingException("Could not process unknown response event"));
-                    }
-                })
-                .then(Mono.fromRunnable(() -> {
-                    if (state.get() == TransactionCreationState.FROM_ACCOUNT_WITHDRAWN) {
-                        sendMessage("accounts-out-0", updateToAccountCorrId, new AccountEvent<>(AccountEvent.Type.DEPOSIT, transactionRecord.getToAccountId(), transactionRecord.getAmount()));
-                    }
-                })).then(responseListener.waitForResponse(updateToAccountCorrId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION)))
-                .flatMap(response -> {
-                    if (response.getEventType() == SUCCESS) {
-                        LOG.info("Account updated successfully with id: {} because of new transaction entity with id: {}", transactionRecord.getFromAccountId(), transactionRecord.getRecordId());
-                        state.set(TransactionCreationState.TO_ACCOUNT_DEPOSITED);
-                        return Mono.empty();
-                    } else if (response.getEventType() == ERROR) {
-                        LOG.warn("Failed to update account with id {} for new transaction entity with id: {}, error: {}", transactionRecord.getFromAccountId(), transactionRecord.getRecordId(), response.getData().getMessage());
-                        responseMessage.set(response.getData().getMessage());
-                        responseStatus.set(response.getData().getStatus());
-                        return Mono.error(createMessageResponseError(response.getData()));
-                    } else {
-                        LOG.error("Unknown response event received during transaction creation");
-                        return Mono.error(new EventProcessingException("Could not process unknown response event"));
-                    }
-                })
-                .onErrorResume(ex -> {
-                    if (ex instanceof ServiceResponseException && ((ServiceResponseException) ex).getResponseStatus().equals(HttpStatus.FAILED_DEPENDENCY)) {
-                        switch (state.get()) {
-                            case INIT:
-                                state.set(TransactionCreationState.TRANSACTION_CREATED);
-                                break;
-                            case TRANSACTION_CREATED:
-                                state.set(TransactionCreationState.FROM_ACCOUNT_WITHDRAWN);
-                                break;
-                            case FROM_ACCOUNT_WITHDRAWN:
-                                state.set(TransactionCreationState.TO_ACCOUNT_DEPOSITED);
-                                break;
-                            default:
-                                break;
-                        }
-                    }
-                    LOG.warn("Couldn't complete transaction creation saga due to error: {}", ex.getMessage());
-                    LOG.warn("Rolling back the transaction creation saga for expense with id: {}", transactionRecord.getRecordId());
-                    restoreTransactionCreation(state.get(), transactionRecord, transactionRecord.getAmount(), transactionRecord.getAmount());
-                    return Mono.error(ex);
-                })
-                .subscribeOn(publishEventScheduler).then(Mono.defer(() -> {
-                    if (responseStatus.get() == HttpStatus.CREATED) {
-                        String jsonString = responseMessage.get();
-                        TransactionRecord createdTransaction = deserializeObjectFromJson(jsonString, TransactionRecord.class);
-                        return Mono.just(createdTransaction);
-                    } else {
-                        return Mono.error(mapException(responseMessage.get(), responseStatus.get()));
-                    }
-                }));
-        }
+        return createTransaction(transactionRecord, transactionRecord.getAmount());
+    }
 
     @Override
     public Mono<TransactionRecord> createTransaction(TransactionRecord transactionRecord, BigDecimal amount) {
-        AtomicReference<TransactionCreationState> state = new AtomicReference<>(TransactionCreationState.INIT);
+        Set<TransactionCreationStep> completedSteps = ConcurrentHashMap.newKeySet();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<TransactionRecord> createdTransaction = new AtomicReference<>();
         String createTransactionCorrId = UUID.randomUUID().toString();
         String updateFromAccountCorrId = UUID.randomUUID().toString();
         String updateToAccountCorrId = UUID.randomUUID().toString();
-        AtomicReference<String> responseMessage = new AtomicReference<>();
-        AtomicReference<HttpStatus> responseStatus = new AtomicReference<>(HttpStatus.CREATED);
-        return Mono.fromRunnable(() -> {
-                    LOG.info("Starting the transaction creation saga for transaction: {}", transactionRecord);
-                    sendMessage("transactions-out-0", createTransactionCorrId, new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transactionRecord.getRecordId(), transactionRecord));
-                }).then(responseListener.waitForResponse(createTransactionCorrId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION)))
-                .flatMap(response -> {
-                    if (response.getEventType() == SUCCESS) {
-                        LOG.info("Transaction created successfully with id: {}", transactionRecord.getRecordId());
-                        state.set(TransactionCreationState.TRANSACTION_CREATED);
-                        responseMessage.set(response.getData().getMessage());
-                        return Mono.empty();
+        String sagaId = UUID.randomUUID().toString();
+
+        // Creating the record and withdrawing from the source account don't depend on each other, so they are dispatched together,
+        // the deposit to the target account only goes out once both of them succeeded
+        Mono<Void> createTransactionStep = runCreationStep(TransactionCreationStep.TRANSACTION_CREATED, transactionRecord, "transactions-out-0", createTransactionCorrId,
+                new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transactionRecord.getRecordId(), transactionRecord), completedSteps, failure, payload -> createdTransaction.set(payload.getBody(TransactionRecord.class)));
+        Mono<Void> withdrawFromAccountStep = runCreationStep(TransactionCreationStep.FROM_ACCOUNT_WITHDRAWN, transactionRecord, "accounts-out-0", updateFromAccountCorrId,
+                new AccountEvent<>(AccountEvent.Type.WITHDRAW, transactionRecord.getFromAccountId(), transactionRecord.getAmount()), completedSteps, failure, payload -> {});
+        Mono<Void> depositToAccountStep = runCreationStep(TransactionCreationStep.TO_ACCOUNT_DEPOSITED, transactionRecord, "accounts-out-0", updateToAccountCorrId,
+                new AccountEvent<>(AccountEvent.Type.DEPOSIT, transactionRecord.getToAccountId(), amount), completedSteps, failure, payload -> {});
+
+        return Mono.fromRunnable(() -> LOG.info("Starting the transaction creation saga for transaction: {}", transactionRecord))
+                .then(Mono.when(createTransactionStep, withdrawFromAccountStep))
+                .then(Mono.defer(() -> failure.get() == null ? depositToAccountStep : Mono.<Void>empty()))
+                .then(Mono.defer(() -> {
+                    Throwable ex = failure.get();
+                    if (ex == null) {
+                        return Mono.just(createdTransaction.get());
                     }
-                    else if (response.getEventType() == ERROR) {
-                        LOG.warn("Transaction creation failed with error: {}", response.getData().getMessage());
-                        responseMessage.set(response.getData().getMessage());
-                        responseStatus.set(response.getData().getStatus());
-                        return Mono.error(createMessageResponseError(response.getData()));
-                    } else {
-                        LOG.error("Unknown response event received during transaction creation");
-                        return Mono.error(new EventProcessingException("Could not process unknown response"));
-                    }
-                })
-                .then(Mono.fromRunnable(() -> {
-                    if (state.get() == TransactionCreationState.TRANSACTION_CREATED) {
-                        sendMessage("accounts-out-0", updateFromAccountCorrId, new AccountEvent<>(AccountEvent.Type.WITHDRAW, transactionRecord.getFromAccountId(), transactionRecord.getAmount()));
-                    }
-                })).then(responseListener.waitForResponse(updateFromAccountCorrId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION)))
-                .flatMap(response -> {
-                    if (response.getEventType() == SUCCESS) {
-                        LOG.info("Account updated successfully with id: {} because of new transaction entity with id: {}", transactionRecord.getFromAccountId(), transactionRecord.getRecordId());
-                        state.set(TransactionCreationState.FROM_ACCOUNT_WITHDRAWN);
-                        return Mono.empty();
-                    }
-                    else if (response.getEventType() == ERROR) {
-                        LOG.warn("Failed to update account with id {} for new transaction entity with id: {}, error: {}", transactionRecord.getFromAccountId(), transactionRecord.getRecordId(), response.getData().getMessage());
-                        responseMessage.set(response.getData().getMessage());
-                        responseStatus.set(response.getData().getStatus());
-                        return Mono.error(createMessageResponseError(response.getData()));
-                    } else {
-                        LOG.error("Unknown response event received during transaction creation");
-                        return Mono.error(new EventProcessingException("Could not process unknown response event"));
-                    }
-                })
-                .then(Mono.fromRunnable(() -> {
-                    if (state.get() == TransactionCreationState.FROM_ACCOUNT_WITHDRAWN) {
-                        sendMessage("accounts-out-0", updateToAccountCorrId, new AccountEvent<>(AccountEvent.Type.DEPOSIT, transactionRecord.getToAccountId(), amount));
-                    }
-                })).then(responseListener.waitForResponse(updateToAccountCorrId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION)))
+                    LOG.warn("Couldn't complete transaction creation saga due to error: {}", ex.getMessage());
+                    LOG.warn("Rolling back the transaction creation saga for transaction with id: {}", transactionRecord.getRecordId());
+                    restoreTransactionCreation(sagaId, completedSteps, createTransactionCorrId, updateFromAccountCorrId, updateToAccountCorrId, transactionRecord, transactionRecord.getAmount(), amount);
+                    return Mono.<TransactionRecord>error(ex);
+                }))
+                .subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "transaction-creation", createTransactionCorrId, updateFromAccountCorrId, updateToAccountCorrId));
+    }
+
+    private Mono<Void> runCreationStep(TransactionCreationStep step, TransactionRecord transactionRecord, String bindingName, String correlationId, Event<?, ?> event,
+                                       Set<TransactionCreationStep> completedSteps, AtomicReference<Throwable> failure, Consumer<ResponsePayload> onSuccess) {
+        return Mono.fromRunnable(() -> sendMessage(bindingName, correlationId, event))
+                .then(responseListener.waitForResponse(correlationId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION)))
                 .flatMap(response -> {
                     if (response.getEventType() == SUCCESS) {
-                        LOG.info("Account updated successfully with id: {} because of new transaction entity with id: {}", transactionRecord.getFromAccountId(), transactionRecord.getRecordId());
-                        state.set(TransactionCreationState.TO_ACCOUNT_DEPOSITED);
+                        LOG.info("Transaction creation step {} completed for transaction with id: {}", step, transactionRecord.getRecordId());
+                        completedSteps.add(step);
+                        onSuccess.accept(response.getData());
                         return Mono.empty();
-                    }
-                    else if (response.getEventType() == ERROR) {
-                        LOG.warn("Failed to update account with id {} for new transaction entity with id: {}, error: {}", transactionRecord.getFromAccountId(), transactionRecord.getRecordId(), response.getData().getMessage());
-                        responseMessage.set(response.getData().getMessage());
-                        responseStatus.set(response.getData().getStatus());
+                    } else if (response.getEventType() == ERROR) {
+                        LOG.warn("Transaction creation step {} failed for transaction with id: {}, error: {}", step, transactionRecord.getRecordId(), response.getData().getMessage());
                         return Mono.error(createMessageResponseError(response.getData()));
                     } else {
                         LOG.error("Unknown response event received during transaction creation");
@@ -254,35 +155,14 @@ public class TransactionSagaImpl implements TransactionSaga {
                     }
                 })
                 .onErrorResume(ex -> {
-                    if (ex instanceof ServiceResponseException && ((ServiceResponseException) ex).getResponseStatus().equals(HttpStatus.FAILED_DEPENDENCY)) {
-                        switch (state.get()) {
-                            case INIT:
-                                state.set(TransactionCreationState.TRANSACTION_CREATED);
-                                break;
-                            case TRANSACTION_CREATED:
-                                state.set(TransactionCreationState.FROM_ACCOUNT_WITHDRAWN);
-                                break;
-                            case FROM_ACCOUNT_WITHDRAWN:
-                                state.set(TransactionCreationState.TO_ACCOUNT_DEPOSITED);
-                                break;
-                            default:
-                                break;
-                        }
+                    // Without an answer the step might still have been applied, its compensation only takes effect if it was
+                    if (ex instanceof ServiceResponseException && HttpStatus.FAILED_DEPENDENCY.equals(((ServiceResponseException) ex).getResponseStatus())) {
+                        completedSteps.add(step);
                     }
-                    LOG.warn("Couldn't complete transaction creation saga due to error: {}", ex.getMessage());
-                    LOG.warn("Rolling back the transaction creation saga for expense with id: {}", transactionRecord.getRecordId());
-                    restoreTransactionCreation(state.get(), transactionRecord, transactionRecord.getAmount(), amount);
-                    return Mono.error(ex);
+                    failure.compareAndSet(null, ex);
+                    return Mono.empty();
                 })
-               .subscribeOn(publishEventScheduler).then(Mono.defer(() -> {
-                    if (responseStatus.get() == HttpStatus.CREATED) {
-                        String jsonString = responseMessage.get();
-                        TransactionRecord createdTransaction = deserializeObjectFromJson(jsonString, TransactionRecord.class);
-                        return Mono.just(createdTransaction);
-                    } else {
-                        return Mono.error(mapException(responseMessage.get(), responseStatus.get()));
-                    }
-                }));
+                .then();
     }
 
     @Override
@@ -293,6 +173,7 @@ public class TransactionSagaImpl implements TransactionSaga {
         String fromAccountUpdateCorrId = UUID.randomUUID().toString();
         String toAccountUpdateCorrId = UUID.randomUUID().toString();
         String transactionUpdateCorrId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         LOG.info("Starting transaction update saga with transaction id: {}", transactionRecord.getRecordId());
 
         Mono<Void> updateFromAccount = Mono.defer(() -> {
@@ -321,14 +202,14 @@ public class TransactionSagaImpl implements TransactionSaga {
                             .toCurrency(transactionRecord.getToCurrency())
                             .transactionDate(transactionRecord.getTransactionDate())
                             .build();
-                    sendMessage("transactions-out-0", transactionUpdateCorrId, new CrudEvent<>(CrudEvent.Type.UPDATE, transactionRecord.getRecordId(), copy));
+                    sendMessage("transactions-out-0", transactionUpdateCorrId, new CrudEvent<>(CrudEvent.Type.UPDATE, transactionRecord.getRecordId(), copy),
+                            new CrudEvent<>(CrudEvent.Type.UPDATE, transactionRecord.getRecordId(), transactionRecord));
                     return responseListener.waitForResponse(transactionUpdateCorrId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION));
                 }))
                 .flatMap(response -> {
                     if (response.getEventType() == SUCCESS) {
                         state.set(TransactionUpdateState.TRANSACTION_UPDATED);
-                        String jsonString = response.getData().getMessage();
-                        TransactionRecord updatedTransaction = deserializeObjectFromJson(jsonString, TransactionRecord.class);
+                        TransactionRecord updatedTransaction = response.getData().getBody(TransactionRecord.class);
                         return Mono.just(updatedTransaction);
                     } else if (response.getEventType() == ERROR) {
                         LOG.error("Couldn't update transaction record from transaction saga for transaction id: {}", transactionRecord.getRecordId());
@@ -355,9 +236,10 @@ public class TransactionSagaImpl implements TransactionSaga {
                 }
             }
             LOG.info("Encountered an error during transaction update with id: {}, exception: {}", transactionRecord.getRecordId(), ex.getMessage());
-            restoreTransactionUpdate(state.get(), transactionRecord, amount, amount);
+            restoreTransactionUpdate(sagaId, state.get(), fromAccountUpdateCorrId, toAccountUpdateCorrId, transactionUpdateCorrId, transactionRecord, amount, amount);
             return Mono.error(ex);
-        }).subscribeOn(publishEventScheduler);
+        }).subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "transaction-update", fromAccountUpdateCorrId, toAccountUpdateCorrId, transactionUpdateCorrId));
     }
 
     private Mono<Void> handleFromAccountUpdate(TransactionRecord transactionRecord, BigDecimal amount, String accountUpdateCorrId, AtomicReference<TransactionUpdateState> state) {
@@ -418,6 +300,7 @@ public class TransactionSagaImpl implements TransactionSaga {
         String fromAccountUpdateCorrId = UUID.randomUUID().toString();
         String toAccountUpdateCorrId = UUID.randomUUID().toString();
         String transactionUpdateCorrId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         LOG.info("Starting transaction update saga with transaction id: {}", transactionRecord.getRecordId());
 
         Mono<Void> updateFromAccount = Mono.defer(() -> {
@@ -446,14 +329,14 @@ public class TransactionSagaImpl implements TransactionSaga {
                             .toCurrency(transactionRecord.getToCurrency())
                             .transactionDate(transactionRecord.getTransactionDate())
                             .build();
-                    sendMessage("transactions-out-0", transactionUpdateCorrId, new CrudEvent<>(CrudEvent.Type.UPDATE, transactionRecord.getRecordId(), copy));
+                    sendMessage("transactions-out-0", transactionUpdateCorrId, new CrudEvent<>(CrudEvent.Type.UPDATE, transactionRecord.getRecordId(), copy),
+                            new CrudEvent<>(CrudEvent.Type.UPDATE, transactionRecord.getRecordId(), transactionRecord));
                     return responseListener.waitForResponse(transactionUpdateCorrId, Duration.ofSeconds(RESPONSE_EVENT_WAIT_DURATION));
                 }))
                 .flatMap(response -> {
                     if (response.getEventType() == SUCCESS) {
                         state.set(TransactionUpdateState.TRANSACTION_UPDATED);
-                        String jsonString = response.getData().getMessage();
-                        TransactionRecord updatedTransaction = deserializeObjectFromJson(jsonString, TransactionRecord.class);
+                        TransactionRecord updatedTransaction = response.getData().getBody(TransactionRecord.class);
                         return Mono.just(updatedTransaction);
                     } else if (response.getEventType() == ERROR) {
                         LOG.error("Couldn't update transaction record for transaction id: {}", transactionRecord.getRecordId());
@@ -479,9 +362,10 @@ public class TransactionSagaImpl implements TransactionSaga {
                 }
             }
             LOG.info("Encountered an error during transaction update with id: {}, exception: {}", transactionRecord.getRecordId(), ex.getMessage());
-            restoreTransactionUpdate(state.get(), transactionRecord, fromAmount, toAmount);
+            restoreTransactionUpdate(sagaId, state.get(), fromAccountUpdateCorrId, toAccountUpdateCorrId, transactionUpdateCorrId, transactionRecord, fromAmount, toAmount);
             return Mono.error(ex);
-        }).subscribeOn(publishEventScheduler);
+        }).subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "transaction-update", fromAccountUpdateCorrId, toAccountUpdateCorrId, transactionUpdateCorrId));
     }
 
     @Override
@@ -489,6 +373,8 @@ public class TransactionSagaImpl implements TransactionSaga {
         AtomicReference<TransactionDeletionState> state = new AtomicReference<>(TransactionDeletionState.INIT);
         String fromAccountUpdateId = UUID.randomUUID().toString();
         String toAccountUpdateId = UUID.randomUUID().toString();
+        String transactionDeletionId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         return transactionGateway.getTransaction(transactionRecord.getRecordId())
                 .onErrorMap(e -> {
                     LOG.warn("Transaction record not found: {}", transactionRecord.getRecordId());
@@ -496,7 +382,7 @@ public class TransactionSagaImpl implements TransactionSaga {
                 })
                 .then(Mono.fromRunnable(() -> {
                     LOG.info("Starting the transaction deletion saga for transaction: {}", transactionRecord);
-                    sendMessage("transactions-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, transactionRecord.getRecordId(), transactionRecord));
+                    sendSagaStep(sagaId, transactionDeletionId, "transactions-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, transactionRecord.getRecordId(), transactionRecord));
                 }))
                 .then(Mono.delay(Duration.ofSeconds(1)))
                 .then(transactionGateway.getTransaction(transactionRecord.getRecordId())
@@ -559,10 +445,11 @@ public class TransactionSagaImpl implements TransactionSaga {
                                     break;
                             }
                         }
-                        restoreTransactionDeletion(state.get(), transactionRecord, transactionRecord.getAmount(), transactionRecord.getAmount());
+                        restoreTransactionDeletion(sagaId, state.get(), transactionDeletionId, fromAccountUpdateId, toAccountUpdateId, transactionRecord, transactionRecord.getAmount(), transactionRecord.getAmount());
                     }
                     return Mono.empty();
-                }).then().subscribeOn(publishEventScheduler);
+                }).then().subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "transaction-deletion", fromAccountUpdateId, toAccountUpdateId));
     }
 
     @Override
@@ -570,6 +457,8 @@ public class TransactionSagaImpl implements TransactionSaga {
         AtomicReference<TransactionDeletionState> state = new AtomicReference<>(TransactionDeletionState.INIT);
         String fromAccountUpdateId = UUID.randomUUID().toString();
         String toAccountUpdateId = UUID.randomUUID().toString();
+        String transactionDeletionId = UUID.randomUUID().toString();
+        String sagaId = UUID.randomUUID().toString();
         return transactionGateway.getTransaction(transactionRecord.getRecordId())
                 .onErrorMap(e -> {
                     LOG.warn("Transaction record not found: {}", transactionRecord.getRecordId());
@@ -577,7 +466,7 @@ public class TransactionSagaImpl implements TransactionSaga {
                 })
                 .then(Mono.fromRunnable(() -> {
                     LOG.info("Starting the transaction deletion saga for transaction: {}", transactionRecord);
-                    sendMessage("transactions-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, transactionRecord.getRecordId(), transactionRecord));
+                    sendSagaStep(sagaId, transactionDeletionId, "transactions-out-0", new CrudEvent<>(CrudEvent.Type.DELETE, transactionRecord.getRecordId(), transactionRecord));
                 }))
                 .then(Mono.delay(Duration.ofSeconds(1)))
                 .then(transactionGateway.getTransaction(transactionRecord.getRecordId())
@@ -640,10 +529,11 @@ public class TransactionSagaImpl implements TransactionSaga {
                                     break;
                             }
                         }
-                        restoreTransactionDeletion(state.get(), transactionRecord, transactionRecord.getAmount(), amount);
+                        restoreTransactionDeletion(sagaId, state.get(), transactionDeletionId, fromAccountUpdateId, toAccountUpdateId, transactionRecord, transactionRecord.getAmount(), amount);
                     }
                     return Mono.empty();
-                }).then().subscribeOn(publishEventScheduler);
+                }).then().subscribeOn(publishEventScheduler)
+                .transform(sagaJournal.journaled(sagaId, "transaction-deletion", fromAccountUpdateId, toAccountUpdateId));
     }
 
     private Throwable mapException(String message, HttpStatus status) {
@@ -651,12 +541,38 @@ public class TransactionSagaImpl implements TransactionSaga {
     }
 
     private void sendMessage(String bindingName, String correlationId, Event<?, ?> event) {
+        sendMessage(bindingName, correlationId, event, sagaJournal.recordStep(correlationId, bindingName, event));
+    }
+
+    private void sendMessage(String bindingName, String correlationId, Event<?, ?> event, Event<?, ?> compensation) {
+        sendMessage(bindingName, correlationId, event, sagaJournal.recordStep(correlationId, bindingName, event, compensation));
+    }
+
+    // The step only leaves once it is durable in the saga log, so a crash can't lose track of it
+    private void sendMessage(String bindingName, String correlationId, Event<?, ?> event, Mono<Void> stepRecorded) {
+        if (accountFastPath.supports(bindingName, event)) {
+            responseListener.registerDirectResponse(correlationId, stepRecorded.then(accountFastPath.execute(correlationId, event, () -> publishMessage(bindingName, correlationId, event))));
+            return;
+        }
+        stepRecorded.then(Mono.fromRunnable(() -> publishMessage(bindingName, correlationId, event))).subscribe();
+    }
+
+    private void sendSagaStep(String sagaId, String stepId, String bindingName, Event<?, ?> event) {
+        sagaJournal.recordUnacknowledgedStep(sagaId, stepId, bindingName, event)
+                .then(Mono.fromRunnable(() -> sendMessage(bindingName, event)))
+                .subscribe();
+    }
+
+    private void publishMessage(String bindingName, String correlationId, Event<?, ?> event) {
         LOG.info("Sending a {} message to {} with correlation id {}", event.getEventType(), bindingName, correlationId);
-        Message message = MessageBuilder.withPayload(event)
+        MessageBuilder<Event<?, ?>> message = MessageBuilder.<Event<?, ?>>withPayload(event)
                 .setHeader("partitionKey", event.getKey())
                 .setHeader("correlationId", correlationId)
-                .build();
-        streamBridge.send(bindingName, message);
+                .setHeader("replyTo", responseListener.getReplyTo());
+        // Sent as a child of the step, the trace context of which goes along in the headers
+        MessageObservations.sending(bindingName, message, observationRegistry)
+                .parentObservation(sagaObservations.currentStep(correlationId))
+                .observe(() -> streamBridge.send(bindingName, message.build()));
     }
 
     private void sendMessage(String bindingName, Event<?, ?> event) {
@@ -667,52 +583,39 @@ public class TransactionSagaImpl implements TransactionSaga {
         streamBridge.send(bindingName, message);
     }
 
-    private <T> T deserializeObjectFromJson(String json, Class<T> clazz) {
-        T obj = null;
-        try {
-            obj = mapper.readValue(json, clazz);
-        } catch (IOException e) {
-            LOG.error("Couldn't deserialize object from json: {}", e.getMessage());
-        }
-        return obj;
-    }
-
     private Throwable createMessageResponseError(ResponsePayload data) {
         return new ServiceResponseException(data.getMessage(), data.getStatus());
     }
 
 
-    private void restoreTransactionCreation(TransactionCreationState state, TransactionRecord transaction, BigDecimal fromAmount, BigDecimal toAmount) {
-        LOG.info("Rolling back transaction creation with id {} state {}", transaction.getRecordId(), state);
-        switch (state) {
-            case INIT:
-                LOG.info("No action needed to restore transaction creation with state {}", state);
-                break;
-            case FROM_ACCOUNT_WITHDRAWN:
-                LOG.info("Depositing withdrawn money from account with id {}", transaction.getFromAccountId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
-                LOG.info("Deleting created transaction with id {}", transaction.getRecordId());
-                sendMessage("transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.DELETE, transaction.getRecordId(), transaction));
-                break;
-            case TO_ACCOUNT_DEPOSITED:
-                LOG.info("Withdrawing deposited money from account with id {}", transaction.getToAccountId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getToAccountId(), toAmount));
-                LOG.info("Depositing withdrawn money from account with id {}", transaction.getFromAccountId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
-                LOG.info("Deleting created transaction with id {}", transaction.getRecordId());
-                sendMessage("transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.DELETE, transaction.getRecordId(), transaction));
-                break;
-            case TRANSACTION_CREATED:
-                LOG.info("Deleting created transaction with id {}", transaction.getRecordId());
-                sendMessage("transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.DELETE, transaction.getRecordId(), transaction));
-                break;
-            default:
-                LOG.warn("Couldn't determine restore action for transaction creation with state {}", state);
+    private void restoreTransactionCreation(String sagaId, Set<TransactionCreationStep> completedSteps, String createTransactionCorrId, String updateFromAccountCorrId,
+                                            String updateToAccountCorrId, TransactionRecord transaction, BigDecimal fromAmount, BigDecimal toAmount) {
+        LOG.info("Rolling back transaction creation with id {} completed steps {}", transaction.getRecordId(), completedSteps);
+        if (completedSteps.isEmpty()) {
+            LOG.info("No action needed to restore transaction creation with completed steps {}", completedSteps);
+            return;
+        }
+        sagaObservations.compensating(sagaId);
+        if (completedSteps.contains(TransactionCreationStep.TO_ACCOUNT_DEPOSITED)) {
+            LOG.info("Withdrawing deposited money from account with id {}", transaction.getToAccountId());
+            sagaJournal.compensate(sagaId, updateToAccountCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getToAccountId(), toAmount));
+        }
+        if (completedSteps.contains(TransactionCreationStep.FROM_ACCOUNT_WITHDRAWN)) {
+            LOG.info("Depositing withdrawn money from account with id {}", transaction.getFromAccountId());
+            sagaJournal.compensate(sagaId, updateFromAccountCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
+        }
+        if (completedSteps.contains(TransactionCreationStep.TRANSACTION_CREATED)) {
+            LOG.info("Deleting created transaction with id {}", transaction.getRecordId());
+            sagaJournal.compensate(sagaId, createTransactionCorrId, "transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.DELETE, transaction.getRecordId(), transaction));
         }
     }
 
-    private void restoreTransactionUpdate(TransactionUpdateState state, TransactionRecord transaction, BigDecimal fromAmount, BigDecimal toAmount) {
+    private void restoreTransactionUpdate(String sagaId, TransactionUpdateState state, String fromAccountUpdateCorrId, String toAccountUpdateCorrId,
+                                          String transactionUpdateCorrId, TransactionRecord transaction, BigDecimal fromAmount, BigDecimal toAmount) {
         LOG.info("Rolling back transaction update with id {} state {}", transaction.getRecordId(), state);
+        if (state != TransactionUpdateState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case INIT:
                 LOG.info("No action needed to restore transaction update with state {}", state);
@@ -720,71 +623,75 @@ public class TransactionSagaImpl implements TransactionSaga {
             case FROM_ACCOUNT_UPDATED:
                 if (fromAmount.compareTo(BigDecimal.ZERO) < 0) {
                     LOG.info("Withdrawing deposited money from account with id {} because of failed transaction update", transaction.getFromAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getFromAccountId(), fromAmount.abs()));
+                    sagaJournal.compensate(sagaId, fromAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getFromAccountId(), fromAmount.abs()));
                 } else {
                     LOG.info("Depositing withdrawn money to account with id {} because of failed transaction update", transaction.getFromAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
+                    sagaJournal.compensate(sagaId, fromAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
                 }
                 break;
             case TO_ACCOUNT_UPDATED:
                 if (toAmount.compareTo(BigDecimal.ZERO) < 0) {
                     LOG.info("Depositing withdrawn money to account with id {} because of failed transaction update", transaction.getToAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getToAccountId(), toAmount.abs()));
+                    sagaJournal.compensate(sagaId, toAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getToAccountId(), toAmount.abs()));
                 } else {
                     LOG.info("Withdrawing deposited money from account with id {} because of failed transaction update", transaction.getToAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getToAccountId(), toAmount));
+                    sagaJournal.compensate(sagaId, toAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getToAccountId(), toAmount));
                 }
                 if (fromAmount.compareTo(BigDecimal.ZERO) < 0) {
                     LOG.info("Withdrawing deposited money from account with id {} because of failed transaction update", transaction.getFromAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getFromAccountId(), fromAmount.abs()));
+                    sagaJournal.compensate(sagaId, fromAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getFromAccountId(), fromAmount.abs()));
                 } else {
                     LOG.info("Depositing withdrawn money to account with id {} because of failed transaction update", transaction.getFromAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
+                    sagaJournal.compensate(sagaId, fromAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
                 };
                 break;
             case TRANSACTION_UPDATED:
                 if (toAmount.compareTo(BigDecimal.ZERO) < 0) {
                     LOG.info("Depositing withdrawn money to account with id {} because of failed transaction update", transaction.getToAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getToAccountId(), toAmount.abs()));
+                    sagaJournal.compensate(sagaId, toAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getToAccountId(), toAmount.abs()));
                 } else {
                     LOG.info("Withdrawing deposited money from account with id {} because of failed transaction update", transaction.getToAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getToAccountId(), toAmount));
+                    sagaJournal.compensate(sagaId, toAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getToAccountId(), toAmount));
                 }
                 if (fromAmount.compareTo(BigDecimal.ZERO) < 0) {
                     LOG.info("Withdrawing deposited money from account with id {} because of failed transaction update", transaction.getFromAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getFromAccountId(), fromAmount.abs()));
+                    sagaJournal.compensate(sagaId, fromAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getFromAccountId(), fromAmount.abs()));
                 } else {
                     LOG.info("Depositing withdrawn money to account with id {} because of failed transaction update", transaction.getFromAccountId());
-                    sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
+                    sagaJournal.compensate(sagaId, fromAccountUpdateCorrId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getFromAccountId(), fromAmount));
                 };
                 LOG.info("Rolling back transaction update with id {}", transaction.getRecordId());
-                sendMessage("transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.UPDATE, transaction.getRecordId(), transaction));
+                sagaJournal.compensate(sagaId, transactionUpdateCorrId, "transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.UPDATE, transaction.getRecordId(), transaction));
                 break;
             default:
                 LOG.warn("Couldn't determine restore action for transaction update with state {}", state);
         }
     }
 
-    private void restoreTransactionDeletion(TransactionDeletionState state, TransactionRecord transaction, BigDecimal fromAmount, BigDecimal toAmount) {
+    private void restoreTransactionDeletion(String sagaId, TransactionDeletionState state, String transactionDeletionId, String fromAccountUpdateId,
+                                            String toAccountUpdateId, TransactionRecord transaction, BigDecimal fromAmount, BigDecimal toAmount) {
         LOG.info("Rolling back transaction deletion with id {} and state {}", transaction.getRecordId(), state);
+        if (state != TransactionDeletionState.INIT) {
+            sagaObservations.compensating(sagaId);
+        }
         switch (state) {
             case TRANSACTION_DELETED:
                 LOG.info("Rolling back transaction deletion with id {}", transaction.getRecordId());
-                sendMessage("transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transaction.getRecordId(), transaction));
+                sagaJournal.compensate(sagaId, transactionDeletionId, "transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transaction.getRecordId(), transaction));
                 break;
             case TO_ACCOUNT_WITHDRAWN:
                 LOG.info("Rolling back withdrawal made because of transaction deletion with id {}", transaction.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getToAccountId(), toAmount));
+                sagaJournal.compensate(sagaId, toAccountUpdateId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getToAccountId(), toAmount));
                 LOG.info("Rolling back transaction deletion with id {}", transaction.getRecordId());
-                sendMessage("transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transaction.getRecordId(), transaction));
+                sagaJournal.compensate(sagaId, transactionDeletionId, "transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transaction.getRecordId(), transaction));
                 break;
             case FROM_ACCOUNT_DEPOSITED:
                 LOG.info("Rolling back deposit made because of transaction deletion with id {}", transaction.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getFromAccountId(), fromAmount));
+                sagaJournal.compensate(sagaId, fromAccountUpdateId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.WITHDRAW, transaction.getFromAccountId(), fromAmount));
                 LOG.info("Rolling back withdrawal made because of transaction deletion with id {}", transaction.getRecordId());
-                sendMessage("accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getToAccountId(), toAmount));
+                sagaJournal.compensate(sagaId, toAccountUpdateId, "accounts-out-0", new AccountEvent<>(AccountEvent.Type.DEPOSIT, transaction.getToAccountId(), toAmount));
                 LOG.info("Rolling back transaction deletion with id {}", transaction.getRecordId());
-                sendMessage("transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transaction.getRecordId(), transaction));
+                sagaJournal.compensate(sagaId, transactionDeletionId, "transactions-out-0", new CrudEvent<String, TransactionRecord>(CrudEvent.Type.CREATE, transaction.getRecordId(), transaction));
                 break;
             default:
                 LOG.warn("Couldn't determine rollback action for transaction deletion with state {}", state);
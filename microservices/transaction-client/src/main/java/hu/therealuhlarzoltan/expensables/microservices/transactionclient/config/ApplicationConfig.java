@@ -1,16 +1,33 @@
 package hu.therealuhlarzoltan.expensables.microservices.transactionclient.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.therealuhlarzoltan.expensables.microservices.transactionclient.components.gateways.AccountGateway;
+import hu.therealuhlarzoltan.expensables.util.AccountFastPath;
+import hu.therealuhlarzoltan.expensables.util.JsonLinesSpanExporter;
+import hu.therealuhlarzoltan.expensables.util.SagaJournal;
+import hu.therealuhlarzoltan.expensables.util.SagaLog;
+import hu.therealuhlarzoltan.expensables.util.SagaObservations;
+import hu.therealuhlarzoltan.expensables.util.SmileMessageConverter;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 @Configuration
 public class ApplicationConfig {
 
@@ -18,16 +35,25 @@ public class ApplicationConfig {
 
     private final Integer threadPoolSize;
     private final Integer taskQueueSize;
+    private final String sagaLogPath;
+    private final Integer sagaLogMaxBatchSize;
+    private final Integer sagaLogCompactionThreshold;
     private final ReactorLoadBalancerExchangeFilterFunction lbFunction;
 
     @Autowired
     public ApplicationConfig(
             @Value("${app.threadPoolSize:10}") Integer threadPoolSize,
             @Value("${app.taskQueueSize:100}") Integer taskQueueSize,
+            @Value("${app.saga-log-path}") String sagaLogPath,
+            @Value("${app.saga-log-max-batch-size:256}") Integer sagaLogMaxBatchSize,
+            @Value("${app.saga-log-compaction-threshold:10000}") Integer sagaLogCompactionThreshold,
             ReactorLoadBalancerExchangeFilterFunction lbFunction
     ) {
         this.threadPoolSize = threadPoolSize;
         this.taskQueueSize = taskQueueSize;
+        this.sagaLogPath = sagaLogPath;
+        this.sagaLogMaxBatchSize = sagaLogMaxBatchSize;
+        this.sagaLogCompactionThreshold = sagaLogCompactionThreshold;
         this.lbFunction = lbFunction;
     }
 
@@ -37,8 +63,48 @@ public class ApplicationConfig {
         return Schedulers.newBoundedElastic(threadPoolSize, taskQueueSize, "publish-pool");
     }
 
+    @Bean
+    public SagaLog sagaLog(ObjectMapper mapper, @Qualifier("publishEventScheduler") Scheduler publishEventScheduler) throws IOException {
+        LOG.info("Opens the saga log at {} with maxBatchSize = {}, compactionThreshold = {}", sagaLogPath, sagaLogMaxBatchSize, sagaLogCompactionThreshold);
+        return new SagaLog(Path.of(sagaLogPath), mapper, publishEventScheduler, sagaLogMaxBatchSize, sagaLogCompactionThreshold);
+    }
+
+    @Bean
+    public SagaObservations sagaObservations(ObservationRegistry observationRegistry) {
+        return new SagaObservations(observationRegistry);
+    }
+
+    @Bean
+    public SagaJournal sagaJournal(SagaLog sagaLog, StreamBridge streamBridge, SagaObservations sagaObservations) {
+        return new SagaJournal(sagaLog, streamBridge::send, sagaObservations);
+    }
+
+    @Bean
+    public AccountFastPath accountFastPath(
+            AccountGateway accountGateway,
+            ObjectMapper mapper,
+            @Qualifier("publishEventScheduler") Scheduler publishEventScheduler,
+            @Value("${app.account-fast-path-enabled:false}") boolean accountFastPathEnabled
+    ) {
+        LOG.info("Creates the accountFastPath with enabled = {}", accountFastPathEnabled);
+        return new AccountFastPath(accountGateway::deposit, accountGateway::withdraw, mapper, publishEventScheduler, accountFastPathEnabled);
+    }
+
     @Bean
     public WebClient webClient(WebClient.Builder builder) {
         return builder.filter(lbFunction).build();
     }
+
+    @Bean
+    public MessageConverter smileMessageConverter(ObjectMapper mapper) {
+        // Picked up by the stream binder next to the JSON converter, see the smile profile
+        return new SmileMessageConverter(mapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing-file")
+    public SpanExporter jsonLinesSpanExporter(@Value("${app.tracing-file}") String tracingFile, ObjectMapper mapper) throws IOException {
+        LOG.info("Exports finished spans to {}", tracingFile);
+        return new JsonLinesSpanExporter(Path.of(tracingFile), mapper);
+    }
 }
@@ -7,4 +7,6 @@ import java.time.Duration;
 
 public interface ResponseListenerService {
     Mono<HttpResponseEvent> waitForResponse(String correlationId, Duration timeout);
+    void registerDirectResponse(String correlationId, Mono<HttpResponseEvent> response);
+    String getReplyTo();
 }
\ No newline at end of file
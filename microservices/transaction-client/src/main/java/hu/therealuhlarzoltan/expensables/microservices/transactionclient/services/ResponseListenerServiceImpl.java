@@ -1,9 +1,18 @@
 package hu.therealuhlarzoltan.expensables.microservices.transactionclient.services;
 
 import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.ResponsePayload;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.ServiceResponseException;
+import hu.therealuhlarzoltan.expensables.util.MessageObservations;
+import hu.therealuhlarzoltan.expensables.util.SagaJournal;
+import hu.therealuhlarzoltan.expensables.util.SagaObservations;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.Message;
@@ -20,6 +29,25 @@ import java.util.function.Consumer;
 public class ResponseListenerServiceImpl implements ResponseListenerService {
     private static final Logger LOG = LoggerFactory.getLogger(ResponseListenerServiceImpl.class);
     private final Map<String, MonoSink<HttpResponseEvent>> responseSinks = new ConcurrentHashMap<>();
+    private final Map<String, Mono<HttpResponseEvent>> directResponses = new ConcurrentHashMap<>();
+    private final SagaJournal sagaJournal;
+    private final SagaObservations sagaObservations;
+    private final ObservationRegistry observationRegistry;
+    private final String replyTo;
+    private final Duration directResponseTimeout;
+
+    @Autowired
+    public ResponseListenerServiceImpl(SagaJournal sagaJournal, SagaObservations sagaObservations, MeterRegistry registry, ObservationRegistry observationRegistry,
+                                       @Value("${app.reply-to}") String replyTo, @Value("${app.direct-response-timeout:6s}") Duration directResponseTimeout) {
+        this.sagaJournal = sagaJournal;
+        this.sagaObservations = sagaObservations;
+        this.observationRegistry = observationRegistry;
+        this.replyTo = replyTo;
+        this.directResponseTimeout = directResponseTimeout;
+        Gauge.builder("saga.responses.pending", responseSinks, Map::size)
+                .description("Saga steps waiting for the answer of a core service")
+                .register(registry);
+    }
 
     @Bean
     public Consumer<Message<HttpResponseEvent>> accountResponseProcessor() {
@@ -28,7 +56,8 @@ public class ResponseListenerServiceImpl implements ResponseListenerService {
             String correlationId = (String) message.getHeaders().get("correlationId");
             HttpResponseEvent.Type eventType = event.getEventType();
             LOG.info("Processing message created at {}... Correlation Id: {} Event Type: {}", event.getEventCreatedAt(), correlationId, eventType);
-            processEvent(correlationId, event);
+            MessageObservations.receiving("accountResponseProcessor-in-0", message, observationRegistry)
+                    .observe(() -> processEvent(correlationId, event));
         };
     }
 
@@ -39,15 +68,60 @@ public class ResponseListenerServiceImpl implements ResponseListenerService {
             String correlationId = (String) message.getHeaders().get("correlationId");
             HttpResponseEvent.Type eventType = event.getEventType();
             LOG.info("Processing message created at {}... Correlation Id: {} Event Type: {}", event.getEventCreatedAt(), correlationId, eventType);
-            processEvent(correlationId, event);
+            MessageObservations.receiving("transactionResponseProcessor-in-0", message, observationRegistry)
+                    .observe(() -> processEvent(correlationId, event));
         };
     }
 
 
     public Mono<HttpResponseEvent> waitForResponse(String correlationId, Duration timeout) {
-        return Mono.<HttpResponseEvent>create(sink -> responseSinks.put(correlationId, sink))
+        // Steps sent with a direct call answer through their own publisher, an empty answer means they fell back to messaging
+        return Mono.defer(() -> {
+                    Mono<HttpResponseEvent> directResponse = directResponses.remove(correlationId);
+                    return directResponse != null ? directResponse : Mono.<HttpResponseEvent>empty();
+                })
+                .switchIfEmpty(Mono.create(sink -> responseSinks.put(correlationId, sink)))
+                .doOnNext(response -> {
+                    // A rejected step wasn't applied, so the recovery must not compensate it, a failed dependency might still have been
+                    if (response.getEventType() == HttpResponseEvent.Type.ERROR && response.getData().getStatus() != HttpStatus.FAILED_DEPENDENCY) {
+                        sagaJournal.recordRejection(correlationId);
+                    }
+                })
                 .timeout(timeout, Mono.error(new ServiceResponseException("Dependent service call failed", HttpStatus.FAILED_DEPENDENCY)))
-                .doOnTerminate(() -> responseSinks.remove(correlationId));
+                .doOnNext(response -> sagaObservations.stepAnswered(correlationId, outcomeOf(response)))
+                .doOnError(ex -> sagaObservations.stepAnswered(correlationId, "failed"))
+                .doFinally(signal -> {
+                    responseSinks.remove(correlationId);
+                    directResponses.remove(correlationId);
+                });
+    }
+
+    @Override
+    public void registerDirectResponse(String correlationId, Mono<HttpResponseEvent> response) {
+        // Started right away, so the call runs to completion and its outcome is kept even if the waiting saga gives up or never subscribes
+        Mono<HttpResponseEvent> startedResponse = response
+                .timeout(directResponseTimeout, Mono.fromSupplier(() -> new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId,
+                        new ResponsePayload("Dependent service call timed out", HttpStatus.FAILED_DEPENDENCY))))
+                .cache();
+        directResponses.put(correlationId, startedResponse);
+        // An answer nobody picked up within another timeout belongs to a saga that is gone
+        startedResponse
+                .then(Mono.delay(directResponseTimeout))
+                .doFinally(signal -> directResponses.remove(correlationId, startedResponse))
+                .subscribe(ignored -> {}, ex -> LOG.error("The direct call with correlationId {} failed: {}", correlationId, ex.getMessage()));
+    }
+
+    @Override
+    public String getReplyTo() {
+        // Routing key of this instance's own reply queue, the core services route their responses with it
+        return replyTo;
+    }
+
+    private String outcomeOf(HttpResponseEvent response) {
+        if (response.getEventType() == HttpResponseEvent.Type.SUCCESS) {
+            return "success";
+        }
+        return response.getData().getStatus() == HttpStatus.FAILED_DEPENDENCY ? "failed" : "rejected";
     }
 
     private void processEvent(String correlationId, HttpResponseEvent event) {
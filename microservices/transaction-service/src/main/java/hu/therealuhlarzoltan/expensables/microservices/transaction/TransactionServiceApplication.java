@@ -1,14 +1,30 @@
 package hu.therealuhlarzoltan.expensables.microservices.transaction;
 
+import hu.therealuhlarzoltan.expensables.microservices.transaction.models.TransactionEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @SpringBootApplication(scanBasePackages = "hu.therealuhlarzoltan")
 public class TransactionServiceApplication {
     private static final Logger LOG = LoggerFactory.getLogger(TransactionServiceApplication.class);
 
+    @Autowired
+    ReactiveMongoOperations mongoTemplate;
+
     public static void main(String[] args) {
         var ctx = SpringApplication.run(TransactionServiceApplication.class, args);
 
@@ -19,4 +35,24 @@ public class TransactionServiceApplication {
         LOG.info("Connected to MongoDb on URL {}:{}", mongoDbHost, mongoDbPort);
     }
 
+    @EventListener(ContextRefreshedEvent.class)
+    public void initIndicesAfterStartup() {
+        // Not waited for, the finders just scan the collection until the indices are built
+        ensureIndices().subscribe(
+                null,
+                ex -> LOG.error("Failed to create the indices of the transaction_records collection: {}", ex.getMessage()),
+                () -> LOG.info("Indices of the transaction_records collection are in place")
+        );
+    }
+
+    public Mono<Void> ensureIndices() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext = mongoTemplate.getConverter().getMappingContext();
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(TransactionEntity.class);
+        return Flux.fromIterable(resolver.resolveIndexFor(TransactionEntity.class))
+                .concatMap(indexOps::ensureIndex)
+                .then();
+    }
+
 }
@@ -1,5 +1,6 @@
 package hu.therealuhlarzoltan.expensables.microservices.transaction.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.reactivestreams.client.MongoClient;
@@ -7,6 +8,9 @@ import com.mongodb.reactivestreams.client.MongoClients;
 import hu.therealuhlarzoltan.expensables.microservices.transaction.components.StringToZonedDateTimeConverter;
 import hu.therealuhlarzoltan.expensables.microservices.transaction.components.ZonedDateTimeCodec;
 import hu.therealuhlarzoltan.expensables.microservices.transaction.components.ZonedDateTimeToStringConverter;
+import hu.therealuhlarzoltan.expensables.util.JsonLinesSpanExporter;
+import hu.therealuhlarzoltan.expensables.util.SmileMessageConverter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
 import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.slf4j.Logger;
@@ -20,9 +24,12 @@ import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.messaging.converter.MessageConverter;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 
@@ -32,16 +39,19 @@ public class ApplicationConfig {
 
     private final Integer threadPoolSize;
     private final Integer taskQueueSize;
+    private final Integer messageProcessorConcurrency;
     private final ZonedDateTimeCodec zonedDateTimeCodec;
 
     @Autowired
     public ApplicationConfig(
             @Value("${app.threadPoolSize:10}") Integer threadPoolSize,
             @Value("${app.taskQueueSize:100}") Integer taskQueueSize,
+            @Value("${app.messageProcessorConcurrency:8}") Integer messageProcessorConcurrency,
             ZonedDateTimeCodec zonedDateTimeCodec
     ) {
         this.threadPoolSize = threadPoolSize;
         this.taskQueueSize = taskQueueSize;
+        this.messageProcessorConcurrency = messageProcessorConcurrency;
         this.zonedDateTimeCodec = zonedDateTimeCodec;
     }
 
@@ -51,6 +61,12 @@ public class ApplicationConfig {
         return Schedulers.newBoundedElastic(threadPoolSize, taskQueueSize, "publish-pool");
     }
 
+    @Bean
+    public Scheduler messageProcessorScheduler() {
+        LOG.info("Creates a messageProcessorScheduler with parallelism = {}", messageProcessorConcurrency);
+        return Schedulers.newParallel("message-processor", messageProcessorConcurrency);
+    }
+
     @Bean
     @Lazy
     @ConditionalOnProperty(name = {"spring.data.mongodb.host", "spring.data.mongodb.port", "spring.data.mongodb.database"})
@@ -84,5 +100,17 @@ public class ApplicationConfig {
         List<Converter<?, ?>> converters = Arrays.asList(stringToZonedDateTimeConverter, zonedDateTimeToStringConverter);
         return new MongoCustomConversions(converters);
     }
-}
 
+    @Bean
+    public MessageConverter smileMessageConverter(ObjectMapper mapper) {
+        // Picked up by the stream binder next to the JSON converter, see the smile profile
+        return new SmileMessageConverter(mapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracingFile")
+    public SpanExporter jsonLinesSpanExporter(@Value("${app.tracingFile}") String tracingFile, ObjectMapper mapper) throws IOException {
+        LOG.info("Exports finished spans to {}", tracingFile);
+        return new JsonLinesSpanExporter(Path.of(tracingFile), mapper);
+    }
+}
@@ -14,11 +14,17 @@ import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.EventProce
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.InsufficientFundsException;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.InvalidInputDataException;
 import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundException;
+import hu.therealuhlarzoltan.expensables.util.AcknowledgingProcessor;
+import hu.therealuhlarzoltan.expensables.util.KeyedExecutor;
+import hu.therealuhlarzoltan.expensables.util.MessageObservations;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,10 +33,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import java.io.IOException;
-import java.util.function.Consumer;
+import java.time.Duration;
+import java.util.function.Function;
 
 @Configuration
 public class MessageProcessorConfig {
@@ -38,135 +46,143 @@ public class MessageProcessorConfig {
     private final StreamBridge streamBridge;
     private final TransactionController controller;
     private final ObjectMapper objectMapper;
+    private final KeyedExecutor<Message<Event<?, ?>>> keyedExecutor;
+    private final AcknowledgingProcessor acknowledgingProcessor;
+    private final ObservationRegistry observationRegistry;
 
     @Autowired
-    public MessageProcessorConfig(StreamBridge streamBridge, ObjectMapper objectMapper, TransactionController controller) {
+    public MessageProcessorConfig(
+            StreamBridge streamBridge,
+            ObjectMapper objectMapper,
+            TransactionController controller,
+            @Value("${app.messageProcessorConcurrency:8}") Integer messageProcessorConcurrency,
+            @Value("${app.messageProcessorMaxAttempts:3}") Integer messageProcessorMaxAttempts,
+            @Value("${app.messageProcessorBackOffInitialInterval:500ms}") Duration messageProcessorBackOffInitialInterval,
+            @Value("${app.messageProcessorBackOffMaxInterval:1s}") Duration messageProcessorBackOffMaxInterval,
+            @Value("${app.messageProcessorBackOffMultiplier:2.0}") Double messageProcessorBackOffMultiplier,
+            @Qualifier("messageProcessorScheduler") Scheduler messageProcessorScheduler,
+            ObservationRegistry observationRegistry
+    ) {
         this.objectMapper = objectMapper;
         this.controller = controller;
         this.streamBridge = streamBridge;
+        this.observationRegistry = observationRegistry;
+        this.keyedExecutor = new KeyedExecutor<>(
+                messageProcessorConcurrency,
+                message -> message.getHeaders().getOrDefault("partitionKey", message.getPayload().getKey()),
+                messageProcessorScheduler
+        );
+        this.acknowledgingProcessor = new AcknowledgingProcessor(
+                messageProcessorMaxAttempts,
+                messageProcessorBackOffInitialInterval,
+                messageProcessorBackOffMaxInterval,
+                messageProcessorBackOffMultiplier,
+                messageProcessorScheduler
+        );
     }
 
     @Bean
-    public Consumer<Message<Event<?, ?>>> messageProcessor() {
-        return message -> {
-            Event<?, ?> event = message.getPayload();
-            String correlationId = (String) message.getHeaders().get("correlationId");
-            LOG.info("Processing message created at {}...", event.getEventCreatedAt());
-            if (event instanceof CrudEvent<?, ?>) {
-                LOG.info("CRUD event detected...");
-                if (!(event.getKey() instanceof String)) {
-                    String errorMessage = "Incorrect CRUD event parameters, expected <String, TransactionRecord>";
-                    LOG.warn(errorMessage);
-                    throw new EventProcessingException(errorMessage);
-                }
-                TransactionRecord crudEventData;
-                try {
-                    crudEventData = objectMapper.convertValue(event.getData(), TransactionRecord.class);
-                } catch (IllegalArgumentException e) {
-                    String errorMessage = "Incorrect CRUD event parameters, expected <String, TransactionRecord>";
-                    LOG.warn(errorMessage);
-                    throw new EventProcessingException(errorMessage);
-                }
-                @SuppressWarnings(value = "unchecked") // We know that the Event is a CrudEvent and the key is a String
-                CrudEvent<String, ?> eventWithKey = (CrudEvent<String, ?>) event;
-                CrudEvent<String, TransactionRecord> crudEvent = new CrudEvent<String, TransactionRecord>(eventWithKey.getEventType(), eventWithKey.getKey(), crudEventData);
-                switch (crudEvent.getEventType()) {
-                    case CREATE:
-                        TransactionRecord transaction = crudEvent.getData();
-                        try {
-                            controller.createTransaction(transaction)
-                                    .doOnSuccess(createdExpense -> {
-                                        String jsonString = serializeObjectToJson(createdExpense);
-                                        ResponsePayload httpInfo = new ResponsePayload(jsonString, HttpStatus.CREATED);
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
-                                        sendResponseMessage("transactionResponses-out-0", correlationId, responseEvent);
-                                    })
-                                    .onErrorResume(throwable -> {
-                                        LOG.error("Failed to create transaction, exception message: {}", throwable.getMessage());
-                                        ResponsePayload httpInfo = new ResponsePayload(getExceptionMessage(throwable), resolveHttpStatus(throwable));
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                                        sendResponseMessage("transactionResponses-out-0", correlationId, responseEvent);
-                                        return Mono.empty();
-                                    })
-                                    .subscribe();
-                        } catch (Exception ex) {
-                            LOG.error("Failed to create transaction, exception message: {}", ex.getMessage());
-                            ResponsePayload httpInfo = new ResponsePayload(getExceptionMessage(ex), resolveHttpStatus(ex));
-                            HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                            sendResponseMessage("transactionResponses-out-0", correlationId, responseEvent);
-                        }
-                        break;
-                    case UPDATE:
-                        TransactionRecord transactionToUpdate = crudEvent.getData();
-                        try {
-                            controller.updateTransaction(transactionToUpdate)
-                                    .doOnSuccess(updatedExpense -> {
-                                        String jsonString = serializeObjectToJson(updatedExpense);
-                                        ResponsePayload httpInfo = new ResponsePayload(jsonString, HttpStatus.ACCEPTED);
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
-                                        sendResponseMessage("transactionResponses-out-0", correlationId, responseEvent);
-                                    })
-                                    .onErrorResume(throwable -> {
-                                        LOG.error("Failed to update transaction, exception message: {}", throwable.getMessage());
-                                        ResponsePayload httpInfo = new ResponsePayload(getExceptionMessage(throwable), resolveHttpStatus(throwable));
-                                        HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                                        sendResponseMessage("transactionResponses-out-0", correlationId, responseEvent);
-                                        return Mono.empty();
-                                    })
-                                    .subscribe();
-                        } catch (Exception ex) {
-                            LOG.error("Failed to update transaction, exception message: {}", ex.getMessage());
-                            ResponsePayload httpInfo = new ResponsePayload(getExceptionMessage(ex), resolveHttpStatus(ex));
-                            HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
-                            sendResponseMessage("transactionResponses-out-0", correlationId, responseEvent);
-                        }
-                        break;
-                    case DELETE:
-                        String transactionId = crudEvent.getKey();
-                        controller.deleteTransaction(transactionId).block();
-                        break;
-                    case DELETE_ALL:
-                        String accountId = crudEvent.getKey();
-                        controller.deleteTransactionsByAccount(accountId).block();
-                        break;
-                    default:
-                        String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE, UPDATE, DELETE or DELETE_ALL event";
-                        LOG.warn(errorMessage);
-                        throw new EventProcessingException(errorMessage);
-                }
-            } else {
-                String errorMessage = "Incorrect event type: " + event.getClass().getSimpleName() + ", expected a CrudEvent";
+    public Function<Flux<Message<Event<?, ?>>>, Mono<Void>> messageProcessor() {
+        // Messages with the same partition key are processed in order, different keys are processed in parallel
+        // A message is only acknowledged once it was processed, failing ones are retried and then dead lettered
+        return messages -> keyedExecutor.execute(messages, message -> acknowledgingProcessor.process(message,
+                () -> MessageObservations.observeProcessing("messageProcessor-in-0", message, observationRegistry, () -> processMessage(message))));
+    }
+
+    private Mono<Void> processMessage(Message<Event<?, ?>> message) {
+        Event<?, ?> event = message.getPayload();
+        String correlationId = (String) message.getHeaders().get("correlationId");
+        String replyTo = (String) message.getHeaders().get("replyTo");
+        LOG.info("Processing message created at {}...", event.getEventCreatedAt());
+        if (event instanceof CrudEvent<?, ?>) {
+            LOG.info("CRUD event detected...");
+            if (!(event.getKey() instanceof String)) {
+                String errorMessage = "Incorrect CRUD event parameters, expected <String, TransactionRecord>";
                 LOG.warn(errorMessage);
-                throw new EventProcessingException(errorMessage);
+                return Mono.error(new EventProcessingException(errorMessage));
             }
-            LOG.info("Message processing done!");
-        };
+            TransactionRecord crudEventData;
+            try {
+                crudEventData = objectMapper.convertValue(event.getData(), TransactionRecord.class);
+            } catch (IllegalArgumentException e) {
+                String errorMessage = "Incorrect CRUD event parameters, expected <String, TransactionRecord>";
+                LOG.warn(errorMessage);
+                return Mono.error(new EventProcessingException(errorMessage));
+            }
+            @SuppressWarnings(value = "unchecked") // We know that the Event is a CrudEvent and the key is a String
+            CrudEvent<String, ?> eventWithKey = (CrudEvent<String, ?>) event;
+            CrudEvent<String, TransactionRecord> crudEvent = new CrudEvent<String, TransactionRecord>(eventWithKey.getEventType(), eventWithKey.getKey(), crudEventData);
+            switch (crudEvent.getEventType()) {
+                case CREATE:
+                    TransactionRecord transaction = crudEvent.getData();
+                    // Deferred, so exceptions thrown directly by the controller end up in onErrorResume as well
+                    return Mono.defer(() -> controller.createTransaction(transaction))
+                            .doOnSuccess(createdTransaction -> {
+                                ResponsePayload httpInfo = new ResponsePayload(HttpStatus.CREATED, createdTransaction);
+                                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
+                                sendResponseMessage("transactionResponses-out-0", correlationId, replyTo, responseEvent);
+                            })
+                            .onErrorResume(throwable -> {
+                                LOG.error("Failed to create transaction, exception message: {}", throwable.getMessage());
+                                ResponsePayload httpInfo = new ResponsePayload(getExceptionMessage(throwable), resolveHttpStatus(throwable));
+                                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
+                                sendResponseMessage("transactionResponses-out-0", correlationId, replyTo, responseEvent);
+                                return Mono.empty();
+                            })
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                case UPDATE:
+                    TransactionRecord transactionToUpdate = crudEvent.getData();
+                    return Mono.defer(() -> controller.updateTransaction(transactionToUpdate))
+                            .doOnSuccess(updatedTransaction -> {
+                                ResponsePayload httpInfo = new ResponsePayload(HttpStatus.ACCEPTED, updatedTransaction);
+                                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.SUCCESS, correlationId, httpInfo);
+                                sendResponseMessage("transactionResponses-out-0", correlationId, replyTo, responseEvent);
+                            })
+                            .onErrorResume(throwable -> {
+                                LOG.error("Failed to update transaction, exception message: {}", throwable.getMessage());
+                                ResponsePayload httpInfo = new ResponsePayload(getExceptionMessage(throwable), resolveHttpStatus(throwable));
+                                HttpResponseEvent responseEvent = new HttpResponseEvent(HttpResponseEvent.Type.ERROR, correlationId, httpInfo);
+                                sendResponseMessage("transactionResponses-out-0", correlationId, replyTo, responseEvent);
+                                return Mono.empty();
+                            })
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                case DELETE:
+                    String transactionId = crudEvent.getKey();
+                    return Mono.defer(() -> controller.deleteTransaction(transactionId))
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                case DELETE_ALL:
+                    String accountId = crudEvent.getKey();
+                    return Mono.defer(() -> controller.deleteTransactionsByAccount(accountId))
+                            .then(Mono.fromRunnable(() -> LOG.info("Message processing done!")));
+                default:
+                    String errorMessage = "Incorrect event type: " + event.getEventType() + ", expected a CREATE, UPDATE, DELETE or DELETE_ALL event";
+                    LOG.warn(errorMessage);
+                    return Mono.error(new EventProcessingException(errorMessage));
+            }
+        } else {
+            String errorMessage = "Incorrect event type: " + event.getClass().getSimpleName() + ", expected a CrudEvent";
+            LOG.warn(errorMessage);
+            return Mono.error(new EventProcessingException(errorMessage));
+        }
     }
 
-    private void sendResponseMessage(String bindingName, String correlationId, HttpResponseEvent event) {
+    private void sendResponseMessage(String bindingName, String correlationId, String replyTo, HttpResponseEvent event) {
         if (correlationId == null) {
             LOG.warn("No correlationId found in the message headers, will not send a response message");
             return;
         }
         LOG.info("Sending a response message to {} with correlationId {}", bindingName, correlationId);
-        Message<HttpResponseEvent> responseMessage = MessageBuilder.withPayload(event)
+        MessageBuilder<HttpResponseEvent> responseMessage = MessageBuilder.withPayload(event)
                 .setHeader("correlationId", correlationId)
-                .build();
-        boolean success = streamBridge.send(bindingName, responseMessage);
+                .setHeader("replyTo", replyTo);
+        // Sent within the processing observation, so the reply continues the trace of the request
+        boolean success = MessageObservations.sending(bindingName, responseMessage, observationRegistry)
+                .observe(() -> streamBridge.send(bindingName, responseMessage.build()));
         if (!success) {
             LOG.error("Failed to send the response message to {} with correlationId {}", bindingName, correlationId);
         }
     }
 
-    private String serializeObjectToJson(Object object) {
-        try {
-            return objectMapper.writeValueAsString(object);
-        } catch (IOException e) {
-            LOG.error("Failed to serialize object to JSON: {}", e.getMessage());
-            return null;
-        }
-    }
-
     private HttpStatus resolveHttpStatus(Throwable throwable) {
         return switch (throwable) {
             case NotFoundException notFoundException -> HttpStatus.NOT_FOUND;
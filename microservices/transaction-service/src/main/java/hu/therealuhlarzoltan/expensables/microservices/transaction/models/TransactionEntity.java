@@ -10,6 +10,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -21,6 +23,11 @@ import java.time.ZonedDateTime;
 @NoArgsConstructor
 @Builder
 @Document(collection = "transaction_records")
+@CompoundIndexes({
+        @CompoundIndex(name = "from_account_timestamp", def = "{'fromAccountId': 1, 'timestamp': -1}"),
+        @CompoundIndex(name = "to_account_timestamp", def = "{'toAccountId': 1, 'timestamp': -1}"),
+        @CompoundIndex(name = "user_timestamp", def = "{'userId': 1, 'timestamp': -1}")
+})
 public class TransactionEntity {
     @Id
     private String id;
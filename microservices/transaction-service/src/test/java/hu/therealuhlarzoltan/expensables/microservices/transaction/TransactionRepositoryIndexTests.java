@@ -0,0 +1,62 @@
+package hu.therealuhlarzoltan.expensables.microservices.transaction;
+
+import hu.therealuhlarzoltan.expensables.microservices.transaction.repositories.TransactionRepository;
+import hu.therealuhlarzoltan.expensables.util.QueryPlanRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+
+import java.util.UUID;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "eureka.client.enabled=false",
+        "spring.profiles.active=default",
+        "spring.data.mongodb.host=localhost"
+})
+@Import(QueryPlanRecorder.Configuration.class)
+class TransactionRepositoryIndexTests {
+
+    @Autowired
+    private ReactiveMongoOperations mongoTemplate;
+
+    @Autowired
+    private QueryPlanRecorder queryPlans;
+
+    @Autowired
+    private TransactionRepository repository;
+
+    @Autowired
+    private TransactionServiceApplication application;
+
+    private final String accountId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void ensureIndices() {
+        application.ensureIndices().block();
+    }
+
+    @Test
+    void findAllByFromAccountIdUsesAnIndex() {
+        assertIndexScan(repository.findAllByFromAccountId(accountId));
+    }
+
+    @Test
+    void findAllByToAccountIdUsesAnIndex() {
+        assertIndexScan(repository.findAllByToAccountId(accountId));
+    }
+
+    @Test
+    void findAllByUserIdUsesAnIndex() {
+        assertIndexScan(repository.findAllByUserId(1L));
+    }
+
+    private void assertIndexScan(Publisher<?> query) {
+        queryPlans.assertIndexScan(mongoTemplate, "transaction_records", query);
+    }
+}
@@ -0,0 +1,102 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.therealuhlarzoltan.expensables.api.microservices.core.account.Account;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.AccountEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.Event;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.ResponsePayload;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.InvalidInputDataException;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.NotFoundException;
+import hu.therealuhlarzoltan.expensables.api.microservices.exceptions.ServiceResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+import static hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent.Type.ERROR;
+import static hu.therealuhlarzoltan.expensables.api.microservices.events.HttpResponseEvent.Type.SUCCESS;
+
+/**
+ * Executes the balance changing saga steps with a direct call to the account service instead of a message round trip.
+ * The outcome is wrapped into the same {@link HttpResponseEvent} the account service would publish, so the sagas handle both transports alike.
+ */
+public class AccountFastPath {
+    private static final Logger LOG = LoggerFactory.getLogger(AccountFastPath.class);
+    private final BalanceChange deposit;
+    private final BalanceChange withdrawal;
+    private final ObjectMapper objectMapper;
+    private final Scheduler publishEventScheduler;
+    private final boolean enabled;
+
+    /**
+     * A direct balance change call of the account service, usually a method reference to the gateway of the client.
+     */
+    @FunctionalInterface
+    public interface BalanceChange {
+        Mono<Account> apply(String accountId, BigDecimal amount, String correlationId);
+    }
+
+    public AccountFastPath(BalanceChange deposit, BalanceChange withdrawal, ObjectMapper objectMapper, Scheduler publishEventScheduler, boolean enabled) {
+        this.deposit = deposit;
+        this.withdrawal = withdrawal;
+        this.objectMapper = objectMapper;
+        this.publishEventScheduler = publishEventScheduler;
+        this.enabled = enabled;
+    }
+
+    public boolean supports(String bindingName, Event<?, ?> event) {
+        return enabled && "accounts-out-0".equals(bindingName) && event instanceof AccountEvent<?, ?>
+                && event.getKey() instanceof String && event.getData() instanceof BigDecimal;
+    }
+
+    public Mono<HttpResponseEvent> execute(String correlationId, Event<?, ?> event, Runnable messagingFallback) {
+        String accountId = (String) event.getKey();
+        BigDecimal amount = (BigDecimal) event.getData();
+        return Mono.defer(() -> {
+                    LOG.info("Calling the account service directly with a {} request, correlation id {}", event.getEventType(), correlationId);
+                    return event.getEventType() == AccountEvent.Type.DEPOSIT
+                            ? deposit.apply(accountId, amount, correlationId)
+                            : withdrawal.apply(accountId, amount, correlationId);
+                })
+                .map(account -> new HttpResponseEvent(SUCCESS, correlationId, new ResponsePayload(HttpStatus.OK, account)))
+                // Only an open circuit guarantees that the change was not applied, so that is the only case that is safe to resend
+                .onErrorResume(this::isCircuitOpen, ex -> {
+                    LOG.warn("The account service circuit is open, sending the {} request with correlation id {} as a message", event.getEventType(), correlationId);
+                    return Mono.<HttpResponseEvent>fromRunnable(messagingFallback).subscribeOn(publishEventScheduler);
+                })
+                .onErrorResume(ex -> Mono.just(new HttpResponseEvent(ERROR, correlationId, new ResponsePayload(resolveMessage(ex), resolveHttpStatus(ex)))));
+    }
+
+    private boolean isCircuitOpen(Throwable throwable) {
+        return throwable instanceof ServiceResponseException serviceResponseException
+                && serviceResponseException.getResponseStatus() == HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+    private String resolveMessage(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException webClientResponseException) {
+            try {
+                return objectMapper.readValue(webClientResponseException.getResponseBodyAsString(), HttpErrorInfo.class).getMessage();
+            } catch (IOException e) {
+                return webClientResponseException.getMessage();
+            }
+        }
+        return throwable.getMessage();
+    }
+
+    private HttpStatus resolveHttpStatus(Throwable throwable) {
+        return switch (throwable) {
+            case ServiceResponseException serviceResponseException -> Objects.requireNonNullElse(serviceResponseException.getResponseStatus(), HttpStatus.FAILED_DEPENDENCY);
+            case NotFoundException notFoundException -> HttpStatus.NOT_FOUND;
+            case InvalidInputDataException invalidInputDataException -> HttpStatus.UNPROCESSABLE_ENTITY;
+            case WebClientResponseException webClientResponseException -> Objects.requireNonNullElse(HttpStatus.resolve(webClientResponseException.getStatusCode().value()), HttpStatus.FAILED_DEPENDENCY);
+            case null, default -> HttpStatus.FAILED_DEPENDENCY;
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.integration.amqp.inbound.AmqpInboundChannelAdapter;
+import org.springframework.messaging.Message;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Processes messages of consumers bound with a manual acknowledge mode. Reactive functions hand the messages over
+ * before they are processed, so the binder can't acknowledge, retry or dead letter them by itself.
+ * A message is acknowledged once its processing completed. Failed processing is retried with an exponential backoff,
+ * after the last attempt the message is rejected without requeueing, so the broker moves it to the dead letter queue of the binding.
+ */
+public class AcknowledgingProcessor {
+    private static final Logger LOG = LoggerFactory.getLogger(AcknowledgingProcessor.class);
+
+    private final int maxAttempts;
+    private final Duration initialInterval;
+    private final Duration maxInterval;
+    private final double multiplier;
+    private final Scheduler retryScheduler;
+
+    public AcknowledgingProcessor(int maxAttempts, Duration initialInterval, Duration maxInterval, double multiplier, Scheduler retryScheduler) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The number of attempts must be at least 1");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("The backoff multiplier must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialInterval = initialInterval;
+        this.maxInterval = maxInterval;
+        this.multiplier = multiplier;
+        this.retryScheduler = retryScheduler;
+    }
+
+    /**
+     * The returned Mono completes once the message has been acknowledged or rejected, it never signals an error.
+     * A batch of messages is acknowledged or rejected as a whole.
+     */
+    public Mono<Void> process(Message<?> message, Supplier<Mono<Void>> processing) {
+        return Mono.defer(processing)
+                .retryWhen(retry())
+                .then(Mono.fromRunnable(() -> acknowledge(message)))
+                .onErrorResume(throwable -> {
+                    LOG.error("Failed to process message after {} attempts, rejecting it, exception message: {}", maxAttempts, throwable.getMessage());
+                    reject(message);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * The total backoff between the first and the last attempt, so the time a message is retried before it is dead lettered.
+     */
+    public Duration retryWindow() {
+        Duration window = Duration.ZERO;
+        for (int retries = 0; retries < maxAttempts - 1; retries++) {
+            window = window.plus(backOff(retries));
+        }
+        return window;
+    }
+
+    private Retry retry() {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            long retries = signal.totalRetries();
+            if (retries + 1 >= maxAttempts) {
+                return Mono.error(signal.failure());
+            }
+            Duration backOff = backOff(retries);
+            LOG.warn("Failed to process message, attempt {} of {} in {} ms, exception message: {}", retries + 2, maxAttempts, backOff.toMillis(), signal.failure().getMessage());
+            return Mono.delay(backOff, retryScheduler);
+        }));
+    }
+
+    private Duration backOff(long retries) {
+        double interval = initialInterval.toMillis() * Math.pow(multiplier, retries);
+        return Duration.ofMillis((long) Math.min(interval, maxInterval.toMillis()));
+    }
+
+    private void acknowledge(Message<?> message) {
+        Delivery delivery = deliveryOf(message);
+        if (delivery == null) {
+            return;
+        }
+        // Acks and nacks of different lanes may arrive at the same time, and channels aren't meant to be shared between threads
+        synchronized (delivery.channel()) {
+            try {
+                delivery.channel().basicAck(delivery.deliveryTag(), delivery.multiple());
+            } catch (IOException e) {
+                LOG.error("Couldn't acknowledge message with delivery tag {}, it will be redelivered: {}", delivery.deliveryTag(), e.getMessage());
+            }
+        }
+    }
+
+    private void reject(Message<?> message) {
+        Delivery delivery = deliveryOf(message);
+        if (delivery == null) {
+            return;
+        }
+        synchronized (delivery.channel()) {
+            try {
+                delivery.channel().basicNack(delivery.deliveryTag(), delivery.multiple(), false);
+            } catch (IOException e) {
+                LOG.error("Couldn't reject message with delivery tag {}, it will be redelivered: {}", delivery.deliveryTag(), e.getMessage());
+            }
+        }
+    }
+
+    private Delivery deliveryOf(Message<?> message) {
+        Map<String, Object> headers = message.getHeaders();
+        Object channel = headers.get(AmqpHeaders.CHANNEL);
+        Object deliveryTag = headers.get(AmqpHeaders.DELIVERY_TAG);
+        boolean batch = false;
+        if (headers.get(AmqpInboundChannelAdapter.CONSOLIDATED_HEADERS) instanceof List<?> batchedHeaders && !batchedHeaders.isEmpty()
+                && batchedHeaders.getLast() instanceof Map<?, ?> lastHeaders) {
+            // The delivery tags of a channel grow monotonically, acknowledging the last one of a batch covers the whole batch
+            batch = true;
+            deliveryTag = lastHeaders.get(AmqpHeaders.DELIVERY_TAG);
+            if (channel == null) {
+                channel = lastHeaders.get(AmqpHeaders.CHANNEL);
+            }
+        }
+        if (channel instanceof Channel amqpChannel && deliveryTag instanceof Long tag) {
+            return new Delivery(amqpChannel, tag, batch);
+        }
+        return null;
+    }
+
+    private record Delivery(Channel channel, long deliveryTag, boolean multiple) {
+    }
+}
@@ -0,0 +1,82 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Thread-safe in-memory cache holding at most a fixed number of entries, each for a fixed time after it was written.
+ * Entries are kept in write order, so both expiry and eviction of a full cache remove the oldest entries first.
+ */
+public class ExpiringCache<K, V> {
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final LinkedHashMap<K, CachedValue<V>> entries;
+
+    private record CachedValue<V>(V value, Instant expiresAt) {
+    }
+
+    public ExpiringCache(int maxSize, Duration timeToLive) {
+        this(maxSize, timeToLive, Clock.systemUTC());
+    }
+
+    public ExpiringCache(int maxSize, Duration timeToLive, Clock clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size must be at least 1");
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("The time to live must be positive");
+        }
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized Optional<V> get(K key) {
+        CachedValue<V> cached = entries.get(key);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (!cached.expiresAt().isAfter(clock.instant())) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(cached.value());
+    }
+
+    public synchronized void put(K key, V value) {
+        Instant now = clock.instant();
+        evictExpired(now);
+        // Re-inserting moves the key to the end, keeping the map ordered by expiry
+        entries.remove(key);
+        entries.put(key, new CachedValue<>(value, now.plus(timeToLive)));
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        evictExpired(clock.instant());
+        return entries.size();
+    }
+
+    private void evictExpired(Instant now) {
+        Iterator<CachedValue<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt().isAfter(now)) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Executes a stream of items on a fixed number of lanes.
+ * Items are assigned to a lane by hashing their key, so items with the same key are always handled
+ * one after the other in arrival order, while the lanes themselves run in parallel on the given scheduler.
+ */
+public class KeyedExecutor<T> {
+    private final int lanes;
+    private final Function<T, Object> keyExtractor;
+    private final Scheduler scheduler;
+
+    public KeyedExecutor(int lanes, Function<T, Object> keyExtractor, Scheduler scheduler) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("The number of lanes must be at least 1");
+        }
+        this.lanes = lanes;
+        this.keyExtractor = keyExtractor;
+        this.scheduler = scheduler;
+    }
+
+    public Mono<Void> execute(Flux<T> items, Function<T, Mono<Void>> handler) {
+        return items
+                .groupBy(this::laneOf)
+                .flatMap(lane -> lane
+                        .publishOn(scheduler)
+                        .concatMap(handler), lanes)
+                .then();
+    }
+
+    public int laneOf(T item) {
+        return Math.floorMod(Objects.hashCode(keyExtractor.apply(item)), lanes);
+    }
+}
@@ -0,0 +1,72 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.micrometer.observation.transport.Kind;
+import io.micrometer.observation.transport.ReceiverContext;
+import io.micrometer.observation.transport.SenderContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Observations around the messages the services exchange through the broker.
+ * The trace context travels in the headers of the messages, so a saga step, its processing in a core service
+ * and the response to it all end up in the same trace.
+ */
+public final class MessageObservations {
+
+    private MessageObservations() {
+    }
+
+    /**
+     * Starting the returned observation writes its trace context into the headers of the message being built.
+     */
+    public static Observation sending(String bindingName, MessageBuilder<?> message, ObservationRegistry registry) {
+        SenderContext<MessageBuilder<?>> context = new SenderContext<>((carrier, key, value) -> carrier.setHeader(key, value), Kind.PRODUCER);
+        context.setCarrier(message);
+        context.setRemoteServiceName(bindingName);
+        return Observation.createNotStarted("message.send", () -> context, registry)
+                .contextualName(bindingName + " send")
+                .lowCardinalityKeyValue("binding", bindingName);
+    }
+
+    /**
+     * The returned observation continues the trace found in the headers of the message.
+     */
+    public static Observation receiving(String bindingName, Message<?> message, ObservationRegistry registry) {
+        ReceiverContext<MessageHeaders> context = new ReceiverContext<>((carrier, key) -> {
+            // Headers coming from the broker aren't necessarily strings
+            Object value = carrier.get(key);
+            return value != null ? value.toString() : null;
+        }, Kind.CONSUMER);
+        context.setCarrier(message.getHeaders());
+        context.setRemoteServiceName(bindingName);
+        return Observation.createNotStarted("message.process", () -> context, registry)
+                .contextualName(bindingName + " process")
+                .lowCardinalityKeyValue("binding", bindingName);
+    }
+
+    /**
+     * Runs the reactive processing of a received message inside its observation. The observation is put in the Reactor context,
+     * so with automatic context propagation the responses sent from any operator of the processing belong to the same trace.
+     */
+    public static <T> Mono<T> observeProcessing(String bindingName, Message<?> message, ObservationRegistry registry, Supplier<Mono<T>> processing) {
+        return Mono.defer(() -> {
+            Observation observation = receiving(bindingName, message, registry).start();
+            Mono<T> result;
+            // Part of the processing happens while it is assembled
+            try (Observation.Scope scope = observation.openScope()) {
+                result = processing.get();
+            }
+            return result
+                    .doOnError(observation::error)
+                    .doFinally(signal -> observation.stop())
+                    .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+}
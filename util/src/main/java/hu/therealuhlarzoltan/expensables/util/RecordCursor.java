@@ -0,0 +1,52 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a list of records ordered by timestamp and id, handed out to clients as an opaque string.
+ * It carries both sort keys of the last record of a page, so the next page can be read without looking that record up.
+ */
+public record RecordCursor(Instant timestamp, ObjectId id) {
+
+    public static RecordCursor of(ZonedDateTime timestamp, String id) {
+        return new RecordCursor(timestamp.toInstant(), new ObjectId(id));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value wasn't produced by {@link #encode()}
+     */
+    public static RecordCursor decode(String value) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+        int separator = decoded.indexOf(':');
+        if (separator < 0 || !ObjectId.isValid(decoded.substring(separator + 1))) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        try {
+            Instant timestamp = Instant.ofEpochMilli(Long.parseLong(decoded.substring(0, separator)));
+            return new RecordCursor(timestamp, new ObjectId(decoded.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+    }
+
+    public String encode() {
+        // Milliseconds are all a stored date keeps, so nothing is lost
+        String value = timestamp.toEpochMilli() + ":" + id.toHexString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ZonedDateTime timestampInUtc() {
+        return timestamp.atZone(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,187 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.events.AccountEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.CrudEvent;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a durable record of the steps the sagas dispatch, together with the event that reverts each of them.
+ * Every step is written to the saga log before it leaves, so the sagas cut short by a crash can be compensated on the next start.
+ * A compensation carries the correlation id of the step it reverts, the account service only applies it if that step was applied,
+ * and under an id of its own, so sending it twice doesn't revert the step twice.
+ */
+public class SagaJournal {
+    private static final Logger LOG = LoggerFactory.getLogger(SagaJournal.class);
+    private final SagaLog sagaLog;
+    private final MessageSender messageSender;
+    private final SagaObservations sagaObservations;
+    private final Map<String, String> sagaIdsByCorrelationId = new ConcurrentHashMap<>();
+
+    /**
+     * Sends a message to an output binding, usually a method reference to the StreamBridge of the client.
+     */
+    @FunctionalInterface
+    public interface MessageSender {
+        boolean send(String bindingName, Message<?> message);
+    }
+
+    public SagaJournal(SagaLog sagaLog, MessageSender messageSender, SagaObservations sagaObservations) {
+        this.sagaLog = sagaLog;
+        this.messageSender = messageSender;
+        this.sagaObservations = sagaObservations;
+    }
+
+    public static String compensationIdOf(String correlationId) {
+        return correlationId + "-compensation";
+    }
+
+    /**
+     * Journals the saga it is applied to: the beginning is written when the saga is subscribed, and the saga only completes once its end is durable.
+     */
+    public <T> Function<Mono<T>, Mono<T>> journaled(String sagaId, String sagaName, String... correlationIds) {
+        return saga -> Mono.usingWhen(
+                begin(sagaId, sagaName, correlationIds),
+                started -> saga,
+                started -> end(sagaId, SignalType.ON_COMPLETE),
+                (started, ex) -> end(sagaId, SignalType.ON_ERROR),
+                started -> end(sagaId, SignalType.CANCEL));
+    }
+
+    private Mono<String> begin(String sagaId, String sagaName, String... correlationIds) {
+        return Mono.defer(() -> {
+            for (String correlationId : correlationIds) {
+                sagaIdsByCorrelationId.put(correlationId, sagaId);
+            }
+            sagaObservations.sagaStarted(sagaId, sagaName);
+            // The log is written in order, so the steps can't overtake the beginning of their saga
+            return append(SagaLogEntry.begin(sagaId, sagaName)).thenReturn(sagaId);
+        });
+    }
+
+    public Mono<Void> recordStep(String correlationId, String bindingName, Event<?, ?> event) {
+        return recordStep(correlationId, bindingName, event, compensationOf(event));
+    }
+
+    public Mono<Void> recordStep(String correlationId, String bindingName, Event<?, ?> event, Event<?, ?> compensation) {
+        String sagaId = sagaIdsByCorrelationId.get(correlationId);
+        if (sagaId == null) {
+            return Mono.empty();
+        }
+        sagaObservations.stepSent(sagaId, correlationId, bindingName, event);
+        return append(SagaLogEntry.step(sagaId, correlationId, bindingName, compensation));
+    }
+
+    public Mono<Void> recordUnacknowledgedStep(String sagaId, String stepId, String bindingName, Event<?, ?> event) {
+        return append(SagaLogEntry.step(sagaId, stepId, bindingName, compensationOf(event)));
+    }
+
+    public void recordRejection(String correlationId) {
+        String sagaId = sagaIdsByCorrelationId.get(correlationId);
+        if (sagaId != null) {
+            sagaLog.append(SagaLogEntry.rejected(sagaId, correlationId));
+        }
+    }
+
+    /**
+     * Reverts the step with the given correlation id and records that it was reverted, so the recovery doesn't do it again.
+     */
+    public void compensate(String sagaId, String correlationId, String bindingName, Event<?, ?> compensation) {
+        // Sent before it is recorded, a crash in between only leads to a duplicate, which the dedicated id makes harmless
+        sendCompensation(correlationId, bindingName, compensation);
+        append(SagaLogEntry.compensated(sagaId, correlationId)).subscribe();
+    }
+
+    private Mono<Void> end(String sagaId, SignalType signal) {
+        return Mono.defer(() -> {
+            sagaIdsByCorrelationId.values().removeIf(sagaId::equals);
+            sagaObservations.sagaEnded(sagaId, signal);
+            // A cancelled saga neither finished nor rolled back, so it is left to the recovery
+            if (signal == SignalType.CANCEL) {
+                return Mono.empty();
+            }
+            return append(SagaLogEntry.end(sagaId));
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void compensateUnfinishedSagas() {
+        Map<String, List<SagaLogEntry>> unfinishedSagas = sagaLog.getRecoveredSagas();
+        if (unfinishedSagas.isEmpty()) {
+            return;
+        }
+        LOG.warn("Found {} sagas that didn't finish before the last shutdown, compensating them", unfinishedSagas.size());
+        unfinishedSagas.forEach((sagaId, entries) -> {
+            String sagaName = entries.get(0).sagaName();
+            Set<String> settledSteps = entries.stream()
+                    .filter(entry -> entry.type() == SagaLogEntry.Type.REJECTED || entry.type() == SagaLogEntry.Type.COMPENSATED)
+                    .map(SagaLogEntry::correlationId)
+                    .collect(Collectors.toSet());
+            List<SagaLogEntry> steps = new ArrayList<>(entries.stream()
+                    .filter(entry -> entry.type() == SagaLogEntry.Type.STEP)
+                    .toList());
+            Collections.reverse(steps);
+            for (SagaLogEntry step : steps) {
+                if (step.correlationId() != null && settledSteps.contains(step.correlationId())) {
+                    continue;
+                }
+                if (step.compensation() == null) {
+                    LOG.warn("No compensation recorded for a step of the {} saga with id {}, it needs to be checked manually", sagaName, sagaId);
+                    continue;
+                }
+                LOG.info("Compensating a step of the {} saga with id {} by sending a {} message to {}", sagaName, sagaId, step.compensation().getEventType(), step.bindingName());
+                sendCompensation(step.correlationId(), step.bindingName(), step.compensation());
+            }
+            sagaLog.append(SagaLogEntry.end(sagaId));
+        });
+    }
+
+    private void sendCompensation(String correlationId, String bindingName, Event<?, ?> compensation) {
+        MessageBuilder<Event<?, ?>> message = MessageBuilder.<Event<?, ?>>withPayload(compensation)
+                .setHeader("partitionKey", compensation.getKey());
+        if (correlationId != null) {
+            message.setHeader("correlationId", compensationIdOf(correlationId))
+                    .setHeader("compensates", correlationId);
+        }
+        messageSender.send(bindingName, message.build());
+    }
+
+    private Mono<Void> append(SagaLogEntry entry) {
+        return sagaLog.append(entry)
+                .onErrorResume(ex -> {
+                    LOG.warn("Couldn't record the {} entry of saga {}, carrying on without it: {}", entry.type(), entry.sagaId(), ex.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Event<?, ?> compensationOf(Event<?, ?> event) {
+        return switch (event) {
+            case AccountEvent<?, ?> accountEvent when accountEvent.getEventType() == AccountEvent.Type.DEPOSIT ->
+                    new AccountEvent<>(AccountEvent.Type.WITHDRAW, accountEvent.getKey(), accountEvent.getData());
+            case AccountEvent<?, ?> accountEvent when accountEvent.getEventType() == AccountEvent.Type.WITHDRAW ->
+                    new AccountEvent<>(AccountEvent.Type.DEPOSIT, accountEvent.getKey(), accountEvent.getData());
+            case CrudEvent<?, ?> crudEvent when crudEvent.getEventType() == CrudEvent.Type.CREATE ->
+                    new CrudEvent<>(CrudEvent.Type.DELETE, crudEvent.getKey(), crudEvent.getData());
+            case CrudEvent<?, ?> crudEvent when crudEvent.getEventType() == CrudEvent.Type.DELETE ->
+                    new CrudEvent<>(CrudEvent.Type.CREATE, crudEvent.getKey(), crudEvent.getData());
+            // Updates only carry the new version of the record, the sagas that can revert them pass the compensation themselves
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,230 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of saga progress, stored as one JSON entry per line in a local file.
+ * Appends are group committed: a single writer thread takes everything queued since its last write
+ * and makes the whole batch durable with one fsync, so concurrent sagas share the cost of the sync.
+ * When opened, the log keeps only the entries of the sagas that never ended and hands them out for recovery.
+ * While running, the writer rewrites the file the same way after every {@code compactionThreshold} entries, so it doesn't grow with the finished sagas.
+ */
+public class SagaLog implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(SagaLog.class);
+    private final ObjectMapper mapper;
+    private final Scheduler completionScheduler;
+    private final int maxBatchSize;
+    private final int compactionThreshold;
+    private final Path file;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final Map<String, List<SagaLogEntry>> recoveredSagas;
+    // Only touched by the writer thread once it started
+    private final Map<String, List<SagaLogEntry>> openSagas;
+    private int entriesSinceCompaction = 0;
+    private volatile FileChannel channel;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private record PendingAppend(SagaLogEntry entry, byte[] line, CompletableFuture<Void> written) {
+    }
+
+    public SagaLog(Path file, ObjectMapper mapper, Scheduler completionScheduler, int maxBatchSize, int compactionThreshold) throws IOException {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size must be at least 1");
+        }
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("The compaction threshold must be at least 1");
+        }
+        this.mapper = mapper;
+        this.completionScheduler = completionScheduler;
+        this.maxBatchSize = maxBatchSize;
+        this.compactionThreshold = compactionThreshold;
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Map<String, List<SagaLogEntry>> unfinishedSagas = readUnfinishedSagas(file);
+        this.recoveredSagas = Collections.unmodifiableMap(unfinishedSagas);
+        this.openSagas = new LinkedHashMap<>();
+        unfinishedSagas.forEach((sagaId, entries) -> openSagas.put(sagaId, new ArrayList<>(entries)));
+        compact(file, openSagas);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writer = new Thread(this::writeLoop, "saga-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues the entry right away, the returned Mono completes once the batch containing it has been synced to disk.
+     */
+    public Mono<Void> append(SagaLogEntry entry) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        if (!running) {
+            written.completeExceptionally(new IllegalStateException("The saga log is closed"));
+        } else {
+            try {
+                byte[] json = mapper.writeValueAsBytes(entry);
+                byte[] line = new byte[json.length + 1];
+                System.arraycopy(json, 0, line, 0, json.length);
+                line[json.length] = '\n';
+                queue.add(new PendingAppend(entry, line, written));
+            } catch (JsonProcessingException e) {
+                written.completeExceptionally(e);
+            }
+        }
+        return Mono.fromFuture(written).publishOn(completionScheduler);
+    }
+
+    public Map<String, List<SagaLogEntry>> getRecoveredSagas() {
+        return recoveredSagas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                ByteBuffer[] buffers = batch.stream()
+                        .map(pending -> ByteBuffer.wrap(pending.line()))
+                        .toArray(ByteBuffer[]::new);
+                while (buffers[buffers.length - 1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(false);
+                batch.forEach(pending -> pending.written().complete(null));
+                batch.forEach(pending -> track(pending.entry()));
+                entriesSinceCompaction += batch.size();
+                if (entriesSinceCompaction >= compactionThreshold) {
+                    compactWhileRunning();
+                }
+            } catch (IOException e) {
+                LOG.error("Couldn't write {} saga log entries: {}", batch.size(), e.getMessage());
+                batch.forEach(pending -> pending.written().completeExceptionally(e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void track(SagaLogEntry entry) {
+        if (entry.type() == SagaLogEntry.Type.END) {
+            openSagas.remove(entry.sagaId());
+        } else {
+            openSagas.computeIfAbsent(entry.sagaId(), key -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    private void compactWhileRunning() {
+        entriesSinceCompaction = 0;
+        try {
+            compact(file, openSagas);
+        } catch (IOException e) {
+            LOG.warn("Couldn't compact the saga log, keeps appending to the old file: {}", e.getMessage());
+            return;
+        }
+        // The move replaced the file the channel points to, so the next batches go to a freshly opened one
+        FileChannel previous = channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            LOG.debug("Compacted the saga log to {} unfinished sagas", openSagas.size());
+        } catch (IOException e) {
+            LOG.error("Couldn't reopen the saga log after compacting it: {}", e.getMessage());
+            return;
+        }
+        try {
+            previous.close();
+        } catch (IOException e) {
+            LOG.warn("Couldn't close the saga log replaced by the compaction: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, List<SagaLogEntry>> readUnfinishedSagas(Path file) throws IOException {
+        Map<String, List<SagaLogEntry>> sagas = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return sagas;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                SagaLogEntry entry;
+                try {
+                    entry = mapper.readValue(line, SagaLogEntry.class);
+                } catch (JsonProcessingException e) {
+                    // Only the tail of the file can be torn by a crash, everything before it was synced
+                    LOG.warn("Skipping unreadable saga log entry: {}", e.getMessage());
+                    continue;
+                }
+                if (entry.type() == SagaLogEntry.Type.END) {
+                    sagas.remove(entry.sagaId());
+                } else {
+                    sagas.computeIfAbsent(entry.sagaId(), key -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+        return sagas;
+    }
+
+    private void compact(Path file, Map<String, List<SagaLogEntry>> unfinishedSagas) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compacted");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (List<SagaLogEntry> entries : unfinishedSagas.values()) {
+                for (SagaLogEntry entry : entries) {
+                    ByteBuffer buffer = ByteBuffer.wrap((mapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+            }
+            out.force(false);
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,46 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import hu.therealuhlarzoltan.expensables.api.microservices.events.Event;
+
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SagaLogEntry(
+        String sagaId,
+        Type type,
+        String sagaName,
+        String correlationId,
+        String bindingName,
+        Event<?, ?> compensation,
+        Instant timestamp
+) {
+
+    public enum Type {
+        BEGIN,
+        STEP,
+        REJECTED,
+        COMPENSATED,
+        END
+    }
+
+    public static SagaLogEntry begin(String sagaId, String sagaName) {
+        return new SagaLogEntry(sagaId, Type.BEGIN, sagaName, null, null, null, Instant.now());
+    }
+
+    public static SagaLogEntry step(String sagaId, String correlationId, String bindingName, Event<?, ?> compensation) {
+        return new SagaLogEntry(sagaId, Type.STEP, null, correlationId, bindingName, compensation, Instant.now());
+    }
+
+    public static SagaLogEntry rejected(String sagaId, String correlationId) {
+        return new SagaLogEntry(sagaId, Type.REJECTED, null, correlationId, null, null, Instant.now());
+    }
+
+    public static SagaLogEntry compensated(String sagaId, String correlationId) {
+        return new SagaLogEntry(sagaId, Type.COMPENSATED, null, correlationId, null, null, Instant.now());
+    }
+
+    public static SagaLogEntry end(String sagaId) {
+        return new SagaLogEntry(sagaId, Type.END, null, null, null, null, Instant.now());
+    }
+}
@@ -0,0 +1,106 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import hu.therealuhlarzoltan.expensables.api.microservices.events.Event;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Observations of the sagas, recorded both as timers exposed through the actuator metrics endpoint and as spans of the trace
+ * of the request that started the saga.
+ * saga.duration covers whole sagas tagged by saga, outcome and whether compensation ran,
+ * saga.step.duration covers every dispatched step from sending it until its answer arrived, tagged by saga, step and outcome.
+ */
+public class SagaObservations {
+    private final ObservationRegistry registry;
+    private final Map<String, RunningSaga> runningSagas = new ConcurrentHashMap<>();
+    private final Map<String, RunningStep> runningSteps = new ConcurrentHashMap<>();
+
+    private record RunningSaga(Observation observation, AtomicBoolean compensated) {
+    }
+
+    private record RunningStep(String sagaId, Observation observation) {
+    }
+
+    public SagaObservations(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void sagaStarted(String sagaId, String sagaName) {
+        // Started while the incoming request is still being handled, so the request's observation becomes the parent
+        Observation observation = Observation.createNotStarted("saga.duration", registry)
+                .contextualName(sagaName)
+                .lowCardinalityKeyValue("saga", sagaName)
+                .start();
+        runningSagas.put(sagaId, new RunningSaga(observation, new AtomicBoolean()));
+    }
+
+    public void stepSent(String sagaId, String correlationId, String bindingName, Event<?, ?> event) {
+        RunningSaga saga = runningSagas.get(sagaId);
+        if (saga == null) {
+            return;
+        }
+        String step = stepName(bindingName, event);
+        Observation observation = Observation.createNotStarted("saga.step.duration", registry)
+                .parentObservation(saga.observation())
+                .contextualName(step)
+                .lowCardinalityKeyValue("saga", saga.observation().getContext().getContextualName())
+                .lowCardinalityKeyValue("step", step)
+                .start();
+        runningSteps.put(correlationId, new RunningStep(sagaId, observation));
+    }
+
+    /**
+     * The observation of the step sent with the given correlation id, the messages of the step are sent as its children.
+     */
+    public Observation currentStep(String correlationId) {
+        RunningStep step = runningSteps.get(correlationId);
+        return step != null ? step.observation() : null;
+    }
+
+    public void stepAnswered(String correlationId, String outcome) {
+        RunningStep step = runningSteps.remove(correlationId);
+        if (step != null) {
+            step.observation().lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+    }
+
+    public void compensating(String sagaId) {
+        RunningSaga saga = runningSagas.get(sagaId);
+        if (saga != null) {
+            saga.compensated().set(true);
+        }
+    }
+
+    public void sagaEnded(String sagaId, SignalType signal) {
+        RunningSaga saga = runningSagas.remove(sagaId);
+        runningSteps.entrySet().removeIf(entry -> {
+            if (!entry.getValue().sagaId().equals(sagaId)) {
+                return false;
+            }
+            entry.getValue().observation().lowCardinalityKeyValue("outcome", "abandoned").stop();
+            return true;
+        });
+        if (saga == null) {
+            return;
+        }
+        String outcome = switch (signal) {
+            case ON_COMPLETE -> "success";
+            case CANCEL -> "cancelled";
+            default -> "failure";
+        };
+        saga.observation()
+                .lowCardinalityKeyValue("outcome", outcome)
+                .lowCardinalityKeyValue("compensated", String.valueOf(saga.compensated().get()))
+                .stop();
+    }
+
+    private String stepName(String bindingName, Event<?, ?> event) {
+        // e.g. accounts.withdraw for a WITHDRAW event sent to accounts-out-0
+        return bindingName.replace("-out-0", "") + "." + event.getEventType().name().toLowerCase();
+    }
+}
@@ -0,0 +1,21 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.util.MimeType;
+
+/**
+ * Message converter for the binary Smile encoding of Jackson, handling the same types with the same annotations as the JSON converter.
+ * Consumers pick the converter by the content type header of each message, so a binding can switch its producer
+ * to Smile once every consumer registers this converter, without a coordinated release.
+ */
+public class SmileMessageConverter extends MappingJackson2MessageConverter {
+    public static final MimeType APPLICATION_SMILE = new MimeType("application", "x-jackson-smile");
+
+    public SmileMessageConverter(ObjectMapper objectMapper) {
+        super(APPLICATION_SMILE);
+        // Copied from the application mapper, so the registered modules and features stay the same
+        setObjectMapper(objectMapper.copyWith(new SmileFactory()));
+    }
+}
@@ -0,0 +1,117 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.integration.amqp.inbound.AmqpInboundChannelAdapter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class AcknowledgingProcessorTests {
+    private Channel channel;
+    private AcknowledgingProcessor acknowledgingProcessor;
+
+    @BeforeEach
+    void setUp() {
+        channel = mock(Channel.class);
+        acknowledgingProcessor = new AcknowledgingProcessor(3, Duration.ofMillis(10), Duration.ofMillis(20), 2.0, Schedulers.parallel());
+    }
+
+    @Test
+    void theRetryWindowAddsUpTheCappedBackoffs() {
+        // 10 ms, then 20 ms, the third attempt is the last one
+        assertEquals(Duration.ofMillis(30), acknowledgingProcessor.retryWindow());
+        assertEquals(Duration.ofMillis(500 + 1000 + 2000 + 4000 + 8000 + 16000 + 30000),
+                new AcknowledgingProcessor(8, Duration.ofMillis(500), Duration.ofSeconds(30), 2.0, Schedulers.parallel()).retryWindow());
+    }
+
+    @Test
+    void aProcessedMessageIsAcknowledged() throws IOException {
+        StepVerifier.create(acknowledgingProcessor.process(message(7L), Mono::empty))
+                .verifyComplete();
+
+        verify(channel).basicAck(7L, false);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void aFailingMessageIsRetriedAndThenDeadLettered() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(acknowledgingProcessor.process(message(7L),
+                        () -> Mono.defer(() -> {
+                            attempts.incrementAndGet();
+                            return Mono.error(new IllegalStateException("Still failing"));
+                        })))
+                .verifyComplete();
+
+        assertEquals(3, attempts.get());
+        // Rejecting without requeueing makes the broker route the message to the dead letter queue of the binding
+        verify(channel).basicNack(7L, false, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void aMessageSucceedingOnARetryIsAcknowledged() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(acknowledgingProcessor.process(message(7L),
+                        () -> attempts.incrementAndGet() < 2 ? Mono.error(new IllegalStateException("Failing once")) : Mono.empty()))
+                .verifyComplete();
+
+        assertEquals(2, attempts.get());
+        verify(channel).basicAck(7L, false);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void aBatchIsAcknowledgedUpToItsLastMessage() throws IOException {
+        Message<List<String>> batch = MessageBuilder.withPayload(List.of("first", "second", "third"))
+                .setHeader(AmqpHeaders.CHANNEL, channel)
+                .setHeader(AmqpInboundChannelAdapter.CONSOLIDATED_HEADERS, List.of(
+                        Map.of(AmqpHeaders.DELIVERY_TAG, 3L),
+                        Map.of(AmqpHeaders.DELIVERY_TAG, 4L),
+                        Map.of(AmqpHeaders.DELIVERY_TAG, 5L)))
+                .build();
+
+        StepVerifier.create(acknowledgingProcessor.process(batch, Mono::empty))
+                .verifyComplete();
+
+        verify(channel).basicAck(5L, true);
+    }
+
+    @Test
+    void messagesWithoutAChannelAreOnlyProcessed() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        StepVerifier.create(acknowledgingProcessor.process(MessageBuilder.withPayload("payload").build(),
+                        () -> Mono.fromRunnable(attempts::incrementAndGet)))
+                .verifyComplete();
+
+        assertEquals(1, attempts.get());
+    }
+
+    private Message<String> message(long deliveryTag) {
+        return MessageBuilder.withPayload("payload")
+                .setHeader(AmqpHeaders.CHANNEL, channel)
+                .setHeader(AmqpHeaders.DELIVERY_TAG, deliveryTag)
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExpiringCacheTests {
+    private MutableClock clock;
+    private ExpiringCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-08-13T12:00:00Z"));
+        cache = new ExpiringCache<>(3, Duration.ofMinutes(10), clock);
+    }
+
+    @Test
+    void entriesAreReturnedUntilTheyExpire() {
+        cache.put("key", "value");
+
+        clock.advance(Duration.ofMinutes(9));
+        assertEquals(Optional.of("value"), cache.get("key"));
+
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(Optional.empty(), cache.get("key"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void aFullCacheEvictsTheOldestWrite() {
+        cache.put("first", "1");
+        cache.put("second", "2");
+        cache.put("third", "3");
+        // Reading doesn't count as a use, the first write is still the oldest one
+        cache.get("first");
+
+        cache.put("fourth", "4");
+
+        assertEquals(Optional.empty(), cache.get("first"));
+        assertEquals(Optional.of("2"), cache.get("second"));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void rewritingAnEntryRenewsIt() {
+        cache.put("first", "1");
+        cache.put("second", "2");
+        clock.advance(Duration.ofMinutes(5));
+        cache.put("first", "1 again");
+        cache.put("third", "3");
+        cache.put("fourth", "4");
+
+        assertEquals(Optional.of("1 again"), cache.get("first"));
+        assertEquals(Optional.empty(), cache.get("second"));
+
+        clock.advance(Duration.ofMinutes(6));
+        assertEquals(Optional.of("1 again"), cache.get("first"));
+    }
+
+    @Test
+    void removedEntriesAreGone() {
+        cache.put("key", "value");
+
+        cache.remove("key");
+
+        assertEquals(Optional.empty(), cache.get("key"));
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(1, Duration.ZERO));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeyedExecutorTests {
+
+    private record Item(String key, int sequence) {
+    }
+
+    @Test
+    void itemsWithTheSameKeyRunOneAfterTheOtherInArrivalOrder() {
+        KeyedExecutor<Item> executor = new KeyedExecutor<>(4, Item::key, Schedulers.parallel());
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(new Item("key-" + (i % 3), i));
+        }
+        Map<String, List<Integer>> handled = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        Mono<Void> execution = executor.execute(Flux.fromIterable(items), item -> Mono.fromRunnable(() -> {
+                    if (running.computeIfAbsent(item.key(), key -> new AtomicInteger()).incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                })
+                // Random delays would reorder the items if the same key ran concurrently
+                .then(Mono.delay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(1, 5))))
+                .doOnNext(ignored -> {
+                    handled.computeIfAbsent(item.key(), key -> Collections.synchronizedList(new ArrayList<>())).add(item.sequence());
+                    running.get(item.key()).decrementAndGet();
+                })
+                .then());
+
+        StepVerifier.create(execution).expectComplete().verify(Duration.ofSeconds(10));
+
+        assertEquals(0, overlaps.get());
+        for (int key = 0; key < 3; key++) {
+            int first = key;
+            List<Integer> expected = items.stream().filter(item -> item.key().equals("key-" + first)).map(Item::sequence).toList();
+            assertEquals(expected, handled.get("key-" + key));
+        }
+    }
+
+    @Test
+    void itemsWithDifferentKeysRunConcurrently() {
+        KeyedExecutor<Item> executor = new KeyedExecutor<>(4, Item::key, Schedulers.parallel());
+        Item first = new Item("key-0", 0);
+        Item second = new Item("key-1", 1);
+        assertNotEquals(executor.laneOf(first), executor.laneOf(second));
+        AtomicInteger started = new AtomicInteger();
+        Sinks.Empty<Void> bothStarted = Sinks.empty();
+
+        // Each item only finishes once the other one started too, so running the lanes one by one would never complete
+        Mono<Void> execution = executor.execute(Flux.just(first, second), item -> Mono.defer(() -> {
+            if (started.incrementAndGet() == 2) {
+                bothStarted.tryEmitEmpty();
+            }
+            return bothStarted.asMono();
+        }));
+
+        StepVerifier.create(execution).expectComplete().verify(Duration.ofSeconds(5));
+        assertEquals(2, started.get());
+    }
+
+    @Test
+    void atLeastOneLaneIsRequired() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyedExecutor<Item>(0, Item::key, Schedulers.parallel()));
+    }
+}
@@ -0,0 +1,118 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SagaLogTests {
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void concurrentAppendsAreDurableOnceTheyComplete() throws IOException {
+        Path file = directory.resolve("saga.log");
+        try (SagaLog sagaLog = new SagaLog(file, mapper, Schedulers.immediate(), 16, 10_000)) {
+            List<Mono<Void>> appends = IntStream.range(0, 100)
+                    .mapToObj(i -> sagaLog.append(SagaLogEntry.begin("saga-" + i, "test")))
+                    .toList();
+            Flux.merge(appends).then().block(Duration.ofSeconds(5));
+
+            // Read while the log is still open, completing an append means its batch was already synced
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(100, lines.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals("saga-" + i, mapper.readValue(lines.get(i), SagaLogEntry.class).sagaId());
+            }
+        }
+    }
+
+    @Test
+    void recoveryHandsOutTheUnfinishedSagasOnly() throws IOException {
+        Path file = directory.resolve("saga.log");
+        try (SagaLog sagaLog = new SagaLog(file, mapper, Schedulers.immediate(), 16, 10_000)) {
+            Mono.when(
+                    sagaLog.append(SagaLogEntry.begin("finished", "test")),
+                    sagaLog.append(SagaLogEntry.begin("unfinished", "test")),
+                    sagaLog.append(SagaLogEntry.step("unfinished", "correlation", "accounts-out-0", null)),
+                    sagaLog.append(SagaLogEntry.end("finished"))
+            ).block(Duration.ofSeconds(5));
+        }
+
+        try (SagaLog sagaLog = new SagaLog(file, mapper, Schedulers.immediate(), 16, 10_000)) {
+            Map<String, List<SagaLogEntry>> recovered = sagaLog.getRecoveredSagas();
+            assertEquals(List.of("unfinished"), List.copyOf(recovered.keySet()));
+            assertEquals(List.of(SagaLogEntry.Type.BEGIN, SagaLogEntry.Type.STEP), recovered.get("unfinished").stream().map(SagaLogEntry::type).toList());
+            // Opening the log compacted the finished saga away
+            assertEquals(2, Files.readAllLines(file).size());
+        }
+    }
+
+    @Test
+    void aTornTailIsSkippedAndCutOff() throws IOException {
+        Path file = directory.resolve("saga.log");
+        String complete = mapper.writeValueAsString(SagaLogEntry.begin("complete", "test"));
+        String torn = mapper.writeValueAsString(SagaLogEntry.begin("torn", "test"));
+        Files.writeString(file, complete + "\n" + torn.substring(0, torn.length() / 2), StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
+
+        try (SagaLog sagaLog = new SagaLog(file, mapper, Schedulers.immediate(), 16, 10_000)) {
+            assertEquals(List.of("complete"), List.copyOf(sagaLog.getRecoveredSagas().keySet()));
+            sagaLog.append(SagaLogEntry.begin("appended", "test")).block(Duration.ofSeconds(5));
+        }
+
+        // Had the torn line been left in place, the next entry would have been glued onto it
+        try (SagaLog sagaLog = new SagaLog(file, mapper, Schedulers.immediate(), 16, 10_000)) {
+            assertEquals(List.of("complete", "appended"), List.copyOf(sagaLog.getRecoveredSagas().keySet()));
+        }
+    }
+
+    @Test
+    void theLogIsCompactedWhileRunning() throws IOException {
+        Path file = directory.resolve("saga.log");
+        try (SagaLog sagaLog = new SagaLog(file, mapper, Schedulers.immediate(), 1, 4)) {
+            sagaLog.append(SagaLogEntry.begin("finished", "test")).block(Duration.ofSeconds(5));
+            sagaLog.append(SagaLogEntry.step("finished", "correlation", "accounts-out-0", null)).block(Duration.ofSeconds(5));
+            sagaLog.append(SagaLogEntry.end("finished")).block(Duration.ofSeconds(5));
+            // The fourth entry triggers the compaction, the one after it goes to the compacted file
+            sagaLog.append(SagaLogEntry.begin("running", "test")).block(Duration.ofSeconds(5));
+            sagaLog.append(SagaLogEntry.step("running", "other-correlation", "accounts-out-0", null)).block(Duration.ofSeconds(5));
+
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(2, lines.size());
+            assertTrue(lines.stream().allMatch(line -> line.contains("\"running\"")));
+            assertFalse(Files.exists(directory.resolve("saga.log.compacted")));
+        }
+
+        try (SagaLog sagaLog = new SagaLog(file, mapper, Schedulers.immediate(), 1, 4)) {
+            assertEquals(2, sagaLog.getRecoveredSagas().get("running").size());
+        }
+    }
+
+    @Test
+    void appendsFailOnceTheLogIsClosed() throws IOException {
+        SagaLog sagaLog = new SagaLog(directory.resolve("saga.log"), mapper, Schedulers.immediate(), 16, 10_000);
+        sagaLog.close();
+
+        assertThrows(IllegalStateException.class, () -> sagaLog.append(SagaLogEntry.begin("late", "test")).block(Duration.ofSeconds(5)));
+    }
+}
@@ -0,0 +1,93 @@
+package hu.therealuhlarzoltan.expensables.util;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records the find commands sent by the MongoDB driver, so the query a repository method actually produces,
+ * with its sort and limit, can be explained. Add it to a test context with {@link Configuration}.
+ * A sorted query must also get its order from the index, without a SORT stage.
+ */
+public class QueryPlanRecorder implements CommandListener {
+    private static final Set<String> FIND_FIELDS = Set.of("find", "filter", "sort", "projection", "skip", "limit", "hint");
+
+    private final Deque<BsonDocument> finds = new ConcurrentLinkedDeque<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if ("find".equals(event.getCommandName())) {
+            // The command is only valid during the event, and the session and cluster fields would fail an explain
+            BsonDocument find = new BsonDocument();
+            event.getCommand().clone().forEach((field, value) -> {
+                if (FIND_FIELDS.contains(field)) {
+                    find.put(field, value);
+                }
+            });
+            finds.add(find);
+        }
+    }
+
+    public void assertIndexScan(ReactiveMongoOperations mongoTemplate, String collectionName, Publisher<?> query) {
+        finds.clear();
+        Flux.from(query).then().block();
+        BsonDocument find = finds.stream()
+                .filter(command -> command.getString("find").getValue().equals(collectionName))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("The query sent no find command to " + collectionName));
+
+        BsonDocument explainCommand = new BsonDocument("explain", find).append("verbosity", new BsonString("queryPlanner"));
+        Document explain = mongoTemplate.getMongoDatabase()
+                .flatMap(database -> Mono.from(database.runCommand(explainCommand)))
+                .block();
+        assertNotNull(explain);
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        assertTrue(hasStage(winningPlan, "IXSCAN"), () -> "Expected an index scan for " + find.toJson() + " but the plan was " + winningPlan.toJson());
+        if (find.containsKey("sort") && !find.getDocument("sort").isEmpty()) {
+            // An index scan can still feed an in-memory sort when the index doesn't match the sort order
+            assertFalse(hasStage(winningPlan, "SORT"), () -> "Expected the index to provide the order of " + find.toJson() + " but the plan was " + winningPlan.toJson());
+        }
+    }
+
+    private static boolean hasStage(Object plan, String stage) {
+        if (plan instanceof Document document) {
+            return stage.equals(document.get("stage")) || document.values().stream().anyMatch(value -> hasStage(value, stage));
+        }
+        if (plan instanceof List<?> plans) {
+            return plans.stream().anyMatch(value -> hasStage(value, stage));
+        }
+        return false;
+    }
+
+    @TestConfiguration
+    public static class Configuration {
+
+        @Bean
+        public QueryPlanRecorder queryPlanRecorder() {
+            return new QueryPlanRecorder();
+        }
+
+        @Bean
+        public MongoClientSettingsBuilderCustomizer queryPlanRecorderCustomizer(QueryPlanRecorder queryPlanRecorder) {
+            return settings -> settings.addCommandListener(queryPlanRecorder);
+        }
+    }
+}